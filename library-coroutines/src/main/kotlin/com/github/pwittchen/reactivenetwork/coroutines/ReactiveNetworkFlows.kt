@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+@file:OptIn(ExperimentalCoroutinesApi::class)
+@file:Suppress("DEPRECATION") // CONNECTIVITY_ACTION and NetworkInfo are deprecated since API 28
+
+package com.github.pwittchen.reactivenetwork.coroutines
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkInfo
+import android.net.NetworkRequest
+import android.os.Build
+import android.util.Log
+import androidx.annotation.RequiresApi
+import androidx.annotation.RequiresPermission
+import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity
+import com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingSettings
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy
+import io.reactivex.Observable
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.stateIn
+
+/**
+ * Observes network connectivity as a cold Flow. Network callback (or connectivity receiver
+ * on devices older than Lollipop) is registered when the Flow is collected and unregistered when
+ * collection is cancelled. Flow is conflated, so slow collector receives only the latest
+ * Connectivity.
+ *
+ * @param context Context of the activity or an application
+ * @return Flow with Connectivity
+ */
+@RequiresPermission(android.Manifest.permission.ACCESS_NETWORK_STATE)
+fun networkConnectivityFlow(context: Context): Flow<Connectivity> =
+  if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+    networkCallbackFlow(context, null)
+  } else {
+    connectivityReceiverFlow(context)
+  }
+
+/**
+ * Observes network connectivity as a cold Flow, when networks with transport types
+ * and capabilities given in settings change. Connectivity of the network passed to the callback
+ * is emitted instead of the active one. Settings are ignored on devices older than Lollipop.
+ *
+ * @param context Context of the activity or an application
+ * @param settings of observed networks
+ * @return Flow with Connectivity
+ */
+@RequiresPermission(android.Manifest.permission.ACCESS_NETWORK_STATE)
+fun networkConnectivityFlow(
+  context: Context,
+  settings: NetworkObservingSettings
+): Flow<Connectivity> =
+  if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+    networkCallbackFlow(context, settings)
+  } else {
+    connectivityReceiverFlow(context)
+  }
+
+/**
+ * Observes network connectivity as a cold Flow with a given strategy, e.g. with strategy
+ * invoking callbacks on a custom handler. Strategy is subscribed when the Flow is collected
+ * and disposed when collection is cancelled.
+ *
+ * @param context Context of the activity or an application
+ * @param strategy NetworkObservingStrategy to be applied
+ * @return Flow with Connectivity
+ */
+@RequiresPermission(android.Manifest.permission.ACCESS_NETWORK_STATE)
+fun networkConnectivityFlow(
+  context: Context,
+  strategy: NetworkObservingStrategy
+): Flow<Connectivity> =
+  observableFlow(strategy.observeNetworkConnectivity(context))
+
+/**
+ * Shares network connectivity between all collectors as a StateFlow. Network callback
+ * is registered while there's at least one collector.
+ *
+ * @param context Context of the activity or an application
+ * @param scope in which the registration is kept
+ * @return StateFlow with the latest Connectivity
+ */
+@RequiresPermission(android.Manifest.permission.ACCESS_NETWORK_STATE)
+fun networkConnectivityStateFlow(context: Context, scope: CoroutineScope): StateFlow<Connectivity> =
+  networkConnectivityFlow(context)
+    .stateIn(scope, SharingStarted.WhileSubscribed(), Connectivity.create())
+
+/**
+ * Observes connectivity with the Internet with default settings as a cold Flow. Checks
+ * of [ReactiveNetwork.observeInternetConnectivity] are started when the Flow is collected
+ * and stopped when collection is cancelled. Flow is conflated, so slow collector receives
+ * only the latest value.
+ *
+ * @return Flow with Boolean - true, when we have connection with host and false if not
+ */
+@RequiresPermission(android.Manifest.permission.INTERNET)
+fun internetConnectivityFlow(): Flow<Boolean> =
+  observableFlow(ReactiveNetwork.observeInternetConnectivity())
+
+/**
+ * Observes connectivity with the Internet as a cold Flow. Connectivity is checked with the strategy
+ * from the settings in the interval from the settings. Flow is conflated, so slow collector
+ * receives only the latest value.
+ *
+ * @param settings Internet Observing Settings created via Builder pattern
+ * @return Flow with Boolean - true, when we have connection with host and false if not
+ */
+@RequiresPermission(android.Manifest.permission.INTERNET)
+fun internetConnectivityFlow(settings: InternetObservingSettings): Flow<Boolean> =
+  observableFlow(ReactiveNetwork.observeInternetConnectivity(settings))
+
+/**
+ * Observes connectivity with the Internet as a cold Flow, but only while data isn't blocked,
+ * e.g. by Data Saver. Checks of [ReactiveNetwork.observeInternetConnectivity] are paused
+ * while [Connectivity.blocked] is true.
+ *
+ * @param context Context of the activity or an application
+ * @param settings Internet Observing Settings created via Builder pattern
+ * @return Flow with Boolean - true, when we have connection with host and false if not
+ */
+@RequiresPermission(
+  allOf = [android.Manifest.permission.INTERNET, android.Manifest.permission.ACCESS_NETWORK_STATE]
+)
+fun internetConnectivityFlow(context: Context, settings: InternetObservingSettings): Flow<Boolean> =
+  observableFlow(ReactiveNetwork.observeInternetConnectivity(context, settings))
+
+/**
+ * Shares connectivity with the Internet between all collectors as a StateFlow. Connectivity
+ * is checked while there's at least one collector.
+ *
+ * @param scope in which checks are performed
+ * @param settings Internet Observing Settings created via Builder pattern
+ * @param initialValue value of the StateFlow before the first check completes
+ * @return StateFlow with Boolean - true, when we have connection with host and false if not
+ */
+@RequiresPermission(android.Manifest.permission.INTERNET)
+fun internetConnectivityStateFlow(
+  scope: CoroutineScope,
+  settings: InternetObservingSettings = InternetObservingSettings.create(),
+  initialValue: Boolean = false
+): StateFlow<Boolean> =
+  internetConnectivityFlow(settings).stateIn(scope, SharingStarted.WhileSubscribed(), initialValue)
+
+@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+private fun networkCallbackFlow(
+  context: Context,
+  settings: NetworkObservingSettings?
+): Flow<Connectivity> = callbackFlow<Connectivity> {
+  val manager = context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+  val callback = object : ConnectivityManager.NetworkCallback() {
+    override fun onAvailable(network: Network) {
+      offer(
+        if (settings != null) Connectivity.create(context, network)
+        else Connectivity.create(context)
+      )
+    }
+
+    override fun onLost(network: Network) {
+      offer(if (settings != null) createLostConnectivity(network) else Connectivity.create(context))
+    }
+
+    override fun onBlockedStatusChanged(network: Network, blocked: Boolean) {
+      if (settings != null) {
+        offer(Connectivity.create(context, network, blocked))
+      } else if (network == manager.activeNetwork) {
+        offer(Connectivity.create(context, network, blocked))
+      }
+    }
+  }
+  offer(
+    if (settings != null) createMatchingConnectivity(context, manager, settings)
+    else Connectivity.create(context)
+  )
+  val request = settings?.createNetworkRequest() ?: NetworkRequest.Builder().build()
+  manager.registerNetworkCallback(request, callback)
+  awaitClose {
+    try {
+      manager.unregisterNetworkCallback(callback)
+    } catch (exception: Exception) {
+      Log.e(ReactiveNetwork.LOG_TAG, "could not unregister network callback", exception)
+    }
+  }
+}.distinctUntilChanged().conflate()
+
+private fun connectivityReceiverFlow(context: Context): Flow<Connectivity> =
+  callbackFlow<Connectivity> {
+    val receiver = object : BroadcastReceiver() {
+      override fun onReceive(context: Context, intent: Intent) {
+        offer(Connectivity.create(context))
+      }
+    }
+    offer(Connectivity.create(context))
+    context.registerReceiver(receiver, IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION))
+    awaitClose {
+      try {
+        context.unregisterReceiver(receiver)
+      } catch (exception: Exception) {
+        Log.e(ReactiveNetwork.LOG_TAG, "could not unregister receiver", exception)
+      }
+    }
+  }.distinctUntilChanged().conflate()
+
+private fun <T : Any> observableFlow(observable: Observable<T>): Flow<T> =
+  callbackFlow<T> {
+    val disposable = observable.subscribe({ offer(it) }, { close(it) }, { close() })
+    awaitClose { disposable.dispose() }
+  }.conflate()
+
+@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+private fun createLostConnectivity(network: Network): Connectivity {
+  val builder = Connectivity.state(NetworkInfo.State.DISCONNECTED)
+    .detailedState(NetworkInfo.DetailedState.DISCONNECTED)
+  if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+    builder.networkHandle(network.networkHandle)
+  }
+  return builder.build()
+}
+
+@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+private fun createMatchingConnectivity(
+  context: Context,
+  manager: ConnectivityManager,
+  settings: NetworkObservingSettings
+): Connectivity {
+  for (network in manager.allNetworks) {
+    val capabilities = manager.getNetworkCapabilities(network) ?: continue
+    val transportTypes = settings.transportTypes()
+    val hasTransportType =
+      transportTypes.isEmpty() || transportTypes.any(capabilities::hasTransport)
+    if (hasTransportType && settings.capabilities().all(capabilities::hasCapability)) {
+      val connectivity = Connectivity.create(context, network)
+      if (connectivity.state() == NetworkInfo.State.CONNECTED) {
+        return connectivity
+      }
+    }
+  }
+  return Connectivity.create()
+}
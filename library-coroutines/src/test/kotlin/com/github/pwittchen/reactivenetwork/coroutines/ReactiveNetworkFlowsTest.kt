@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+@file:Suppress("DEPRECATION") // NetworkInfo is deprecated since API 29
+
+package com.github.pwittchen.reactivenetwork.coroutines
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.NetworkInfo
+import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingSettings
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingStrategy
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy
+import com.google.common.truth.Truth.assertThat
+import io.reactivex.Observable
+import io.reactivex.Single
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+
+@RunWith(RobolectricTestRunner::class)
+class ReactiveNetworkFlowsTest {
+
+  private val context: Context = RuntimeEnvironment.getApplication()
+
+  @Test fun shouldEmitConnectivityObservedWithStrategy() = runBlocking {
+    // given
+    val connected = Connectivity.state(NetworkInfo.State.CONNECTED).build()
+    val disconnected = Connectivity.state(NetworkInfo.State.DISCONNECTED).build()
+    val strategy = createNetworkStrategy(Observable.just(connected, disconnected))
+
+    // when
+    val emitted = networkConnectivityFlow(context, strategy).toList()
+
+    // then
+    assertThat(emitted).containsExactly(connected, disconnected).inOrder()
+  }
+
+  @Test fun shouldDisposeObservableWhenCollectionIsCancelled() = runBlocking {
+    // given
+    val isDisposed = AtomicBoolean()
+    val connectivity = Connectivity.state(NetworkInfo.State.CONNECTED).build()
+    val strategy = createNetworkStrategy(
+      Observable.just(connectivity)
+        .concatWith(Observable.never())
+        .doOnDispose { isDisposed.set(true) }
+    )
+
+    // when
+    val emitted = networkConnectivityFlow(context, strategy).first()
+
+    // then
+    assertThat(emitted).isSameInstanceAs(connectivity)
+    assertThat(isDisposed.get()).isTrue()
+  }
+
+  @Test fun shouldEmitConnectivityObservedWithDefaultStrategy() = runBlocking {
+    // when
+    val connectivity = networkConnectivityFlow(context).first()
+
+    // then
+    assertThat(connectivity).isNotNull()
+  }
+
+  @Test fun shouldUnregisterNetworkCallbackWhenCollectionIsCancelled() = runBlocking {
+    // given
+    val manager = context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+
+    // when
+    val connectivity = networkConnectivityFlow(context).first()
+
+    // then
+    assertThat(connectivity.state()).isEqualTo(NetworkInfo.State.CONNECTED)
+    assertThat(shadowOf(manager).networkCallbacks).isEmpty()
+  }
+
+  @Test fun shouldEmitInternetConnectivityCheckedWithStrategyFromSettings() = runBlocking {
+    // given
+    val settings = InternetObservingSettings.builder()
+      .strategy(createInternetStrategy(Observable.just(true, false)))
+      .build()
+
+    // when
+    val emitted = internetConnectivityFlow(settings).toList()
+
+    // then
+    assertThat(emitted).containsExactly(true, false).inOrder()
+  }
+
+  @Test fun shouldShareInternetConnectivityAsStateFlow() = runBlocking {
+    // given
+    val scope = CoroutineScope(Job())
+    val settings = InternetObservingSettings.builder()
+      .strategy(createInternetStrategy(Observable.just(true).concatWith(Observable.never())))
+      .build()
+
+    // when
+    val stateFlow = internetConnectivityStateFlow(scope, settings)
+    val isConnected = stateFlow.first { it }
+
+    // then
+    assertThat(isConnected).isTrue()
+    assertThat(stateFlow.value).isTrue()
+    scope.cancel()
+  }
+
+  private fun createNetworkStrategy(
+    connectivity: Observable<Connectivity>
+  ): NetworkObservingStrategy = object : NetworkObservingStrategy {
+    override fun observeNetworkConnectivity(context: Context): Observable<Connectivity> =
+      connectivity
+
+    override fun onError(message: String, exception: Exception) {
+    }
+  }
+
+  private fun createInternetStrategy(
+    isConnected: Observable<Boolean>
+  ): InternetObservingStrategy = object : InternetObservingStrategy {
+    override fun observeInternetConnectivity(
+      initialIntervalInMs: Int,
+      intervalInMs: Int,
+      host: String,
+      port: Int,
+      timeoutInMs: Int,
+      httpResponse: Int,
+      errorHandler: ErrorHandler
+    ): Observable<Boolean> = isConnected
+
+    override fun checkInternetConnectivity(
+      host: String,
+      port: Int,
+      timeoutInMs: Int,
+      httpResponse: Int,
+      errorHandler: ErrorHandler
+    ): Single<Boolean> = isConnected.firstOrError()
+
+    override fun getDefaultPingHost(): String = "http://clients3.google.com/generate_204"
+  }
+}
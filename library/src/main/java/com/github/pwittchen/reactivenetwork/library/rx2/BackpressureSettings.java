@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+
+/**
+ * Defines how values are kept, when subscriber of a Flowable returned by ReactiveNetwork
+ * is slower than the source. Memory used by the stream is bounded in both cases.
+ */
+public final class BackpressureSettings {
+  private static final int LATEST = 0;
+  private static final BackpressureSettings LATEST_SETTINGS = new BackpressureSettings(LATEST);
+
+  private final int bufferSize;
+
+  private BackpressureSettings(final int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Keeps only the latest value, which wasn't requested yet. Older values are dropped.
+   * It's the default policy, because subscribers are usually interested only
+   * in the current state.
+   *
+   * @return BackpressureSettings
+   */
+  public static BackpressureSettings latest() {
+    return LATEST_SETTINGS;
+  }
+
+  /**
+   * Keeps up to a given number of values, which weren't requested yet.
+   * When the buffer is full, the oldest value is dropped.
+   *
+   * @param bufferSize maximal number of buffered values
+   * @return BackpressureSettings
+   */
+  public static BackpressureSettings buffer(final int bufferSize) {
+    Preconditions.checkGreaterThanZero(bufferSize, "bufferSize is not a positive number");
+    return new BackpressureSettings(bufferSize);
+  }
+
+  /**
+   * @return maximal number of buffered values or zero, when only the latest value is kept
+   */
+  public int bufferSize() {
+    return bufferSize;
+  }
+
+  <T> Flowable<T> toFlowable(final Observable<T> observable) {
+    if (bufferSize == LATEST) {
+      return observable.toFlowable(BackpressureStrategy.LATEST);
+    }
+    return observable.toFlowable(BackpressureStrategy.MISSING)
+        .onBackpressureBuffer(bufferSize, null, BackpressureOverflowStrategy.DROP_OLDEST);
+  }
+}
@@ -15,11 +15,15 @@
  */
 package com.github.pwittchen.reactivenetwork.library.rx2;
 
+import android.app.ActivityManager;
 import android.content.Context;
 import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 import android.os.Build;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
 /**
@@ -29,6 +33,8 @@ import androidx.annotation.RequiresApi;
 public final class Connectivity {
   static final int UNKNOWN_TYPE = -1;
   static final int UNKNOWN_SUB_TYPE = -1;
+  /** Value of the network handle, when the network is not known */
+  public static final long UNKNOWN_NETWORK_HANDLE = 0L;
   private NetworkInfo.State state; // NOPMD
   private NetworkInfo.DetailedState detailedState; // NOPMD
   private int type; // NOPMD
@@ -40,6 +46,9 @@ public final class Connectivity {
   private String subTypeName; // NOPMD
   private String reason; // NOPMD
   private String extraInfo; // NOPMD
+  private boolean stale; // NOPMD
+  private long networkHandle; // NOPMD
+  private boolean blocked; // NOPMD
 
   public static Connectivity create() {
     return builder().build();
@@ -47,12 +56,66 @@ public final class Connectivity {
 
   public static Connectivity create(@NonNull Context context) {
     Preconditions.checkNotNull(context, "context == null");
-    return create(context, getConnectivityManager(context));
+    return create(context, NetworkInfoCache.getDefault().getConnectivityManager(context));
+  }
+
+  /**
+   * Creates connectivity of a given network. It's useful in network callbacks,
+   * which already know the network, so the active network doesn't need to be looked up.
+   *
+   * @param context Context of the activity or an application
+   * @param network for which connectivity is created
+   * @return Connectivity of the network or default one when network is unknown
+   */
+  @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+  public static Connectivity create(@NonNull Context context, @NonNull Network network) {
+    Preconditions.checkNotNull(context, "context == null");
+    Preconditions.checkNotNull(network, "network == null");
+    final NetworkInfoCache cache = NetworkInfoCache.getDefault();
+    final ConnectivityManager manager = cache.getConnectivityManager(context);
+    return manager == null ? create() : create(context, manager, network, cache);
+  }
+
+  /**
+   * Creates connectivity of a given network with a blocked state, which is already known,
+   * e.g. from {@code NetworkCallback.onBlockedStatusChanged(network, blocked)},
+   * so it doesn't need to be looked up.
+   *
+   * @param context Context of the activity or an application
+   * @param network for which connectivity is created
+   * @param blocked true if the app can't use data of the network
+   * @return Connectivity of the network or default one when network is unknown
+   */
+  @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+  public static Connectivity create(@NonNull Context context, @NonNull Network network,
+      boolean blocked) {
+    Preconditions.checkNotNull(context, "context == null");
+    Preconditions.checkNotNull(network, "network == null");
+    final NetworkInfoCache cache = NetworkInfoCache.getDefault();
+    final ConnectivityManager manager = cache.getConnectivityManager(context);
+    final NetworkInfo networkInfo = manager == null ? null : cache.getNetworkInfo(manager, network);
+    return networkInfo == null ? create() : create(networkInfo, network, blocked);
+  }
+
+  @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+  private static Connectivity create(Context context, ConnectivityManager manager,
+      Network network, NetworkInfoCache cache) {
+    final NetworkInfo networkInfo = cache.getNetworkInfo(manager, network);
+    if (networkInfo == null) {
+      return create();
+    }
+    final boolean blocked = isBlocked(networkInfo)
+        || isBlockedByDataSaver(context, manager, network, networkInfo, cache);
+    return create(networkInfo, network, blocked);
   }
 
-  private static ConnectivityManager getConnectivityManager(Context context) {
-    final String service = Context.CONNECTIVITY_SERVICE;
-    return (ConnectivityManager) context.getSystemService(service);
+  @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+  private static Connectivity create(NetworkInfo networkInfo, Network network,
+      boolean blocked) {
+    return builder(networkInfo)
+        .networkHandle(getNetworkHandle(network))
+        .blocked(blocked)
+        .build();
   }
 
   protected static Connectivity create(@NonNull Context context, ConnectivityManager manager) {
@@ -62,11 +125,69 @@ public final class Connectivity {
       return create();
     }
 
-    final NetworkInfo networkInfo = manager.getActiveNetworkInfo();
-    return (networkInfo == null) ? create() : create(networkInfo);
+    final NetworkInfoCache cache = NetworkInfoCache.getDefault();
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      // active network is read once, so its handle and info describe the same network
+      final Network network = cache.getActiveNetwork(manager);
+      return network == null ? create() : create(context, manager, network, cache);
+    }
+    // Data Saver isn't available below Nougat, so only the detailed state is checked
+    final NetworkInfo networkInfo = cache.getActiveNetworkInfo(manager);
+    return networkInfo == null ? create()
+        : builder(networkInfo).blocked(isBlocked(networkInfo)).build();
+  }
+
+  private static boolean isBlocked(NetworkInfo networkInfo) {
+    return networkInfo.getDetailedState() == NetworkInfo.DetailedState.BLOCKED;
+  }
+
+  /**
+   * Data Saver restricts only metered data used in the background, so apps in the foreground
+   * rely on the detailed state. Checks are ordered, so the ones, which usually end the lookup,
+   * go first and capabilities of the network are read only when Data Saver is on. Status of Data
+   * Saver is cached until it's changed. Network callbacks, which know the blocked state from
+   * {@code onBlockedStatusChanged(network, blocked)}, pass it to
+   * {@link #create(Context, Network, boolean)} instead, so it's not derived.
+   */
+  @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+  private static boolean isBlockedByDataSaver(Context context, ConnectivityManager manager,
+      Network network, NetworkInfo networkInfo, NetworkInfoCache cache) {
+    return networkInfo.isConnected()
+        && isRestrictedByDataSaver(context, manager, cache)
+        && isInBackground()
+        && isMetered(manager, network);
+  }
+
+  private static boolean isRestrictedByDataSaver(Context context, ConnectivityManager manager,
+      NetworkInfoCache cache) {
+    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+        && cache.getRestrictBackgroundStatus(context, manager)
+        == ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED;
+  }
+
+  private static boolean isInBackground() {
+    final ActivityManager.RunningAppProcessInfo processInfo =
+        new ActivityManager.RunningAppProcessInfo();
+    ActivityManager.getMyMemoryState(processInfo);
+    return processInfo.importance
+        > ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND_SERVICE;
+  }
+
+  @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+  private static boolean isMetered(ConnectivityManager manager, Network network) {
+    final NetworkCapabilities capabilities = manager.getNetworkCapabilities(network);
+    return capabilities == null
+        || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+  }
+
+  private static long getNetworkHandle(@Nullable Network network) {
+    if (network == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+      return UNKNOWN_NETWORK_HANDLE;
+    }
+    return network.getNetworkHandle();
   }
 
-  private static Connectivity create(NetworkInfo networkInfo) {
+  private static Builder builder(NetworkInfo networkInfo) {
     return new Builder()
         .state(networkInfo.getState())
         .detailedState(networkInfo.getDetailedState())
@@ -78,8 +199,7 @@ public final class Connectivity {
         .typeName(networkInfo.getTypeName())
         .subTypeName(networkInfo.getSubtypeName())
         .reason(networkInfo.getReason())
-        .extraInfo(networkInfo.getExtraInfo())
-        .build();
+        .extraInfo(networkInfo.getExtraInfo());
   }
 
   private Connectivity(Builder builder) {
@@ -94,6 +214,9 @@ public final class Connectivity {
     subTypeName = builder.subTypeName;
     reason = builder.reason;
     extraInfo = builder.extraInfo;
+    stale = builder.stale;
+    networkHandle = builder.networkHandle;
+    blocked = builder.blocked;
   }
 
   private Connectivity() {
@@ -192,6 +315,67 @@ public final class Connectivity {
     return builder().extraInfo(extraInfo);
   }
 
+  /**
+   * @return true if connectivity was restored from the persisted state and it's a provisional
+   * value emitted until the current connectivity is known
+   */
+  public boolean stale() {
+    return stale;
+  }
+
+  public static Builder stale(boolean stale) {
+    return builder().stale(stale);
+  }
+
+  /**
+   * @return handle of the network, which can be used as a key of per-network caches
+   * or {@link #UNKNOWN_NETWORK_HANDLE} when network is not known.
+   * It's available on Android 6.0 (API 23) or higher.
+   */
+  public long networkHandle() {
+    return networkHandle;
+  }
+
+  public static Builder networkHandle(long networkHandle) {
+    return builder().networkHandle(networkHandle);
+  }
+
+  /**
+   * @return true if the app can't use data of the network, because it's blocked by the system
+   * (e.g. the app is background-restricted) or Data Saver restricts data usage of the app
+   * in the background on a metered network. Data Saver is available on Android 7.0 (API 24)
+   * or higher.
+   * Internet connectivity probes fail or waste metered data in such case, so they should
+   * be paused, while data is blocked.
+   */
+  public boolean blocked() {
+    return blocked;
+  }
+
+  public static Builder blocked(boolean blocked) {
+    return builder().blocked(blocked);
+  }
+
+  /**
+   * Checks if this and other connectivity describe the same network, so per-network caches
+   * can be kept, when only state of the network was refreshed. Network handles are compared,
+   * when both of them are known. Otherwise, types and extra info (e.g. SSID) are compared.
+   *
+   * @param other connectivity
+   * @return true if both connectivities describe the same network
+   */
+  public boolean isSameNetwork(Connectivity other) {
+    Preconditions.checkNotNull(other, "other == null");
+    if (networkHandle != UNKNOWN_NETWORK_HANDLE
+        && other.networkHandle != UNKNOWN_NETWORK_HANDLE) {
+      return networkHandle == other.networkHandle;
+    }
+    if (type != other.type) {
+      return false;
+    }
+    return extraInfo != null ? extraInfo.equals(other.extraInfo) : other.extraInfo == null;
+  }
+
   @Override public boolean equals(Object o) {
     if (this == o) {
       return true;
@@ -217,6 +401,15 @@ public final class Connectivity {
     if (roaming != that.roaming) {
       return false;
     }
+    if (stale != that.stale) {
+      return false;
+    }
+    if (networkHandle != that.networkHandle) {
+      return false;
+    }
+    if (blocked != that.blocked) {
+      return false;
+    }
     if (state != that.state) {
       return false;
     }
@@ -248,6 +441,9 @@ public final class Connectivity {
     result = 31 * result + (subTypeName != null ? subTypeName.hashCode() : 0);
     result = 31 * result + (reason != null ? reason.hashCode() : 0);
     result = 31 * result + (extraInfo != null ? extraInfo.hashCode() : 0);
+    result = 31 * result + (stale ? 1 : 0);
+    result = 31 * result + (int) (networkHandle ^ (networkHandle >>> 32));
+    result = 31 * result + (blocked ? 1 : 0);
     return result;
   }
 
@@ -279,6 +475,12 @@ public final class Connectivity {
         + ", extraInfo='"
         + extraInfo
         + '\''
+        + ", stale="
+        + stale
+        + ", networkHandle="
+        + networkHandle
+        + ", blocked="
+        + blocked
         + '}';
   }
 
@@ -298,6 +500,9 @@ public final class Connectivity {
     private String subTypeName = "NONE"; // NOPMD
     private String reason = ""; // NOPMD
     private String extraInfo = ""; // NOPMD
+    private boolean stale = false; // NOPMD
+    private long networkHandle = UNKNOWN_NETWORK_HANDLE; // NOPMD
+    private boolean blocked = false; // NOPMD
 
     public Builder state(NetworkInfo.State state) {
       this.state = state;
@@ -354,6 +559,21 @@ public final class Connectivity {
       return this;
     }
 
+    public Builder stale(boolean stale) {
+      this.stale = stale;
+      return this;
+    }
+
+    public Builder networkHandle(long networkHandle) {
+      this.networkHandle = networkHandle;
+      return this;
+    }
+
+    public Builder blocked(boolean blocked) {
+      this.blocked = blocked;
+      return this;
+    }
+
     public Connectivity build() {
       return new Connectivity(this);
     }
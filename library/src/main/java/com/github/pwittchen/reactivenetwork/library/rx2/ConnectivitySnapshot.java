@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.Manifest;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresPermission;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.LOG_TAG;
+
+/**
+ * Process-wide snapshot of the latest connectivity state. It's updated only by streams
+ * with default settings returned by {@link ReactiveNetwork#observeNetworkConnectivity(Context)},
+ * {@link ReactiveNetwork#observeInternetConnectivity()} and
+ * {@link ReactiveNetwork#checkInternetConnectivity()} methods. Streams with custom strategies,
+ * network filters or hosts don't update it.
+ * It can be also kept up to date with {@link #start(Context)}, which shares one network callback
+ * registration between all callers. State is kept in volatile fields, so it can be read
+ * from any thread without locking, without IPC and without allocating objects.
+ */
+public final class ConnectivitySnapshot {
+  private static final ConnectivitySnapshot INSTANCE = new ConnectivitySnapshot();
+  private static final long NEVER_UPDATED = -1L;
+
+  private volatile Connectivity connectivity;
+  private volatile InternetState internetState;
+  private volatile long connectivityUpdateTimeInMs;
+  private volatile long internetStateUpdateTimeInMs;
+  private volatile boolean isInternetStateStale;
+  @Nullable private volatile ConnectivityStore store;
+  @Nullable private Observable<Connectivity> sharedUpdates;
+  private final AtomicBoolean isWriteScheduled = new AtomicBoolean();
+
+  /**
+   * State of the Internet connectivity
+   */
+  public enum InternetState {
+    /** No internet connectivity check was completed yet */
+    UNKNOWN,
+    /** The latest check succeeded */
+    CONNECTED,
+    /** The latest check failed */
+    DISCONNECTED
+  }
+
+  private ConnectivitySnapshot() {
+    this.connectivity = Connectivity.create();
+    this.internetState = InternetState.UNKNOWN;
+    this.connectivityUpdateTimeInMs = NEVER_UPDATED;
+    this.internetStateUpdateTimeInMs = NEVER_UPDATED;
+  }
+
+  /**
+   * @return process-wide snapshot
+   */
+  public static ConnectivitySnapshot getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return the latest observed connectivity or default one created with
+   * {@link Connectivity#create()} when nothing was observed yet
+   */
+  public Connectivity connectivity() {
+    return connectivity;
+  }
+
+  /**
+   * @return result of the latest internet connectivity check
+   */
+  public InternetState internetState() {
+    return internetState;
+  }
+
+  /**
+   * @return true if internet state was restored from the {@link ConnectivityStore}
+   * and no internet connectivity check was completed since then
+   */
+  public boolean isInternetStateStale() {
+    return isInternetStateStale;
+  }
+
+  /**
+   * @return true if the latest internet connectivity check succeeded
+   */
+  public boolean isConnectedToInternet() {
+    return internetState == InternetState.CONNECTED;
+  }
+
+  /**
+   * @return value of {@link SystemClock#elapsedRealtime()} when connectivity was updated
+   * or -1 when it was never updated
+   */
+  public long connectivityUpdateTimeInMs() {
+    return connectivityUpdateTimeInMs;
+  }
+
+  /**
+   * @return value of {@link SystemClock#elapsedRealtime()} when internet state was updated
+   * or -1 when it was never updated
+   */
+  public long internetStateUpdateTimeInMs() {
+    return internetStateUpdateTimeInMs;
+  }
+
+  /**
+   * Starts updating connectivity in the snapshot. All callers share one registration
+   * of the network callback, which is unregistered when all returned disposables are disposed.
+   *
+   * @param context Context of the activity or an application
+   * @return Disposable, which stops updates for this caller
+   */
+  @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+  public Disposable start(final Context context) {
+    Preconditions.checkNotNull(context, "context == null");
+    return getSharedUpdates(context).subscribe(new Consumer<Connectivity>() {
+      @Override public void accept(final Connectivity connectivity) {
+        // snapshot is updated by the stream itself
+      }
+    }, new Consumer<Throwable>() {
+      @Override public void accept(final Throwable throwable) {
+        Log.e(LOG_TAG, "Could not update connectivity snapshot", throwable);
+      }
+    });
+  }
+
+  /**
+   * Restores state persisted in a given store and starts persisting all further updates
+   * there. Restored values are provisional: restored connectivity is marked as stale
+   * and it's emitted first by {@link ReactiveNetwork#observeNetworkConnectivity(Context)}
+   * until the current connectivity is known. Restored internet state is marked as stale
+   * until the next internet connectivity check completes. Store is read on the calling
+   * thread, while updates are written on the I/O scheduler.
+   *
+   * @param connectivityStore to restore state from and to persist state to
+   */
+  public void persist(final ConnectivityStore connectivityStore) {
+    Preconditions.checkNotNull(connectivityStore, "connectivityStore == null");
+    final ConnectivityStore.StoredState state = connectivityStore.read();
+    if (state != null) {
+      if (connectivityUpdateTimeInMs == NEVER_UPDATED) {
+        connectivity = state.connectivity();
+      }
+      if (internetStateUpdateTimeInMs == NEVER_UPDATED) {
+        internetState = state.internetState();
+        isInternetStateStale = true;
+      }
+    }
+    store = connectivityStore;
+  }
+
+  @SuppressWarnings("MissingPermission")
+  private synchronized Observable<Connectivity> getSharedUpdates(final Context context) {
+    Observable<Connectivity> updates = sharedUpdates;
+    if (updates == null) {
+      updates = ReactiveNetwork
+          .observeNetworkConnectivity(context.getApplicationContext())
+          .share();
+      sharedUpdates = updates;
+    }
+    return updates;
+  }
+
+  void update(final Connectivity connectivity) {
+    this.connectivity = connectivity;
+    this.connectivityUpdateTimeInMs = SystemClock.elapsedRealtime();
+    scheduleWrite();
+  }
+
+  void update(final boolean isConnectedToInternet) {
+    this.internetState =
+        isConnectedToInternet ? InternetState.CONNECTED : InternetState.DISCONNECTED;
+    this.internetStateUpdateTimeInMs = SystemClock.elapsedRealtime();
+    this.isInternetStateStale = false;
+    scheduleWrite();
+  }
+
+  void reset() {
+    this.connectivity = Connectivity.create();
+    this.internetState = InternetState.UNKNOWN;
+    this.connectivityUpdateTimeInMs = NEVER_UPDATED;
+    this.internetStateUpdateTimeInMs = NEVER_UPDATED;
+    this.isInternetStateStale = false;
+    this.store = null;
+  }
+
+  private void scheduleWrite() {
+    if (store != null && isWriteScheduled.compareAndSet(false, true)) {
+      Schedulers.io().scheduleDirect(new Runnable() {
+        @Override public void run() {
+          isWriteScheduled.set(false);
+          write();
+        }
+      });
+    }
+  }
+
+  void write() {
+    final ConnectivityStore currentStore = store;
+    if (currentStore == null) {
+      return;
+    }
+    final long elapsedToWallClockOffset =
+        System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    currentStore.write(new ConnectivityStore.StoredState(connectivity,
+        toWallClockTime(connectivityUpdateTimeInMs, elapsedToWallClockOffset), internetState,
+        toWallClockTime(internetStateUpdateTimeInMs, elapsedToWallClockOffset)));
+  }
+
+  private long toWallClockTime(final long elapsedTimeInMs, final long offset) {
+    return elapsedTimeInMs == NEVER_UPDATED ? NEVER_UPDATED : elapsedTimeInMs + offset;
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.content.Context;
+import android.net.NetworkInfo;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import com.jakewharton.nopen.annotation.Open;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.LOG_TAG;
+
+/**
+ * Stores the last known connectivity and the last internet connectivity check result
+ * in a tiny file with a fixed layout, so they can be restored in a fraction of millisecond
+ * during the next start of the app. Only state, detailed state, type, subtype and flags
+ * of the connectivity are stored. Names, reason and extra info are not persisted.
+ */
+@Open public class ConnectivityStore {
+  private static final String FILE_NAME = "reactivenetwork_state";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final int MAGIC = 0x524e5354;
+  private static final byte VERSION = 1;
+  private static final int RECORD_SIZE = 33;
+  private static final int FLAG_AVAILABLE = 1;
+  private static final int FLAG_FAILOVER = 1 << 1;
+  private static final int FLAG_ROAMING = 1 << 2;
+
+  private final File file;
+
+  /**
+   * Creates store, which keeps its file in the internal storage of the app
+   *
+   * @param context Context of the activity or an application
+   * @return ConnectivityStore
+   */
+  public static ConnectivityStore create(final Context context) {
+    Preconditions.checkNotNull(context, "context == null");
+    return new ConnectivityStore(new File(context.getFilesDir(), FILE_NAME));
+  }
+
+  public ConnectivityStore(final File file) {
+    Preconditions.checkNotNull(file, "file == null");
+    this.file = file;
+  }
+
+  /**
+   * Reads the stored state
+   *
+   * @return stored state or null when nothing was stored yet or file is corrupted
+   */
+  @Nullable public StoredState read() {
+    if (!file.exists()) {
+      return null;
+    }
+
+    final byte[] record = new byte[RECORD_SIZE];
+    try {
+      final InputStream inputStream = new FileInputStream(file);
+      try {
+        new DataInputStream(inputStream).readFully(record);
+      } finally {
+        inputStream.close();
+      }
+      return decode(record);
+    } catch (IOException exception) {
+      Log.w(LOG_TAG, "Could not read stored connectivity state", exception);
+      return null;
+    }
+  }
+
+  /**
+   * Writes the state. File is replaced atomically, so it's never partially written.
+   *
+   * @param state to be stored
+   */
+  public void write(final StoredState state) {
+    Preconditions.checkNotNull(state, "state == null");
+    final File tempFile = new File(file.getPath() + TEMP_FILE_SUFFIX);
+    try {
+      final OutputStream outputStream = new FileOutputStream(tempFile);
+      try {
+        outputStream.write(encode(state));
+      } finally {
+        outputStream.close();
+      }
+      if (!tempFile.renameTo(file)) {
+        throw new IOException("Could not rename " + tempFile + " to " + file);
+      }
+    } catch (IOException exception) {
+      Log.w(LOG_TAG, "Could not write connectivity state", exception);
+    }
+  }
+
+  private byte[] encode(final StoredState state) throws IOException {
+    final Connectivity connectivity = state.connectivity;
+    final ByteArrayOutputStream byteStream = new ByteArrayOutputStream(RECORD_SIZE);
+    final DataOutputStream outputStream = new DataOutputStream(byteStream);
+    outputStream.writeInt(MAGIC);
+    outputStream.writeByte(VERSION);
+    outputStream.writeLong(state.connectivityTimestampInMs);
+    outputStream.writeByte(connectivity.state().ordinal());
+    final NetworkInfo.DetailedState detailedState = connectivity.detailedState();
+    outputStream.writeByte(
+        (detailedState != null ? detailedState : NetworkInfo.DetailedState.IDLE).ordinal());
+    outputStream.writeInt(connectivity.type());
+    outputStream.writeInt(connectivity.subType());
+    outputStream.writeByte((connectivity.available() ? FLAG_AVAILABLE : 0)
+        | (connectivity.failover() ? FLAG_FAILOVER : 0)
+        | (connectivity.roaming() ? FLAG_ROAMING : 0));
+    outputStream.writeLong(state.internetStateTimestampInMs);
+    outputStream.writeByte(state.internetState.ordinal());
+    outputStream.flush();
+    return byteStream.toByteArray();
+  }
+
+  @Nullable private StoredState decode(final byte[] record) throws IOException {
+    final DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(record));
+    if (inputStream.readInt() != MAGIC || inputStream.readByte() != VERSION) {
+      return null;
+    }
+
+    final long connectivityTimestampInMs = inputStream.readLong();
+    final NetworkInfo.State[] states = NetworkInfo.State.values();
+    final NetworkInfo.DetailedState[] detailedStates = NetworkInfo.DetailedState.values();
+    final ConnectivitySnapshot.InternetState[] internetStates =
+        ConnectivitySnapshot.InternetState.values();
+    final int state = inputStream.readUnsignedByte();
+    final int detailedState = inputStream.readUnsignedByte();
+    final int type = inputStream.readInt();
+    final int subType = inputStream.readInt();
+    final int flags = inputStream.readUnsignedByte();
+    final long internetStateTimestampInMs = inputStream.readLong();
+    final int internetState = inputStream.readUnsignedByte();
+
+    if (state >= states.length
+        || detailedState >= detailedStates.length
+        || internetState >= internetStates.length) {
+      return null;
+    }
+
+    final Connectivity connectivity = Connectivity.state(states[state])
+        .detailedState(detailedStates[detailedState])
+        .type(type)
+        .subType(subType)
+        .available((flags & FLAG_AVAILABLE) != 0)
+        .failover((flags & FLAG_FAILOVER) != 0)
+        .roaming((flags & FLAG_ROAMING) != 0)
+        .stale(true)
+        .build();
+
+    return new StoredState(connectivity, connectivityTimestampInMs,
+        internetStates[internetState], internetStateTimestampInMs);
+  }
+
+  /**
+   * State kept in the store
+   */
+  public static final class StoredState {
+    private final Connectivity connectivity;
+    private final long connectivityTimestampInMs;
+    private final ConnectivitySnapshot.InternetState internetState;
+    private final long internetStateTimestampInMs;
+
+    /**
+     * Creates state to be stored
+     *
+     * @param connectivity the last known connectivity
+     * @param connectivityTimestampInMs wall clock time when connectivity was observed
+     * @param internetState result of the last internet connectivity check
+     * @param internetStateTimestampInMs wall clock time when internet state was checked
+     */
+    public StoredState(final Connectivity connectivity, final long connectivityTimestampInMs,
+        final ConnectivitySnapshot.InternetState internetState,
+        final long internetStateTimestampInMs) {
+      Preconditions.checkNotNull(connectivity, "connectivity == null");
+      Preconditions.checkNotNull(internetState, "internetState == null");
+      this.connectivity = connectivity;
+      this.connectivityTimestampInMs = connectivityTimestampInMs;
+      this.internetState = internetState;
+      this.internetStateTimestampInMs = internetStateTimestampInMs;
+    }
+
+    /**
+     * @return stored connectivity, it's marked as stale when it was read from the store
+     */
+    public Connectivity connectivity() {
+      return connectivity;
+    }
+
+    /**
+     * @return wall clock time in milliseconds when connectivity was observed
+     */
+    public long connectivityTimestampInMs() {
+      return connectivityTimestampInMs;
+    }
+
+    /**
+     * @return result of the last internet connectivity check
+     */
+    public ConnectivitySnapshot.InternetState internetState() {
+      return internetState;
+    }
+
+    /**
+     * @return wall clock time in milliseconds when internet connectivity was checked
+     */
+    public long internetStateTimestampInMs() {
+      return internetStateTimestampInMs;
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.net.NetworkInfo;
+import androidx.annotation.Nullable;
+
+/**
+ * ConnectivityTransition class represents a change between two consecutive connectivity
+ * snapshots. Its type tells what kind of change it was and its bitmask tells which fields
+ * of the connectivity were changed, so subscribers don't need to compare snapshots by themselves.
+ */
+public final class ConnectivityTransition {
+  /** State of the connectivity was changed */
+  public static final int FIELD_STATE = 1;
+  /** Detailed state of the connectivity was changed */
+  public static final int FIELD_DETAILED_STATE = 1 << 1;
+  /** Type of the network was changed */
+  public static final int FIELD_TYPE = 1 << 2;
+  /** Subtype of the network was changed */
+  public static final int FIELD_SUB_TYPE = 1 << 3;
+  /** Availability of the network was changed */
+  public static final int FIELD_AVAILABLE = 1 << 4;
+  /** Failover flag was changed */
+  public static final int FIELD_FAILOVER = 1 << 5;
+  /** Roaming flag was changed */
+  public static final int FIELD_ROAMING = 1 << 6;
+  /** Reason of the last state change was changed */
+  public static final int FIELD_REASON = 1 << 7;
+  /** Extra info, e.g. SSID, was changed */
+  public static final int FIELD_EXTRA_INFO = 1 << 8;
+  /** Network was changed, it's detected when both network handles are known */
+  public static final int FIELD_NETWORK = 1 << 9;
+  /** Blocked flag was changed, e.g. Data Saver was turned on */
+  public static final int FIELD_BLOCKED = 1 << 10;
+  /** All fields, it's used by the initial transition */
+  public static final int ALL_FIELDS = (1 << 11) - 1;
+
+  /**
+   * Type of the transition
+   */
+  public enum Type {
+    /** The first observed connectivity, there's no previous one */
+    INITIAL,
+    /** Device was not connected and now it's connected */
+    CONNECTED,
+    /** Device was connected and now it's not connected */
+    DISCONNECTED,
+    /** Device is still connected, but to a different network, e.g. of a different type */
+    HANDOVER,
+    /** Other fields were changed, e.g. roaming or subtype */
+    UPDATED
+  }
+
+  @Nullable private final Connectivity previous;
+  private final Connectivity current;
+  private final Type type;
+  private final int changedFields;
+
+  private ConnectivityTransition(@Nullable final Connectivity previous,
+      final Connectivity current, final Type type, final int changedFields) {
+    this.previous = previous;
+    this.current = current;
+    this.type = type;
+    this.changedFields = changedFields;
+  }
+
+  /**
+   * Creates transition from the first observed connectivity
+   *
+   * @param current observed connectivity
+   * @return ConnectivityTransition with {@link Type#INITIAL} type
+   */
+  public static ConnectivityTransition initial(final Connectivity current) {
+    Preconditions.checkNotNull(current, "current == null");
+    return new ConnectivityTransition(null, current, Type.INITIAL, ALL_FIELDS);
+  }
+
+  /**
+   * Creates transition between two consecutive connectivity snapshots
+   *
+   * @param previous connectivity
+   * @param current connectivity
+   * @return ConnectivityTransition
+   */
+  public static ConnectivityTransition between(final Connectivity previous,
+      final Connectivity current) {
+    Preconditions.checkNotNull(previous, "previous == null");
+    Preconditions.checkNotNull(current, "current == null");
+    final int changedFields = changedFields(previous, current);
+    return new ConnectivityTransition(previous, current,
+        type(previous, current, changedFields), changedFields);
+  }
+
+  /**
+   * Compares two connectivity snapshots
+   *
+   * @param previous connectivity
+   * @param current connectivity
+   * @return bitmask of changed fields or zero, when no field was changed
+   */
+  public static int changedFields(final Connectivity previous, final Connectivity current) {
+    int fields = 0;
+    if (previous.state() != current.state()) {
+      fields |= FIELD_STATE;
+    }
+    if (previous.detailedState() != current.detailedState()) {
+      fields |= FIELD_DETAILED_STATE;
+    }
+    if (previous.type() != current.type()) {
+      fields |= FIELD_TYPE;
+    }
+    if (previous.subType() != current.subType()) {
+      fields |= FIELD_SUB_TYPE;
+    }
+    if (previous.available() != current.available()) {
+      fields |= FIELD_AVAILABLE;
+    }
+    if (previous.failover() != current.failover()) {
+      fields |= FIELD_FAILOVER;
+    }
+    if (previous.roaming() != current.roaming()) {
+      fields |= FIELD_ROAMING;
+    }
+    if (!isEqual(previous.reason(), current.reason())) {
+      fields |= FIELD_REASON;
+    }
+    if (!isEqual(previous.extraInfo(), current.extraInfo())) {
+      fields |= FIELD_EXTRA_INFO;
+    }
+    if (previous.networkHandle() != Connectivity.UNKNOWN_NETWORK_HANDLE
+        && current.networkHandle() != Connectivity.UNKNOWN_NETWORK_HANDLE
+        && previous.networkHandle() != current.networkHandle()) {
+      fields |= FIELD_NETWORK;
+    }
+    if (previous.blocked() != current.blocked()) {
+      fields |= FIELD_BLOCKED;
+    }
+    return fields;
+  }
+
+  private static Type type(final Connectivity previous, final Connectivity current,
+      final int changedFields) {
+    final boolean wasConnected = previous.state() == NetworkInfo.State.CONNECTED;
+    final boolean isConnected = current.state() == NetworkInfo.State.CONNECTED;
+    if (!wasConnected && isConnected) {
+      return Type.CONNECTED;
+    } else if (wasConnected && !isConnected) {
+      return Type.DISCONNECTED;
+    } else if (isConnected && (changedFields & (FIELD_TYPE | FIELD_NETWORK)) != 0) {
+      return Type.HANDOVER;
+    } else {
+      return Type.UPDATED;
+    }
+  }
+
+  private static boolean isEqual(@Nullable final String first, @Nullable final String second) {
+    return first != null ? first.equals(second) : second == null;
+  }
+
+  /**
+   * @return previous connectivity or null for the {@link Type#INITIAL} transition
+   */
+  @Nullable public Connectivity previous() {
+    return previous;
+  }
+
+  /**
+   * @return current connectivity
+   */
+  public Connectivity current() {
+    return current;
+  }
+
+  /**
+   * @return type of the transition
+   */
+  public Type type() {
+    return type;
+  }
+
+  /**
+   * @return bitmask of changed fields, e.g. {@link #FIELD_TYPE} | {@link #FIELD_SUB_TYPE}
+   */
+  public int changedFields() {
+    return changedFields;
+  }
+
+  /**
+   * Checks if any of given fields was changed
+   *
+   * @param fields bitmask of fields, e.g. {@link #FIELD_ROAMING}
+   * @return true if at least one of given fields was changed
+   */
+  public boolean hasChanged(final int fields) {
+    return (changedFields & fields) != 0;
+  }
+
+  @Override public String toString() {
+    return "ConnectivityTransition{"
+        + "type="
+        + type
+        + ", changedFields="
+        + Integer.toBinaryString(changedFields)
+        + ", previous="
+        + previous
+        + ", current="
+        + current
+        + '}';
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import androidx.annotation.Nullable;
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Operator, which turns consecutive connectivity snapshots into transitions. The first snapshot
+ * is emitted as {@link ConnectivityTransition.Type#INITIAL} transition and snapshots,
+ * which don't change any field of the previous one, are skipped.
+ */
+final class ConnectivityTransitionOperator
+    implements ObservableOperator<ConnectivityTransition, Connectivity> {
+
+  @Override public Observer<? super Connectivity> apply(
+      final Observer<? super ConnectivityTransition> observer) {
+    return new TransitionObserver(observer);
+  }
+
+  private static final class TransitionObserver implements Observer<Connectivity>, Disposable {
+    private final Observer<? super ConnectivityTransition> downstream;
+    @Nullable private Disposable upstream;
+    @Nullable private Connectivity last;
+
+    private TransitionObserver(final Observer<? super ConnectivityTransition> downstream) {
+      this.downstream = downstream;
+    }
+
+    @Override public void onSubscribe(final Disposable disposable) {
+      upstream = disposable;
+      downstream.onSubscribe(this);
+    }
+
+    @Override public void onNext(final Connectivity current) {
+      final Connectivity previous = last;
+      last = current;
+      if (previous == null) {
+        downstream.onNext(ConnectivityTransition.initial(current));
+      } else {
+        final ConnectivityTransition transition =
+            ConnectivityTransition.between(previous, current);
+        if (transition.changedFields() != 0) {
+          downstream.onNext(transition);
+        }
+      }
+    }
+
+    @Override public void onError(final Throwable throwable) {
+      downstream.onError(throwable);
+    }
+
+    @Override public void onComplete() {
+      downstream.onComplete();
+    }
+
+    @Override public void dispose() {
+      final Disposable disposable = upstream;
+      if (disposable != null) {
+        disposable.dispose();
+      }
+    }
+
+    @Override public boolean isDisposed() {
+      final Disposable disposable = upstream;
+      return disposable != null && disposable.isDisposed();
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkInfo;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
+import com.jakewharton.nopen.annotation.Open;
+
+/**
+ * Minimizes binder calls performed while creating {@link Connectivity}. It keeps
+ * the ConnectivityManager obtained from the application context and coalesces requests for info
+ * of the same network performed within a short window into a single call, because callbacks
+ * of many subscribers usually arrive in bursts. Info is keyed on the network, so a burst
+ * of callbacks about different networks always reads the current state. Lookups of the active
+ * network and of its info on devices older than Marshmallow are coalesced within the same window,
+ * so a burst of callbacks performs a single lookup of the active network. Status of Data Saver
+ * is read once and kept, until the system broadcasts that it was changed.
+ */
+@Open class NetworkInfoCache {
+  static final long COALESCING_WINDOW_IN_MS = 10L;
+  private static final NetworkInfoCache DEFAULT = new NetworkInfoCache();
+
+  @Nullable private volatile ManagerEntry managerEntry;
+  @Nullable private volatile InfoEntry infoEntry;
+  @Nullable private volatile ActiveEntry<NetworkInfo> activeInfoEntry;
+  @Nullable private volatile ActiveEntry<Network> activeNetworkEntry;
+  @Nullable private volatile RestrictBackgroundEntry restrictBackgroundEntry;
+
+  static NetworkInfoCache getDefault() {
+    return DEFAULT;
+  }
+
+  @Nullable ConnectivityManager getConnectivityManager(final Context context) {
+    final Context applicationContext = context.getApplicationContext();
+    final Context managerContext = applicationContext != null ? applicationContext : context;
+    final ManagerEntry entry = managerEntry;
+    if (entry != null && entry.context == managerContext) {
+      return entry.manager;
+    }
+    final String service = Context.CONNECTIVITY_SERVICE;
+    final ConnectivityManager manager =
+        (ConnectivityManager) managerContext.getSystemService(service);
+    if (manager != null && applicationContext != null) {
+      managerEntry = new ManagerEntry(applicationContext, manager);
+    }
+    return manager;
+  }
+
+  @Nullable NetworkInfo getActiveNetworkInfo(final ConnectivityManager manager) {
+    final ActiveEntry<NetworkInfo> entry = activeInfoEntry;
+    if (entry != null && isFresh(entry, manager)) {
+      MetricsHelper.increment(MetricsListener.Counter.NETWORK_INFO_REUSED);
+      return entry.value;
+    }
+    final long startTime = MetricsHelper.startTime();
+    final NetworkInfo networkInfo = manager.getActiveNetworkInfo();
+    MetricsHelper.recordSince(MetricsListener.Timer.CONNECTIVITY_CREATE, startTime);
+    activeInfoEntry = new ActiveEntry<>(manager, networkInfo, now());
+    return networkInfo;
+  }
+
+  @TargetApi(21) @Nullable NetworkInfo getNetworkInfo(final ConnectivityManager manager,
+      final Network network) {
+    final InfoEntry entry = infoEntry;
+    if (entry != null && entry.manager == manager && entry.network.equals(network)
+        && now() - entry.timestampInMs < COALESCING_WINDOW_IN_MS) {
+      MetricsHelper.increment(MetricsListener.Counter.NETWORK_INFO_REUSED);
+      return entry.networkInfo;
+    }
+    final long startTime = MetricsHelper.startTime();
+    final NetworkInfo networkInfo = manager.getNetworkInfo(network);
+    MetricsHelper.recordSince(MetricsListener.Timer.CONNECTIVITY_CREATE, startTime);
+    infoEntry = new InfoEntry(manager, network, networkInfo, now());
+    return networkInfo;
+  }
+
+  @TargetApi(23) @Nullable Network getActiveNetwork(final ConnectivityManager manager) {
+    final ActiveEntry<Network> entry = activeNetworkEntry;
+    if (entry != null && isFresh(entry, manager)) {
+      return entry.value;
+    }
+    final Network network = manager.getActiveNetwork();
+    activeNetworkEntry = new ActiveEntry<>(manager, network, now());
+    return network;
+  }
+
+  /**
+   * Reads status of Data Saver. The first read for the application context registers a receiver
+   * of {@link ConnectivityManager#ACTION_RESTRICT_BACKGROUND_CHANGED}, which invalidates
+   * the status, so it's read again only after it was changed.
+   */
+  @TargetApi(24) int getRestrictBackgroundStatus(final Context context,
+      final ConnectivityManager manager) {
+    final Context applicationContext = context.getApplicationContext();
+    if (applicationContext == null) {
+      return manager.getRestrictBackgroundStatus();
+    }
+    RestrictBackgroundEntry entry = restrictBackgroundEntry;
+    if (entry == null || entry.context != applicationContext || entry.manager != manager) {
+      entry = registerRestrictBackgroundEntry(applicationContext, manager);
+    }
+    return entry.getStatus();
+  }
+
+  private synchronized RestrictBackgroundEntry registerRestrictBackgroundEntry(
+      final Context applicationContext, final ConnectivityManager manager) {
+    final RestrictBackgroundEntry previous = restrictBackgroundEntry;
+    if (previous != null && previous.context == applicationContext
+        && previous.manager == manager) {
+      return previous;
+    }
+    final RestrictBackgroundEntry entry = new RestrictBackgroundEntry(applicationContext, manager);
+    final String action = ConnectivityManager.ACTION_RESTRICT_BACKGROUND_CHANGED;
+    applicationContext.registerReceiver(entry, new IntentFilter(action));
+    restrictBackgroundEntry = entry;
+    if (previous != null) {
+      previous.unregister();
+    }
+    return entry;
+  }
+
+  private boolean isFresh(final ActiveEntry<?> entry, final ConnectivityManager manager) {
+    return entry.manager == manager && now() - entry.timestampInMs < COALESCING_WINDOW_IN_MS;
+  }
+
+  protected long now() {
+    return SystemClock.uptimeMillis();
+  }
+
+  private static final class ManagerEntry {
+    private final Context context;
+    private final ConnectivityManager manager;
+
+    private ManagerEntry(final Context context, final ConnectivityManager manager) {
+      this.context = context;
+      this.manager = manager;
+    }
+  }
+
+  private static final class InfoEntry {
+    private final ConnectivityManager manager;
+    private final Network network;
+    @Nullable private final NetworkInfo networkInfo;
+    private final long timestampInMs;
+
+    private InfoEntry(final ConnectivityManager manager, final Network network,
+        @Nullable final NetworkInfo networkInfo, final long timestampInMs) {
+      this.manager = manager;
+      this.network = network;
+      this.networkInfo = networkInfo;
+      this.timestampInMs = timestampInMs;
+    }
+  }
+
+  private static final class RestrictBackgroundEntry extends BroadcastReceiver {
+    private static final int UNKNOWN_STATUS = -1;
+    private final Context context;
+    private final ConnectivityManager manager;
+    private int status = UNKNOWN_STATUS; // guarded by this
+    private int version; // guarded by this
+
+    private RestrictBackgroundEntry(final Context context, final ConnectivityManager manager) {
+      this.context = context;
+      this.manager = manager;
+    }
+
+    @Override public synchronized void onReceive(final Context context, final Intent intent) {
+      status = UNKNOWN_STATUS;
+      version++;
+    }
+
+    @TargetApi(24) private int getStatus() {
+      final int readVersion;
+      synchronized (this) {
+        if (status != UNKNOWN_STATUS) {
+          return status;
+        }
+        readVersion = version;
+      }
+      final int readStatus = manager.getRestrictBackgroundStatus();
+      synchronized (this) {
+        // status changed during the read is read again next time
+        if (readVersion == version) {
+          status = readStatus;
+        }
+      }
+      return readStatus;
+    }
+
+    private void unregister() {
+      try {
+        context.unregisterReceiver(this);
+      } catch (IllegalArgumentException exception) {
+        // receiver of a context, which is no longer used, was already unregistered
+      }
+    }
+  }
+
+  private static final class ActiveEntry<T> {
+    private final ConnectivityManager manager;
+    @Nullable private final T value;
+    private final long timestampInMs;
+
+    private ActiveEntry(final ConnectivityManager manager, @Nullable final T value,
+        final long timestampInMs) {
+      this.manager = manager;
+      this.value = value;
+      this.timestampInMs = timestampInMs;
+    }
+  }
+}
@@ -85,6 +85,14 @@ public final class Preconditions {
   public static boolean isAtLeastAndroidMarshmallow() {
     return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
   }
-}
-
 
+  /**
+   * Validation method, which checks if current Android version is at least Nougat (API 24) or
+   * higher
+   *
+   * @return boolean true if current Android version is Nougat or higher
+   */
+  public static boolean isAtLeastAndroidNougat() {
+    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+  }
+}
@@ -17,17 +17,39 @@ package com.github.pwittchen.reactivenetwork.library.rx2;
 
 import android.Manifest;
 import android.content.Context;
+import android.net.Network;
 import androidx.annotation.RequiresPermission;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.BindableInternetObservingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetConnectivityCache;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingSettings;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.NetworkReachabilityChecker;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkHandover;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkLinkProperties;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.LinkPropertiesObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.LollipopNetworkObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.MarshmallowNetworkObservingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.NetworkHandoverObservingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.NetworkRequestingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.NougatNetworkObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.PreLollipopNetworkObservingStrategy;
 import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
 import io.reactivex.Single;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ReactiveNetwork is an Android library
@@ -37,6 +59,25 @@ import io.reactivex.Single;
 @Open public class ReactiveNetwork {
   public final static String LOG_TAG = "ReactiveNetwork";
 
+  private static final Consumer<Connectivity> CONNECTIVITY_UPDATER = new Consumer<Connectivity>() {
+    @Override public void accept(final Connectivity connectivity) {
+      ConnectivitySnapshot.getInstance().update(connectivity);
+      InternetConnectivityCache.getDefault().invalidate();
+    }
+  };
+
+  private static final Consumer<Connectivity> CACHE_INVALIDATOR = new Consumer<Connectivity>() {
+    @Override public void accept(final Connectivity connectivity) {
+      InternetConnectivityCache.getDefault().invalidate();
+    }
+  };
+
+  private static final Consumer<Boolean> INTERNET_STATE_UPDATER = new Consumer<Boolean>() {
+    @Override public void accept(final Boolean isConnected) {
+      ConnectivitySnapshot.getInstance().update(isConnected);
+    }
+  };
+
   protected ReactiveNetwork() {
   }
 
@@ -52,7 +93,7 @@ import io.reactivex.Single;
   /**
    * Observes network connectivity. Information about network state, type and typeName are contained
    * in
-   * observed Connectivity object.
+   * observed Connectivity object. Emitted connectivity updates {@link #snapshot()}.
    *
    * @param context Context of the activity or an application
    * @return RxJava Observable with Connectivity class containing information about network state,
@@ -62,7 +103,9 @@ import io.reactivex.Single;
   public static Observable<Connectivity> observeNetworkConnectivity(final Context context) {
     final NetworkObservingStrategy strategy;
 
-    if (Preconditions.isAtLeastAndroidMarshmallow()) {
+    if (Preconditions.isAtLeastAndroidNougat()) {
+      strategy = new NougatNetworkObservingStrategy();
+    } else if (Preconditions.isAtLeastAndroidMarshmallow()) {
       strategy = new MarshmallowNetworkObservingStrategy();
     } else if (Preconditions.isAtLeastAndroidLollipop()) {
       strategy = new LollipopNetworkObservingStrategy();
@@ -70,6 +113,44 @@ import io.reactivex.Single;
       strategy = new PreLollipopNetworkObservingStrategy();
     }
 
+    Preconditions.checkNotNull(context, "context == null");
+    final Observable<Connectivity> connectivity =
+        strategy.observeNetworkConnectivity(context).doOnNext(CONNECTIVITY_UPDATER);
+    return Observable.defer(new Callable<ObservableSource<Connectivity>>() {
+      @Override public ObservableSource<Connectivity> call() {
+        final Connectivity provisionalConnectivity = snapshot().connectivity();
+        return provisionalConnectivity.stale()
+            ? connectivity.startWith(provisionalConnectivity) : connectivity;
+      }
+    });
+  }
+
+  /**
+   * Observes network connectivity, when networks with transport types and capabilities given
+   * in settings change. Networks are filtered by the system, so changes of other networks
+   * don't wake up the app. Settings are ignored on devices older than Lollipop.
+   *
+   * @param context Context of the activity or an application
+   * @param settings of observed networks
+   * @return RxJava Observable with Connectivity class containing information about network state,
+   * type and typeName
+   */
+  @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+  public static Observable<Connectivity> observeNetworkConnectivity(final Context context,
+      final NetworkObservingSettings settings) {
+    Preconditions.checkNotNull(settings, "settings == null");
+    final NetworkObservingStrategy strategy;
+
+    if (Preconditions.isAtLeastAndroidNougat()) {
+      strategy = new NougatNetworkObservingStrategy(settings);
+    } else if (Preconditions.isAtLeastAndroidMarshmallow()) {
+      strategy = new MarshmallowNetworkObservingStrategy(settings);
+    } else if (Preconditions.isAtLeastAndroidLollipop()) {
+      strategy = new LollipopNetworkObservingStrategy(settings);
+    } else {
+      strategy = new PreLollipopNetworkObservingStrategy();
+    }
+
     return observeNetworkConnectivity(context, strategy);
   }
 
@@ -89,7 +170,170 @@ import io.reactivex.Single;
       final NetworkObservingStrategy strategy) {
     Preconditions.checkNotNull(context, "context == null");
     Preconditions.checkNotNull(strategy, "strategy == null");
-    return strategy.observeNetworkConnectivity(context);
+    return strategy.observeNetworkConnectivity(context).doOnNext(CACHE_INVALIDATOR);
+  }
+
+  /**
+   * Observes network connectivity as a Flowable, which keeps only the latest Connectivity
+   * when subscriber is slower than the source
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Flowable with Connectivity class containing information about network state,
+   * type and typeName
+   */
+  @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+  public static Flowable<Connectivity> observeNetworkConnectivityFlowable(final Context context) {
+    return BackpressureSettings.latest().toFlowable(observeNetworkConnectivity(context));
+  }
+
+  /**
+   * Observes network connectivity as a Flowable with a given strategy and backpressure settings
+   *
+   * @param context Context of the activity or an application
+   * @param strategy NetworkObserving strategy to be applied
+   * @param backpressureSettings defining how values are kept, when subscriber is slower
+   * than the source
+   * @return RxJava Flowable with Connectivity class containing information about network state,
+   * type and typeName
+   */
+  @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+  public static Flowable<Connectivity> observeNetworkConnectivityFlowable(final Context context,
+      final NetworkObservingStrategy strategy, final BackpressureSettings backpressureSettings) {
+    Preconditions.checkNotNull(backpressureSettings, "backpressureSettings == null");
+    return backpressureSettings.toFlowable(observeNetworkConnectivity(context, strategy));
+  }
+
+  /**
+   * Observes transitions between consecutive connectivity snapshots. The first snapshot is
+   * emitted as {@link ConnectivityTransition.Type#INITIAL} transition. Snapshots, which don't
+   * change any field compared in {@link ConnectivityTransition#changedFields(Connectivity,
+   * Connectivity)}, are skipped. Returned Observable is shared, so all of its subscribers use
+   * one network callback registration and transitions are computed once. Subscribers joining
+   * later receive transitions emitted after they subscribed.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with ConnectivityTransition
+   */
+  @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+  public static Observable<ConnectivityTransition> observeConnectivityTransitions(
+      final Context context) {
+    return observeNetworkConnectivity(context).lift(new ConnectivityTransitionOperator()).share();
+  }
+
+  /**
+   * Observes handovers between networks. NetworkHandover is emitted, when a network is about
+   * to be lost, because the system is switching to a better one, so connections can be moved
+   * to the replacement network before the old one goes away. Nothing is emitted on devices
+   * older than Lollipop.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with NetworkHandover
+   */
+  @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+  public static Observable<NetworkHandover> observeNetworkHandovers(final Context context) {
+    Preconditions.checkNotNull(context, "context == null");
+    if (!Preconditions.isAtLeastAndroidLollipop()) {
+      return Observable.never();
+    }
+    return new NetworkHandoverObservingStrategy().observeNetworkHandovers(context);
+  }
+
+  /**
+   * Observes link properties of networks, e.g. DNS servers, routes or MTU. NetworkLinkProperties
+   * is emitted only when at least one of its properties was changed for a given network, so
+   * it can be used for invalidating caches. Nothing is emitted on devices older than Lollipop.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with NetworkLinkProperties
+   */
+  @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+  public static Observable<NetworkLinkProperties> observeLinkProperties(final Context context) {
+    Preconditions.checkNotNull(context, "context == null");
+    if (!Preconditions.isAtLeastAndroidLollipop()) {
+      return Observable.never();
+    }
+    return new LinkPropertiesObservingStrategy().observeLinkProperties(context);
+  }
+
+  /**
+   * Requests cellular network with the Internet capability from the system in the same way as
+   * {@link #requestNetwork(Context, NetworkObservingSettings)}
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with Network
+   */
+  @RequiresPermission(Manifest.permission.CHANGE_NETWORK_STATE)
+  public static Observable<Network> requestNetwork(final Context context) {
+    Preconditions.checkNotNull(context, "context == null");
+    if (!Preconditions.isAtLeastAndroidLollipop()) {
+      return Observable.empty();
+    }
+    return new NetworkRequestingStrategy().requestNetwork(context);
+  }
+
+  /**
+   * Requests cellular network with the Internet capability from the system in the same way as
+   * {@link #requestNetwork(Context, NetworkObservingSettings, int)}
+   *
+   * @param context Context of the activity or an application
+   * @param timeoutInMs time to wait for the network
+   * @return RxJava Observable with Network
+   */
+  @RequiresPermission(Manifest.permission.CHANGE_NETWORK_STATE)
+  public static Observable<Network> requestNetwork(final Context context, final int timeoutInMs) {
+    Preconditions.checkNotNull(context, "context == null");
+    Preconditions.checkGreaterThanZero(timeoutInMs, "timeoutInMs is not a positive number");
+    if (!Preconditions.isAtLeastAndroidLollipop()) {
+      return Observable.empty();
+    }
+    return new NetworkRequestingStrategy(null, null, timeoutInMs).requestNetwork(context);
+  }
+
+  /**
+   * Requests network with transport types and capabilities given in settings from the system,
+   * e.g. cellular network, so it's brought up and kept alive even if it's not the default one.
+   * Network is emitted, when it becomes available and it's released, when subscription
+   * is disposed. Traffic can be routed through it with
+   * {@link Network#openConnection(java.net.URL)}, {@link Network#getSocketFactory()} or
+   * {@link BindableInternetObservingStrategy#bindTo(Network)}. Observable is completed,
+   * when the emitted network is lost or the request cannot be fulfilled, and on devices
+   * older than Lollipop.
+   *
+   * @param context Context of the activity or an application
+   * @param settings of requested network
+   * @return RxJava Observable with Network
+   */
+  @RequiresPermission(Manifest.permission.CHANGE_NETWORK_STATE)
+  public static Observable<Network> requestNetwork(final Context context,
+      final NetworkObservingSettings settings) {
+    Preconditions.checkNotNull(context, "context == null");
+    Preconditions.checkNotNull(settings, "settings == null");
+    if (!Preconditions.isAtLeastAndroidLollipop()) {
+      return Observable.empty();
+    }
+    return new NetworkRequestingStrategy(settings).requestNetwork(context);
+  }
+
+  /**
+   * Requests network in the same way as
+   * {@link #requestNetwork(Context, NetworkObservingSettings)}, but Observable is also completed,
+   * when network satisfying the request isn't available within a given timeout
+   *
+   * @param context Context of the activity or an application
+   * @param settings of requested network
+   * @param timeoutInMs time to wait for the network
+   * @return RxJava Observable with Network
+   */
+  @RequiresPermission(Manifest.permission.CHANGE_NETWORK_STATE)
+  public static Observable<Network> requestNetwork(final Context context,
+      final NetworkObservingSettings settings, final int timeoutInMs) {
+    Preconditions.checkNotNull(context, "context == null");
+    Preconditions.checkNotNull(settings, "settings == null");
+    Preconditions.checkGreaterThanZero(timeoutInMs, "timeoutInMs is not a positive number");
+    if (!Preconditions.isAtLeastAndroidLollipop()) {
+      return Observable.empty();
+    }
+    return new NetworkRequestingStrategy(settings, null, timeoutInMs).requestNetwork(context);
   }
 
   /**
@@ -107,7 +351,8 @@ import io.reactivex.Single;
     InternetObservingSettings settings = InternetObservingSettings.create();
     return observeInternetConnectivity(settings.strategy(), settings.initialInterval(),
         settings.interval(), settings.host(), settings.port(),
-        settings.timeout(), settings.httpResponse(), settings.errorHandler());
+        settings.timeout(), settings.httpResponse(), settings.errorHandler())
+        .doOnNext(INTERNET_STATE_UPDATER);
   }
 
   /**
@@ -125,6 +370,40 @@ import io.reactivex.Single;
         settings.timeout(), settings.httpResponse(), settings.errorHandler());
   }
 
+  /**
+   * Observes connectivity with the Internet in a given time interval, but only while data
+   * isn't blocked. Probing is paused and nothing is emitted, when {@link Connectivity#blocked()}
+   * is true, e.g. Data Saver restricts data usage on a metered network, because probes would fail
+   * or waste metered data and they would report that device is offline. Probing is started again
+   * from the initial interval, when data is unblocked.
+   *
+   * @param context Context of the activity or an application
+   * @param settings Internet Observing Settings created via Builder pattern
+   * @return RxJava Observable with Boolean - true, when we have connection with host and false if
+   * not
+   */
+  @RequiresPermission(allOf = {
+      Manifest.permission.INTERNET, Manifest.permission.ACCESS_NETWORK_STATE
+  })
+  public static Observable<Boolean> observeInternetConnectivity(final Context context,
+      final InternetObservingSettings settings) {
+    Preconditions.checkNotNull(context, "context == null");
+    Preconditions.checkNotNull(settings, "settings == null");
+    checkStrategyIsNotNull(settings.strategy());
+    return observeNetworkConnectivity(context)
+        .map(new Function<Connectivity, Boolean>() {
+          @Override public Boolean apply(final Connectivity connectivity) {
+            return connectivity.blocked();
+          }
+        })
+        .distinctUntilChanged()
+        .switchMap(new Function<Boolean, ObservableSource<Boolean>>() {
+          @Override public ObservableSource<Boolean> apply(final Boolean isBlocked) {
+            return isBlocked ? Observable.<Boolean>empty() : observeInternetConnectivity(settings);
+          }
+        });
+  }
+
   /**
    * Observes connectivity with the Internet in a given time interval.
    *
@@ -150,6 +429,37 @@ import io.reactivex.Single;
         timeoutInMs, httpResponse, errorHandler);
   }
 
+  /**
+   * Observes connectivity with the Internet as a Flowable, which keeps only the latest value
+   * when subscriber is slower than the source
+   *
+   * @param settings Internet Observing Settings created via Builder pattern
+   * @return RxJava Flowable with Boolean - true, when we have connection with host and false if
+   * not
+   */
+  @RequiresPermission(Manifest.permission.INTERNET)
+  public static Flowable<Boolean> observeInternetConnectivityFlowable(
+      final InternetObservingSettings settings) {
+    return observeInternetConnectivityFlowable(settings, BackpressureSettings.latest());
+  }
+
+  /**
+   * Observes connectivity with the Internet as a Flowable with given backpressure settings
+   *
+   * @param settings Internet Observing Settings created via Builder pattern
+   * @param backpressureSettings defining how values are kept, when subscriber is slower
+   * than the source
+   * @return RxJava Flowable with Boolean - true, when we have connection with host and false if
+   * not
+   */
+  @RequiresPermission(Manifest.permission.INTERNET)
+  public static Flowable<Boolean> observeInternetConnectivityFlowable(
+      final InternetObservingSettings settings, final BackpressureSettings backpressureSettings) {
+    Preconditions.checkNotNull(settings, "settings == null");
+    Preconditions.checkNotNull(backpressureSettings, "backpressureSettings == null");
+    return backpressureSettings.toFlowable(observeInternetConnectivity(settings));
+  }
+
   /**
    * Checks connectivity with the Internet. This operation is performed only once.
    *
@@ -160,11 +470,15 @@ import io.reactivex.Single;
   public static Single<Boolean> checkInternetConnectivity() {
     InternetObservingSettings settings = InternetObservingSettings.create();
     return checkInternetConnectivity(settings.strategy(), settings.host(), settings.port(),
-        settings.timeout(), settings.httpResponse(), settings.errorHandler());
+        settings.timeout(), settings.httpResponse(), settings.errorHandler())
+        .doOnSuccess(INTERNET_STATE_UPDATER);
   }
 
   /**
    * Checks connectivity with the Internet. This operation is performed only once.
+   * Concurrent checks with equal settings share one probe.
+   * When deadline is set in the settings and it's exceeded, check is cancelled
+   * and false is emitted.
    *
    * @param settings Internet Observing Settings created via Builder pattern
    * @return RxJava Single with Boolean - true, when we have connection with host and false if
@@ -172,8 +486,58 @@ import io.reactivex.Single;
    */
   @RequiresPermission(Manifest.permission.INTERNET)
   public static Single<Boolean> checkInternetConnectivity(InternetObservingSettings settings) {
-    return checkInternetConnectivity(settings.strategy(), settings.host(), settings.port(),
-        settings.timeout(), settings.httpResponse(), settings.errorHandler());
+    return checkInternetConnectivity(settings, 0);
+  }
+
+  /**
+   * Checks connectivity with the Internet. This operation is performed only once.
+   * Concurrent checks with equal settings share one probe. Moreover, result of the previous
+   * check is returned without performing a new one, when it's not older than a given max age
+   * and no network change was observed with {@link #observeNetworkConnectivity(Context)}
+   * in the meantime. When deadline is set in the settings and it's exceeded, check is cancelled
+   * and false is emitted.
+   *
+   * @param settings Internet Observing Settings created via Builder pattern
+   * @param maxAgeInMs maximal age of the cached result in milliseconds, zero means that
+   * cached result is never used
+   * @return RxJava Single with Boolean - true, when we have connection with host and false if
+   * not
+   */
+  @RequiresPermission(Manifest.permission.INTERNET)
+  public static Single<Boolean> checkInternetConnectivity(InternetObservingSettings settings,
+      final int maxAgeInMs) {
+    Preconditions.checkNotNull(settings, "settings == null");
+    checkStrategyIsNotNull(settings.strategy());
+    final Single<Boolean> single = InternetConnectivityCache.getDefault()
+        .check(settings, maxAgeInMs);
+    return applyDeadline(single, settings.deadline());
+  }
+
+  /**
+   * Checks connectivity with the Internet through each network with the Internet capability
+   * independently, e.g. through WiFi and cellular network at the same time. Probes are bound
+   * to networks and they're performed in parallel. Strategy from the settings has to implement
+   * {@link BindableInternetObservingStrategy}. When deadline is set in the settings and it's
+   * exceeded for a given network, false is emitted for it. Empty map is emitted on devices older
+   * than Lollipop.
+   *
+   * @param context Context of the activity or an application
+   * @param settings Internet Observing Settings created via Builder pattern
+   * @return RxJava Single with a map of networks to results of their checks - true, when we have
+   * connection with host through the network and false if not
+   */
+  @RequiresPermission(allOf = {
+      Manifest.permission.INTERNET, Manifest.permission.ACCESS_NETWORK_STATE
+  })
+  public static Single<Map<Network, Boolean>> checkInternetConnectivityOfNetworks(
+      final Context context, final InternetObservingSettings settings) {
+    Preconditions.checkNotNull(context, "context == null");
+    Preconditions.checkNotNull(settings, "settings == null");
+    checkStrategyIsNotNull(settings.strategy());
+    if (!Preconditions.isAtLeastAndroidLollipop()) {
+      return Single.just(Collections.<Network, Boolean>emptyMap());
+    }
+    return new NetworkReachabilityChecker(settings).checkNetworks(context);
   }
 
   /**
@@ -197,6 +561,44 @@ import io.reactivex.Single;
     return strategy.checkInternetConnectivity(host, port, timeoutInMs, httpResponse, errorHandler);
   }
 
+  /**
+   * Returns process-wide snapshot of the latest network connectivity and the latest result
+   * of the Internet connectivity check. It can be read synchronously from any thread without
+   * IPC and without allocating objects. It's updated only by streams with default settings:
+   * {@link #observeNetworkConnectivity(Context)}, {@link #observeInternetConnectivity()}
+   * and {@link #checkInternetConnectivity()}, because streams with custom strategies, filters
+   * or hosts may describe other networks or hosts. Call {@link ConnectivitySnapshot#start(Context)}
+   * to keep it up to date, when no such stream is observed.
+   *
+   * @return ConnectivitySnapshot
+   */
+  public static ConnectivitySnapshot snapshot() {
+    return ConnectivitySnapshot.getInstance();
+  }
+
+  /**
+   * Sets process-wide metrics listener, which receives counters and latencies reported by
+   * ReactiveNetwork, network observing strategies, internet observing strategies
+   * and {@link Connectivity#create(Context)}. By default metrics are disabled.
+   *
+   * @param listener for metrics, use {@link
+   * com.github.pwittchen.reactivenetwork.library.rx2.metrics.NoOpMetricsListener} to disable
+   * metrics
+   */
+  public static void setMetricsListener(final MetricsListener listener) {
+    MetricsHelper.setListener(listener);
+  }
+
+  private static Single<Boolean> applyDeadline(final Single<Boolean> single,
+      final int deadlineInMs) {
+    Preconditions.checkGreaterOrEqualToZero(deadlineInMs, "deadline is not a positive number");
+    if (deadlineInMs == 0) {
+      return single;
+    }
+    return single.timeout(deadlineInMs, TimeUnit.MILLISECONDS, Schedulers.computation(),
+        Single.just(false));
+  }
+
   private static void checkStrategyIsNotNull(InternetObservingStrategy strategy) {
     Preconditions.checkNotNull(strategy, "strategy == null");
   }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing;
+
+import android.net.Network;
+import android.os.Build;
+import androidx.annotation.RequiresApi;
+
+/**
+ * Internet observing strategy, which can perform probes through a given network
+ * instead of the default one, e.g. to check cellular network, while device is connected to WiFi
+ */
+public interface BindableInternetObservingStrategy extends InternetObservingStrategy {
+  /**
+   * Creates strategy, which performs probes through a given network. Both host resolution
+   * and connections use this network.
+   *
+   * @param network through which probes are performed
+   * @return InternetObservingStrategy bound to the network
+   */
+  @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+  InternetObservingStrategy bindTo(Network network);
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing;
+
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Single;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates concurrent internet connectivity checks and keeps their latest results.
+ * Checks with equal settings, which are performed at the same time, share one probe.
+ * Result can be reused by checks performed later, as long as it's not older than
+ * the max age requested by the caller and no network change occurred in the meantime.
+ *
+ * Settings are considered equal when they have the same host, port, timeout, expected
+ * HTTP response, strategy and error handler. Strategy and error handler are compared
+ * by identity, because their instances can differ in transport, listeners or bound network.
+ * {@link InternetObservingSettings.Builder} uses shared default instances, so settings created
+ * with defaults share probes. Idle entries are evicted after invalidation and when the number
+ * of entries exceeds the limit.
+ */
+@Open public class InternetConnectivityCache {
+  private static final InternetConnectivityCache DEFAULT = new InternetConnectivityCache();
+  private static final int MAX_ENTRIES = 16;
+
+  private final ConcurrentHashMap<Key, Entry> entries;
+  private final AtomicLong generation;
+
+  public InternetConnectivityCache() {
+    this.entries = new ConcurrentHashMap<>();
+    this.generation = new AtomicLong();
+  }
+
+  /**
+   * @return cache used by {@link com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork}
+   */
+  public static InternetConnectivityCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Checks internet connectivity with a given settings. When a check with equal settings
+   * is already in progress, its result is shared. Check is cancelled, when all subscribers
+   * dispose their subscriptions.
+   *
+   * @param settings of the check
+   * @param maxAgeInMs maximal age of the cached result in milliseconds, zero means
+   * that cached result is never used
+   * @return Single with Boolean - true, when we have an access to the Internet and false if not
+   */
+  public Single<Boolean> check(final InternetObservingSettings settings, final int maxAgeInMs) {
+    Preconditions.checkNotNull(settings, "settings == null");
+    Preconditions.checkGreaterOrEqualToZero(maxAgeInMs, "maxAgeInMs is not a positive number");
+
+    return Single.defer(new Callable<Single<Boolean>>() {
+      @Override public Single<Boolean> call() {
+        final Entry entry = getEntry(new Key(settings));
+        if (entries.size() > MAX_ENTRIES) {
+          evictIdleEntries();
+        }
+        final Result result = entry.result;
+        if (maxAgeInMs > 0 && result != null && result.generation == generation.get()
+            && now() - result.timestampInMs <= maxAgeInMs) {
+          return Single.just(result.isConnected);
+        }
+        return entry.getInFlightCheck(settings);
+      }
+    });
+  }
+
+  /**
+   * Invalidates all cached results. Checks in progress are not cancelled,
+   * but their results won't be reused. It's called automatically on every network change
+   * observed with {@link com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork}.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+    evictIdleEntries();
+  }
+
+  /**
+   * @return current time in milliseconds, which is not affected by changes of the wall clock
+   */
+  protected long now() {
+    return SystemClock.elapsedRealtime();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evictIdleEntries() {
+    for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+      if (entry.getValue().isIdle()) {
+        entries.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private Entry getEntry(final Key key) {
+    final Entry entry = entries.get(key);
+    if (entry != null) {
+      return entry;
+    }
+    final Entry newEntry = new Entry();
+    final Entry previousEntry = entries.putIfAbsent(key, newEntry);
+    return previousEntry == null ? newEntry : previousEntry;
+  }
+
+  private final class Entry {
+    @Nullable private volatile Result result;
+    @Nullable private Single<Boolean> inFlightCheck;
+    @Nullable private Object inFlightToken;
+
+    private synchronized Single<Boolean> getInFlightCheck(final InternetObservingSettings settings) {
+      final Single<Boolean> currentCheck = inFlightCheck;
+      if (currentCheck != null) {
+        return currentCheck;
+      }
+
+      final long checkGeneration = generation.get();
+      final Object token = new Object();
+      inFlightToken = token;
+      final Single<Boolean> newCheck = settings.strategy()
+          .checkInternetConnectivity(settings.host(), settings.port(), settings.timeout(),
+              settings.httpResponse(), settings.errorHandler())
+          .doOnSuccess(new Consumer<Boolean>() {
+            @Override public void accept(final Boolean isConnected) {
+              result = new Result(isConnected, now(), checkGeneration);
+            }
+          })
+          .doFinally(new Action() {
+            @Override public void run() {
+              clearInFlightCheck(token);
+            }
+          })
+          .toObservable()
+          .share()
+          .singleOrError();
+
+      inFlightCheck = newCheck;
+      return newCheck;
+    }
+
+    private synchronized boolean isIdle() {
+      return inFlightCheck == null;
+    }
+
+    private synchronized void clearInFlightCheck(final Object token) {
+      if (inFlightToken == token) {
+        inFlightCheck = null;
+        inFlightToken = null;
+      }
+    }
+  }
+
+  private static final class Result {
+    private final boolean isConnected;
+    private final long timestampInMs;
+    private final long generation;
+
+    private Result(final boolean isConnected, final long timestampInMs, final long generation) {
+      this.isConnected = isConnected;
+      this.timestampInMs = timestampInMs;
+      this.generation = generation;
+    }
+  }
+
+  private static final class Key {
+    private final InternetObservingStrategy strategy;
+    private final ErrorHandler errorHandler;
+    private final String host;
+    private final int port;
+    private final int timeout;
+    private final int httpResponse;
+
+    private Key(final InternetObservingSettings settings) {
+      this.strategy = settings.strategy();
+      this.errorHandler = settings.errorHandler();
+      this.host = settings.host();
+      this.port = settings.port();
+      this.timeout = settings.timeout();
+      this.httpResponse = settings.httpResponse();
+    }
+
+    @Override public boolean equals(@Nullable final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return port == key.port
+          && timeout == key.timeout
+          && httpResponse == key.httpResponse
+          && strategy == key.strategy
+          && errorHandler == key.errorHandler
+          && host.equals(key.host);
+    }
+
+    @Override public int hashCode() {
+      int result = System.identityHashCode(strategy);
+      result = 31 * result + System.identityHashCode(errorHandler);
+      result = 31 * result + host.hashCode();
+      result = 31 * result + port;
+      result = 31 * result + timeout;
+      result = 31 * result + httpResponse;
+      return result;
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing;
 
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.DefaultErrorHandler;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy.WalledGardenInternetObservingStrategy;
@@ -26,6 +27,10 @@ import java.net.HttpURLConnection;
  */
 @SuppressWarnings("PMD") // I want to have the same method names as variable names on purpose
 public final class InternetObservingSettings {
+  private static final ErrorHandler DEFAULT_ERROR_HANDLER = new DefaultErrorHandler();
+  private static final InternetObservingStrategy DEFAULT_STRATEGY =
+      new WalledGardenInternetObservingStrategy();
+
   private final int initialInterval;
   private final int interval;
   private final String host;
@@ -34,10 +39,11 @@ public final class InternetObservingSettings {
   private final int httpResponse;
   private final ErrorHandler errorHandler;
   private final InternetObservingStrategy strategy;
+  private final int deadline;
 
   private InternetObservingSettings(int initialInterval, int interval, String host, int port,
       int timeout, int httpResponse, ErrorHandler errorHandler,
-      InternetObservingStrategy strategy) {
+      InternetObservingStrategy strategy, int deadline) {
     this.initialInterval = initialInterval;
     this.interval = interval;
     this.host = host;
@@ -46,6 +52,7 @@ public final class InternetObservingSettings {
     this.httpResponse = httpResponse;
     this.errorHandler = errorHandler;
     this.strategy = strategy;
+    this.deadline = deadline;
   }
 
   /**
@@ -57,7 +64,7 @@ public final class InternetObservingSettings {
 
   private InternetObservingSettings(Builder builder) {
     this(builder.initialInterval, builder.interval, builder.host, builder.port, builder.timeout,
-        builder.httpResponse, builder.errorHandler, builder.strategy);
+        builder.httpResponse, builder.errorHandler, builder.strategy, builder.deadline);
   }
 
   private InternetObservingSettings() {
@@ -125,6 +132,14 @@ public final class InternetObservingSettings {
     return strategy;
   }
 
+  /**
+   * @return overall deadline of a single connectivity check in milliseconds,
+   * zero means no deadline
+   */
+  public int deadline() {
+    return deadline;
+  }
+
   /**
    * Settings builder, which contains default parameters
    */
@@ -135,8 +150,9 @@ public final class InternetObservingSettings {
     private int port = 80;
     private int timeout = 2000;
     private int httpResponse = HttpURLConnection.HTTP_NO_CONTENT;
-    private ErrorHandler errorHandler = new DefaultErrorHandler();
-    private InternetObservingStrategy strategy = new WalledGardenInternetObservingStrategy();
+    private ErrorHandler errorHandler = DEFAULT_ERROR_HANDLER;
+    private InternetObservingStrategy strategy = DEFAULT_STRATEGY;
+    private int deadline = 0;
 
     private Builder() {
     }
@@ -226,7 +242,26 @@ public final class InternetObservingSettings {
       return this;
     }
 
+    /**
+     * sets overall deadline of a single connectivity check in milliseconds. Timeout applies
+     * only to connecting and reading, while deadline covers the whole check including
+     * host resolution. When deadline is exceeded, check is cancelled and false is emitted.
+     * Zero means no deadline. Otherwise, deadline can't be shorter than timeout.
+     *
+     * @param deadline in milliseconds
+     * @return Builder
+     */
+    public Builder deadline(int deadline) {
+      Preconditions.checkGreaterOrEqualToZero(deadline, "deadline is not a positive number");
+      this.deadline = deadline;
+      return this;
+    }
+
     public InternetObservingSettings build() {
+      if (deadline > 0) {
+        Preconditions.checkGreaterOrEqualToZero(deadline - timeout,
+            "deadline is shorter than timeout");
+      }
       return new InternetObservingSettings(this);
     }
   }
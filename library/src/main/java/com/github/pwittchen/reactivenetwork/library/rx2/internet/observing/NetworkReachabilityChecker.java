@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.SingleSource;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks connectivity with the Internet through each network, which has the Internet capability,
+ * e.g. WiFi and cellular network are checked independently, while device uses only one of them
+ * by default. Probes are bound to networks with {@link BindableInternetObservingStrategy}
+ * and they're performed in parallel, so the whole check takes as long as the slowest probe.
+ */
+@Open @TargetApi(21) public class NetworkReachabilityChecker {
+  private final InternetObservingSettings settings;
+  private final BindableInternetObservingStrategy strategy;
+
+  /**
+   * Creates checker, which uses host, port, timeout, HTTP response, error handler and deadline
+   * from a given settings
+   *
+   * @param settings Internet Observing Settings with a strategy, which can be bound to a network
+   */
+  public NetworkReachabilityChecker(final InternetObservingSettings settings) {
+    Preconditions.checkNotNull(settings, "settings == null");
+    if (!(settings.strategy() instanceof BindableInternetObservingStrategy)) {
+      throw new IllegalArgumentException(
+          "strategy has to implement BindableInternetObservingStrategy");
+    }
+    this.settings = settings;
+    this.strategy = (BindableInternetObservingStrategy) settings.strategy();
+  }
+
+  /**
+   * Checks connectivity with the Internet through all networks with the Internet capability.
+   * Network is mapped to false, when its probe fails or exceeds the deadline.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Single with a map of networks to results of their checks - true, when we have
+   * connection with host through the network and false if not
+   */
+  public Single<Map<Network, Boolean>> checkNetworks(final Context context) {
+    Preconditions.checkNotNull(context, "context == null");
+    return Single.defer(new Callable<SingleSource<Map<Network, Boolean>>>() {
+      @Override public SingleSource<Map<Network, Boolean>> call() {
+        final String service = Context.CONNECTIVITY_SERVICE;
+        final ConnectivityManager manager =
+            (ConnectivityManager) context.getSystemService(service);
+        return checkNetworks(getInternetNetworks(manager));
+      }
+    });
+  }
+
+  /**
+   * Checks connectivity with the Internet through given networks
+   *
+   * @param networks to be checked
+   * @return RxJava Single with a map of networks to results of their checks
+   */
+  public Single<Map<Network, Boolean>> checkNetworks(final List<Network> networks) {
+    Preconditions.checkNotNull(networks, "networks == null");
+    return Observable.fromIterable(networks)
+        .flatMapSingle(new Function<Network, SingleSource<NetworkResult>>() {
+          @Override public SingleSource<NetworkResult> apply(final Network network) {
+            return checkNetwork(network);
+          }
+        })
+        .toMap(new Function<NetworkResult, Network>() {
+          @Override public Network apply(final NetworkResult result) {
+            return result.network;
+          }
+        }, new Function<NetworkResult, Boolean>() {
+          @Override public Boolean apply(final NetworkResult result) {
+            return result.isConnected;
+          }
+        });
+  }
+
+  protected List<Network> getInternetNetworks(@Nullable final ConnectivityManager manager) {
+    final List<Network> networks = new ArrayList<>();
+    if (manager == null) {
+      return networks;
+    }
+    for (Network network : manager.getAllNetworks()) {
+      final NetworkCapabilities capabilities = manager.getNetworkCapabilities(network);
+      if (capabilities != null
+          && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+        networks.add(network);
+      }
+    }
+    return networks;
+  }
+
+  private Single<NetworkResult> checkNetwork(final Network network) {
+    Single<Boolean> single = strategy.bindTo(network)
+        .checkInternetConnectivity(settings.host(), settings.port(), settings.timeout(),
+            settings.httpResponse(), settings.errorHandler())
+        .subscribeOn(Schedulers.io())
+        .onErrorReturnItem(false);
+    if (settings.deadline() > 0) {
+      single = single.timeout(settings.deadline(), TimeUnit.MILLISECONDS,
+          Schedulers.computation(), Single.just(false));
+    }
+    return single.map(new Function<Boolean, NetworkResult>() {
+      @Override public NetworkResult apply(final Boolean isConnected) {
+        return new NetworkResult(network, isConnected);
+      }
+    });
+  }
+
+  private static final class NetworkResult {
+    private final Network network;
+    private final boolean isConnected;
+
+    private NetworkResult(final Network network, final boolean isConnected) {
+      this.network = network;
+      this.isConnected = isConnected;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error;
+
+import android.util.Log;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.LOG_TAG;
+
+/**
+ * Error handler, which does not log errors immediately. Instead, it deduplicates identical
+ * errors, counts them and logs a summary periodically on a background scheduler.
+ * Number of distinct errors kept between flushes is bounded and errors above the limit
+ * are only counted. Errors are removed, when they're logged, so the limit applies to errors
+ * collected since the last flush. Flush is scheduled only when there are errors to be logged.
+ */
+@Open public class AggregatingErrorHandler implements ErrorHandler {
+  private static final int DEFAULT_FLUSH_INTERVAL_IN_MS = 30000;
+  private static final int DEFAULT_MAX_DISTINCT_ERRORS = 16;
+  private static final String KEY_SEPARATOR = "|";
+
+  private final int flushIntervalInMs;
+  private final int maxDistinctErrors;
+  private final Scheduler scheduler;
+  private final ConcurrentHashMap<String, ErrorSummary> errors;
+  private final AtomicInteger droppedErrors;
+  private final AtomicBoolean isFlushScheduled;
+
+  public AggregatingErrorHandler() {
+    this(DEFAULT_FLUSH_INTERVAL_IN_MS, DEFAULT_MAX_DISTINCT_ERRORS, Schedulers.single());
+  }
+
+  /**
+   * Creates error handler with custom parameters
+   *
+   * @param flushIntervalInMs in milliseconds determining how often summary is logged
+   * @param maxDistinctErrors maximal number of distinct errors kept between flushes
+   * @param scheduler on which summary is logged
+   */
+  public AggregatingErrorHandler(final int flushIntervalInMs, final int maxDistinctErrors,
+      final Scheduler scheduler) {
+    Preconditions.checkGreaterThanZero(flushIntervalInMs,
+        "flushIntervalInMs is not a positive number");
+    Preconditions.checkGreaterThanZero(maxDistinctErrors,
+        "maxDistinctErrors is not a positive number");
+    Preconditions.checkNotNull(scheduler, "scheduler == null");
+    this.flushIntervalInMs = flushIntervalInMs;
+    this.maxDistinctErrors = maxDistinctErrors;
+    this.scheduler = scheduler;
+    this.errors = new ConcurrentHashMap<>();
+    this.droppedErrors = new AtomicInteger();
+    this.isFlushScheduled = new AtomicBoolean();
+  }
+
+  @Override public void handleError(final Exception exception, final String message) {
+    final String key = createKey(exception, message);
+    while (true) {
+      ErrorSummary summary = errors.get(key);
+
+      if (summary == null) {
+        if (errors.size() >= maxDistinctErrors) {
+          droppedErrors.incrementAndGet();
+          scheduleFlush();
+          return;
+        }
+        final ErrorSummary newSummary = new ErrorSummary(exception, message);
+        final ErrorSummary previousSummary = errors.putIfAbsent(key, newSummary);
+        summary = previousSummary == null ? newSummary : previousSummary;
+      }
+
+      if (summary.tryIncrement()) {
+        scheduleFlush();
+        return;
+      }
+      // summary was removed by flush in the meantime, so a new one has to be created
+    }
+  }
+
+  /**
+   * Logs summary of errors collected since the last flush. It's called automatically
+   * on the scheduler, but it can be also called explicitly, e.g. before the app is closed.
+   */
+  public void flush() {
+    isFlushScheduled.set(false);
+
+    for (Map.Entry<String, ErrorSummary> entry : errors.entrySet()) {
+      final ErrorSummary summary = entry.getValue();
+      if (!errors.remove(entry.getKey(), summary)) {
+        continue;
+      }
+      final int count = summary.detach();
+      if (count > 0) {
+        log(summary.exception, summary.message, count);
+      }
+    }
+
+    final int dropped = droppedErrors.getAndSet(0);
+    if (dropped > 0) {
+      logDropped(dropped);
+    }
+  }
+
+  /**
+   * Logs a single aggregated error
+   *
+   * @param exception first exception of this kind
+   * @param message passed with the exception
+   * @param count number of occurrences since the last flush
+   */
+  protected void log(final Exception exception, final String message, final int count) {
+    Log.e(LOG_TAG, message + " (occurred " + count + " times)", exception);
+  }
+
+  /**
+   * Logs number of errors, which were not aggregated, because limit of distinct errors
+   * was exceeded
+   *
+   * @param count number of errors
+   */
+  protected void logDropped(final int count) {
+    Log.w(LOG_TAG, count + " errors were not aggregated due to the limit of distinct errors");
+  }
+
+  private void scheduleFlush() {
+    if (isFlushScheduled.compareAndSet(false, true)) {
+      scheduler.scheduleDirect(new Runnable() {
+        @Override public void run() {
+          flush();
+        }
+      }, flushIntervalInMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private String createKey(final Exception exception, final String message) {
+    return message + KEY_SEPARATOR + exception.getClass().getName() + KEY_SEPARATOR
+        + exception.getMessage();
+  }
+
+  private static final class ErrorSummary {
+    private static final int DETACHED = -1;
+
+    private final Exception exception;
+    private final String message;
+    private final AtomicInteger count;
+
+    private ErrorSummary(final Exception exception, final String message) {
+      this.exception = exception;
+      this.message = message;
+      this.count = new AtomicInteger();
+    }
+
+    /**
+     * @return false if summary was already detached by flush and it can't be counted anymore
+     */
+    private boolean tryIncrement() {
+      while (true) {
+        final int current = count.get();
+        if (current == DETACHED) {
+          return false;
+        }
+        if (count.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * @return number of errors counted before the summary was detached
+     */
+    private int detach() {
+      return count.getAndSet(DETACHED);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event;
+
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener for lifecycle events of a single internet connectivity check (probe).
+ * All timestamps are values of {@link System#nanoTime()}, so they can be compared
+ * with each other, but not with the wall clock time. Events are delivered on the thread,
+ * which performs the probe. Override only methods you are interested in.
+ */
+public abstract class ProbeEventListener {
+  public static final ProbeEventListener NONE = new ProbeEventListener() {
+  };
+
+  /**
+   * Creates factory, which always returns given listener
+   *
+   * @param listener to be returned for every probe
+   * @return Factory
+   */
+  public static Factory factory(final ProbeEventListener listener) {
+    Preconditions.checkNotNull(listener, "listener == null");
+    return new Factory() {
+      @Override public ProbeEventListener create() {
+        return listener;
+      }
+    };
+  }
+
+  /**
+   * Creates factory, which returns given listener for one in every sampleRate probes
+   * and {@link #NONE} for the remaining ones
+   *
+   * @param listener to be returned for sampled probes
+   * @param sampleRate number of probes per one sampled probe
+   * @return Factory
+   */
+  public static Factory sampledFactory(final ProbeEventListener listener, final int sampleRate) {
+    Preconditions.checkNotNull(listener, "listener == null");
+    Preconditions.checkGreaterThanZero(sampleRate, "sampleRate is not a positive number");
+    final AtomicLong probes = new AtomicLong();
+    return new Factory() {
+      @Override public ProbeEventListener create() {
+        return probes.getAndIncrement() % sampleRate == 0 ? listener : NONE;
+      }
+    };
+  }
+
+  /**
+   * Invoked when probe is about to be performed
+   *
+   * @param host to be checked
+   * @param port to be checked
+   * @param timestampInNanos of the event
+   */
+  public void probeScheduled(final String host, final int port, final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked before resolving address of the host
+   *
+   * @param host to be resolved
+   * @param timestampInNanos of the event
+   */
+  public void dnsStart(final String host, final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked after resolving address of the host
+   *
+   * @param host which was resolved
+   * @param address resolved address or null when host could not be resolved
+   * @param timestampInNanos of the event
+   */
+  public void dnsEnd(final String host, @Nullable final InetAddress address,
+      final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked before connecting with the host
+   *
+   * @param timestampInNanos of the event
+   */
+  public void connectStart(final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked after connection with the host was established
+   *
+   * @param timestampInNanos of the event
+   */
+  public void connectEnd(final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked after TLS handshake was completed. It's reported only by transports, which perform
+   * the handshake separately from the connection, e.g. RawSocketHttpTransport, so the time
+   * of the handshake can be measured since {@link #connectEnd(long)}.
+   *
+   * @param timestampInNanos of the event
+   */
+  public void secureConnectEnd(final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked after TLS handshake was completed, when transport was able to check
+   * if a cached TLS session was resumed instead of performing a full handshake
+   *
+   * @param isResumed true if a cached session was resumed
+   * @param timestampInNanos of the event
+   */
+  public void secureSessionEstablished(final boolean isResumed, final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked after HTTP response code was received
+   *
+   * @param responseCode received from the host
+   * @param timestampInNanos of the event
+   */
+  public void responseCode(final int responseCode, final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked when probe failed with an exception
+   *
+   * @param exception which caused the failure
+   * @param timestampInNanos of the event
+   */
+  public void probeFailed(final Exception exception, final long timestampInNanos) {
+  }
+
+  /**
+   * Invoked after probe was completed and its resources were released
+   *
+   * @param isConnected result of the probe
+   * @param timestampInNanos of the event
+   */
+  public void probeClosed(final boolean isConnected, final long timestampInNanos) {
+  }
+
+  /**
+   * Creates listener for each probe, what allows to sample probes or to keep per-probe state
+   */
+  public interface Factory {
+    /**
+     * @return listener for a single probe
+     */
+    ProbeEventListener create();
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
+import java.io.IOException;
+
+/**
+ * HTTP transport used by {@link
+ * com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy.WalledGardenInternetObservingStrategy}
+ * for performing probes. It allows to use your own HTTP client (e.g. OkHttp), what allows probes
+ * to share its connection pool and TLS session cache.
+ */
+public interface HttpTransport {
+  /**
+   * Prepares a call, which sends a request to a given url
+   *
+   * @param url with protocol, host and path
+   * @param port to connect
+   * @param timeoutInMs for connecting and reading the response
+   * @return Call, which can be executed once
+   * @throws IOException when call cannot be prepared
+   */
+  Call newCall(final String url, final int port, final int timeoutInMs) throws IOException;
+
+  /**
+   * Single HTTP request prepared by the transport
+   */
+  interface Call {
+    /**
+     * Executes request and blocks until status line of the response is received
+     *
+     * @param eventListener for reporting connection events
+     * @return HTTP response code
+     * @throws IOException when request fails
+     */
+    int execute(final ProbeEventListener eventListener) throws IOException;
+
+    /**
+     * Cancels the call and releases its resources. It's also called after the call is executed,
+     * so it has to be safe to call it more than once.
+     */
+    void cancel();
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
+import com.jakewharton.nopen.annotation.Open;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import javax.net.SocketFactory;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Minimal HTTP/1.1 transport, which opens a raw socket, writes a fixed request precomputed once
+ * per url and parses only the status line of the response. It avoids overhead of
+ * HttpURLConnection (headers parsing, connection pool, response caching), so it's a fast path
+ * for probes, which only care about the response code. Redirects are not followed.
+ */
+@Open public class RawSocketHttpTransport implements HttpTransport {
+  private static final String HTTPS_PROTOCOL = "https";
+  private static final int DEFAULT_HTTP_PORT = 80;
+  private static final int DEFAULT_HTTPS_PORT = 443;
+  private static final String ROOT_PATH = "/";
+  private static final Charset ASCII = Charset.forName("US-ASCII");
+  private static final int STATUS_LINE_BUFFER_SIZE = 64;
+  private static final int STATUS_CODE_OFFSET = 9;
+  private static final int STATUS_CODE_LENGTH = 3;
+  private static final int SESSION_ID_REGISTRY_CAPACITY = 8;
+
+  private final SocketFactory socketFactory;
+  private final SSLSocketFactory sslSocketFactory;
+  private final SessionIdRegistry sessionIdRegistry =
+      new SessionIdRegistry(SESSION_ID_REGISTRY_CAPACITY);
+  @Nullable private volatile PreparedRequest lastRequest;
+
+  public RawSocketHttpTransport() {
+    this(SocketFactory.getDefault(), TlsSessionCache.getDefault().getSocketFactory());
+  }
+
+  /**
+   * Creates transport with custom socket factories
+   *
+   * @param socketFactory for creating plain sockets
+   * @param sslSocketFactory for wrapping plain sockets with TLS in case of https urls,
+   * it should keep a session cache, so sessions can be resumed across probes
+   */
+  public RawSocketHttpTransport(final SocketFactory socketFactory,
+      final SSLSocketFactory sslSocketFactory) {
+    Preconditions.checkNotNull(socketFactory, "socketFactory == null");
+    Preconditions.checkNotNull(sslSocketFactory, "sslSocketFactory == null");
+    this.socketFactory = socketFactory;
+    this.sslSocketFactory = sslSocketFactory;
+  }
+
+  @Override public Call newCall(final String url, final int port, final int timeoutInMs)
+      throws IOException {
+    return new RawSocketCall(prepareRequest(url, port), timeoutInMs);
+  }
+
+  /**
+   * Returns request for a given url. Requests are precomputed once and reused
+   * as long as the same url and port are probed.
+   *
+   * @param url with protocol, host and path
+   * @param port to connect
+   * @return PreparedRequest
+   * @throws MalformedURLException when url is not valid
+   */
+  protected PreparedRequest prepareRequest(final String url, final int port)
+      throws MalformedURLException {
+    final PreparedRequest request = lastRequest;
+    if (request != null && request.port == port && request.url.equals(url)) {
+      return request;
+    }
+    final PreparedRequest newRequest = new PreparedRequest(url, port);
+    lastRequest = newRequest;
+    return newRequest;
+  }
+
+  /**
+   * Parses status code from the status line of the HTTP response
+   *
+   * @param inputStream of the response
+   * @return HTTP response code
+   * @throws IOException when status line cannot be read or parsed
+   */
+  protected int readStatusCode(final InputStream inputStream) throws IOException {
+    final byte[] buffer = new byte[STATUS_LINE_BUFFER_SIZE];
+    int length = 0;
+    while (length < STATUS_CODE_OFFSET + STATUS_CODE_LENGTH) {
+      final int read = inputStream.read(buffer, length, buffer.length - length);
+      if (read == -1) {
+        throw new ProtocolException("Unexpected end of the status line");
+      }
+      length += read;
+    }
+
+    if (buffer[0] != 'H' || buffer[1] != 'T' || buffer[2] != 'T' || buffer[3] != 'P') {
+      throw new ProtocolException("Unexpected status line");
+    }
+
+    int statusCode = 0;
+    for (int i = STATUS_CODE_OFFSET; i < STATUS_CODE_OFFSET + STATUS_CODE_LENGTH; i++) {
+      final int digit = buffer[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new ProtocolException("Unexpected status code");
+      }
+      statusCode = statusCode * 10 + digit;
+    }
+    return statusCode;
+  }
+
+  /**
+   * Creates secure socket on top of already connected plain socket
+   *
+   * @param socket connected with the host
+   * @param host to be verified
+   * @param port of the host
+   * @param eventListener for reporting connection events
+   * @return SSLSocket after completed handshake
+   * @throws IOException when handshake or host verification fails
+   */
+  protected SSLSocket createSecureSocket(final Socket socket, final String host, final int port,
+      final ProbeEventListener eventListener) throws IOException {
+    final SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, host, port, true);
+    sslSocket.startHandshake();
+    final SSLSession session = sslSocket.getSession();
+    if (!HttpsURLConnection.getDefaultHostnameVerifier().verify(host, session)) {
+      throw new SSLPeerUnverifiedException("Hostname " + host + " not verified");
+    }
+    final boolean isResumed = sessionIdRegistry.register(session);
+    eventListener.secureSessionEstablished(isResumed, System.nanoTime());
+    eventListener.secureConnectEnd(System.nanoTime());
+    return sslSocket;
+  }
+
+  /**
+   * Creates value of the Host header. Port is omitted, when it's the default one
+   * for the protocol, so virtual hosts served on non-default ports are routed properly.
+   *
+   * @param host of the url
+   * @param port to connect
+   * @param isSecure true for https urls
+   * @return host or host with port
+   */
+  static String createHostHeader(final String host, final int port, final boolean isSecure) {
+    final int defaultPort = isSecure ? DEFAULT_HTTPS_PORT : DEFAULT_HTTP_PORT;
+    return port == defaultPort ? host : host + ":" + port;
+  }
+
+  /**
+   * Request precomputed for a given url and port
+   */
+  protected static final class PreparedRequest {
+    private final String url;
+    private final int port;
+    private final String host;
+    private final boolean isSecure;
+    private final byte[] bytes;
+
+    private PreparedRequest(final String url, final int port) throws MalformedURLException {
+      final URL parsedUrl = new URL(url);
+      final String file = parsedUrl.getFile();
+      this.url = url;
+      this.port = port;
+      this.host = parsedUrl.getHost();
+      this.isSecure = HTTPS_PROTOCOL.equals(parsedUrl.getProtocol());
+      this.bytes = ("GET " + (file.isEmpty() ? ROOT_PATH : file) + " HTTP/1.1\r\n"
+          + "Host: " + createHostHeader(host, port, isSecure) + "\r\n"
+          + "Connection: close\r\n"
+          + "\r\n").getBytes(ASCII);
+    }
+  }
+
+  private final class RawSocketCall implements Call {
+    private final PreparedRequest request;
+    private final int timeoutInMs;
+    @Nullable private volatile Socket socket;
+    private volatile boolean isCanceled;
+
+    private RawSocketCall(final PreparedRequest request, final int timeoutInMs) {
+      this.request = request;
+      this.timeoutInMs = timeoutInMs;
+    }
+
+    @Override public int execute(final ProbeEventListener eventListener) throws IOException {
+      Socket currentSocket = socketFactory.createSocket();
+      socket = currentSocket;
+      checkIsNotCanceled();
+
+      eventListener.dnsStart(request.host, System.nanoTime());
+      final InetSocketAddress address = new InetSocketAddress(request.host, request.port);
+      eventListener.dnsEnd(request.host, address.getAddress(), System.nanoTime());
+      if (address.isUnresolved()) {
+        throw new UnknownHostException(request.host);
+      }
+
+      eventListener.connectStart(System.nanoTime());
+      currentSocket.connect(address, timeoutInMs);
+      currentSocket.setSoTimeout(timeoutInMs);
+      eventListener.connectEnd(System.nanoTime());
+
+      if (request.isSecure) {
+        currentSocket = createSecureSocket(currentSocket, request.host, request.port,
+            eventListener);
+        socket = currentSocket;
+        checkIsNotCanceled();
+      }
+
+      final OutputStream outputStream = currentSocket.getOutputStream();
+      outputStream.write(request.bytes);
+      outputStream.flush();
+      return readStatusCode(currentSocket.getInputStream());
+    }
+
+    @Override public void cancel() {
+      isCanceled = true;
+      final Socket currentSocket = socket;
+      if (currentSocket != null) {
+        try {
+          currentSocket.close();
+        } catch (IOException ignored) {
+          // socket is released anyway
+        }
+      }
+    }
+
+    private void checkIsNotCanceled() throws IOException {
+      if (isCanceled) {
+        cancel();
+        throw new IOException("Canceled");
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Remembers identifiers of recently established TLS sessions. Session is considered resumed,
+ * when its identifier was already seen, which doesn't depend on clocks of the device
+ * and the server. Number of remembered identifiers is bounded.
+ */
+final class SessionIdRegistry {
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private final Map<ByteBuffer, Boolean> sessionIds;
+
+  SessionIdRegistry(final int capacity) {
+    this.sessionIds = new LinkedHashMap<ByteBuffer, Boolean>(capacity, LOAD_FACTOR, true) {
+      @Override protected boolean removeEldestEntry(final Map.Entry<ByteBuffer, Boolean> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Registers identifier of a given session
+   *
+   * @param session established during the handshake
+   * @return true if the session with the same identifier was registered before
+   */
+  synchronized boolean register(final SSLSession session) {
+    final byte[] id = session.getId();
+    if (id == null || id.length == 0) {
+      return false;
+    }
+    return sessionIds.put(ByteBuffer.wrap(id.clone()), Boolean.TRUE) != null;
+  }
+}
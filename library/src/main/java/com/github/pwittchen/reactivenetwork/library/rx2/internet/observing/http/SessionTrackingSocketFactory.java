@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Socket factory, which delegates to another one and remembers the last socket created
+ * on each thread, so session of the socket created internally by HttpsURLConnection
+ * can be inspected. One instance is shared by connections, so they can be pooled.
+ */
+final class SessionTrackingSocketFactory extends SSLSocketFactory {
+  private final SSLSocketFactory delegate;
+  private final ThreadLocal<SSLSocket> socket = new ThreadLocal<>();
+
+  SessionTrackingSocketFactory(final SSLSocketFactory delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Forgets socket created on the current thread, so a socket created before
+   * won't be reported for the next connection
+   */
+  void clearSocket() {
+    socket.remove();
+  }
+
+  /**
+   * Returns and forgets socket created on the current thread
+   *
+   * @return SSLSocket or null if no socket was created
+   */
+  @Nullable SSLSocket takeSocket() {
+    final SSLSocket createdSocket = socket.get();
+    socket.remove();
+    return createdSocket;
+  }
+
+  @Override public String[] getDefaultCipherSuites() {
+    return delegate.getDefaultCipherSuites();
+  }
+
+  @Override public String[] getSupportedCipherSuites() {
+    return delegate.getSupportedCipherSuites();
+  }
+
+  @Override public Socket createSocket() throws IOException {
+    return track(delegate.createSocket());
+  }
+
+  @Override public Socket createSocket(final Socket socket, final String host, final int port,
+      final boolean autoClose) throws IOException {
+    return track(delegate.createSocket(socket, host, port, autoClose));
+  }
+
+  @Override public Socket createSocket(final String host, final int port) throws IOException {
+    return track(delegate.createSocket(host, port));
+  }
+
+  @Override public Socket createSocket(final String host, final int port,
+      final InetAddress localHost, final int localPort) throws IOException {
+    return track(delegate.createSocket(host, port, localHost, localPort));
+  }
+
+  @Override public Socket createSocket(final InetAddress host, final int port) throws IOException {
+    return track(delegate.createSocket(host, port));
+  }
+
+  @Override public Socket createSocket(final InetAddress address, final int port,
+      final InetAddress localAddress, final int localPort) throws IOException {
+    return track(delegate.createSocket(address, port, localAddress, localPort));
+  }
+
+  private Socket track(final Socket createdSocket) {
+    if (createdSocket instanceof SSLSocket) {
+      socket.set((SSLSocket) createdSocket);
+    }
+    return createdSocket;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.jakewharton.nopen.annotation.Open;
+import java.security.GeneralSecurityException;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+
+import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.LOG_TAG;
+
+/**
+ * Dedicated TLS context for HTTPS probes. It keeps client sessions in its own cache,
+ * so consecutive probes of the same host can resume a session with an abbreviated handshake
+ * instead of performing a full one. Context is created lazily, when the first HTTPS probe
+ * is performed.
+ */
+@Open public class TlsSessionCache {
+  private static final String PROTOCOL = "TLS";
+  private static final int DEFAULT_SESSION_CACHE_SIZE = 8;
+  private static final int DEFAULT_SESSION_TIMEOUT_IN_SECONDS = 3600;
+  private static final TlsSessionCache DEFAULT = new TlsSessionCache();
+
+  private final int sessionCacheSize;
+  private final int sessionTimeoutInSeconds;
+  private final SessionIdRegistry sessionIdRegistry;
+  @Nullable private volatile SSLSocketFactory socketFactory;
+  @Nullable private volatile SessionTrackingSocketFactory trackingSocketFactory;
+
+  public TlsSessionCache() {
+    this(DEFAULT_SESSION_CACHE_SIZE, DEFAULT_SESSION_TIMEOUT_IN_SECONDS);
+  }
+
+  /**
+   * Creates TLS session cache with custom parameters
+   *
+   * @param sessionCacheSize maximal number of cached sessions
+   * @param sessionTimeoutInSeconds after which cached session cannot be resumed
+   */
+  public TlsSessionCache(final int sessionCacheSize, final int sessionTimeoutInSeconds) {
+    Preconditions.checkGreaterThanZero(sessionCacheSize,
+        "sessionCacheSize is not a positive number");
+    Preconditions.checkGreaterThanZero(sessionTimeoutInSeconds,
+        "sessionTimeoutInSeconds is not a positive number");
+    this.sessionCacheSize = sessionCacheSize;
+    this.sessionTimeoutInSeconds = sessionTimeoutInSeconds;
+    this.sessionIdRegistry = new SessionIdRegistry(sessionCacheSize);
+  }
+
+  /**
+   * @return TLS session cache shared by all HTTPS probes, which don't use custom one
+   */
+  public static TlsSessionCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Checks if a given session was resumed from the cache. Session was resumed
+   * when a session with the same identifier was already established by this cache.
+   *
+   * @param session established during the handshake
+   * @return true if the session was resumed
+   */
+  public boolean isSessionResumed(final SSLSession session) {
+    return sessionIdRegistry.register(session);
+  }
+
+  /**
+   * Returns socket factory, which uses dedicated TLS context. When the context cannot be
+   * created, default socket factory is returned.
+   *
+   * @return SSLSocketFactory
+   */
+  public SSLSocketFactory getSocketFactory() {
+    SSLSocketFactory factory = socketFactory;
+    if (factory == null) {
+      synchronized (this) {
+        factory = socketFactory;
+        if (factory == null) {
+          factory = createSocketFactory();
+          socketFactory = factory;
+        }
+      }
+    }
+    return factory;
+  }
+
+  /**
+   * Returns socket factory shared by all HttpsURLConnections using this cache,
+   * so connections can be pooled and the last socket created on a given thread can be inspected
+   *
+   * @return SessionTrackingSocketFactory
+   */
+  SessionTrackingSocketFactory getTrackingSocketFactory() {
+    SessionTrackingSocketFactory factory = trackingSocketFactory;
+    if (factory == null) {
+      synchronized (this) {
+        factory = trackingSocketFactory;
+        if (factory == null) {
+          factory = new SessionTrackingSocketFactory(getSocketFactory());
+          trackingSocketFactory = factory;
+        }
+      }
+    }
+    return factory;
+  }
+
+  protected SSLSocketFactory createSocketFactory() {
+    try {
+      final SSLContext context = SSLContext.getInstance(PROTOCOL);
+      context.init(null, null, null);
+      final SSLSessionContext sessionContext = context.getClientSessionContext();
+      sessionContext.setSessionCacheSize(sessionCacheSize);
+      sessionContext.setSessionTimeout(sessionTimeoutInSeconds);
+      return context.getSocketFactory();
+    } catch (GeneralSecurityException exception) {
+      Log.w(LOG_TAG, "Could not create TLS context, default one will be used", exception);
+      return (SSLSocketFactory) SSLSocketFactory.getDefault();
+    }
+  }
+}
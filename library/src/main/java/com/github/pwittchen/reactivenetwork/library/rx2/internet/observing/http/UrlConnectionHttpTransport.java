@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import android.annotation.TargetApi;
+import android.net.Network;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
+import com.jakewharton.nopen.annotation.Open;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * Default HTTP transport, which uses HttpURLConnection and HttpsURLConnection.
+ * HTTPS connections use sockets created from {@link TlsSessionCache},
+ * so TLS sessions can be resumed across probes. Connections can be opened through a given
+ * network instead of the default one. HttpURLConnection performs TCP connection and TLS handshake
+ * in one step, so connection events span both of them and secure connection end isn't reported.
+ */
+@Open public class UrlConnectionHttpTransport implements HttpTransport {
+  private final TlsSessionCache tlsSessionCache;
+  @Nullable private final Network network;
+
+  public UrlConnectionHttpTransport() {
+    this(TlsSessionCache.getDefault());
+  }
+
+  /**
+   * Creates transport with a custom TLS session cache
+   *
+   * @param tlsSessionCache providing socket factory for HTTPS connections
+   */
+  public UrlConnectionHttpTransport(final TlsSessionCache tlsSessionCache) {
+    Preconditions.checkNotNull(tlsSessionCache, "tlsSessionCache == null");
+    this.tlsSessionCache = tlsSessionCache;
+    this.network = null;
+  }
+
+  /**
+   * Creates transport, which opens connections through a given network,
+   * so both host resolution and connections use this network
+   *
+   * @param tlsSessionCache providing socket factory for HTTPS connections
+   * @param network through which connections are opened
+   */
+  @TargetApi(21)
+  public UrlConnectionHttpTransport(final TlsSessionCache tlsSessionCache,
+      final Network network) {
+    Preconditions.checkNotNull(tlsSessionCache, "tlsSessionCache == null");
+    Preconditions.checkNotNull(network, "network == null");
+    this.tlsSessionCache = tlsSessionCache;
+    this.network = network;
+  }
+
+  /**
+   * Creates transport, which opens connections through a given network
+   * and uses TLS session cache of this transport
+   *
+   * @param network through which connections are opened
+   * @return UrlConnectionHttpTransport bound to the network
+   */
+  @TargetApi(21) public UrlConnectionHttpTransport bindTo(final Network network) {
+    return new UrlConnectionHttpTransport(tlsSessionCache, network);
+  }
+
+  @Override public Call newCall(final String url, final int port, final int timeoutInMs)
+      throws IOException {
+    return newCall(openConnection(url, port, timeoutInMs));
+  }
+
+  /**
+   * Wraps already opened connection with a call. When HttpsURLConnection uses the default
+   * socket factory, it's replaced with a factory shared by all connections using the same
+   * TLS session cache, so sessions can be resumed and resumption can be reported.
+   * Custom socket factory (e.g. with certificate pinning) is left untouched.
+   *
+   * @param urlConnection to be wrapped
+   * @return Call
+   */
+  public Call newCall(final HttpURLConnection urlConnection) {
+    if (urlConnection instanceof HttpsURLConnection) {
+      final HttpsURLConnection httpsUrlConnection = (HttpsURLConnection) urlConnection;
+      if (httpsUrlConnection.getSSLSocketFactory()
+          == HttpsURLConnection.getDefaultSSLSocketFactory()) {
+        final SessionTrackingSocketFactory socketFactory =
+            tlsSessionCache.getTrackingSocketFactory();
+        httpsUrlConnection.setSSLSocketFactory(socketFactory);
+        return new UrlConnectionCall(urlConnection, socketFactory, tlsSessionCache);
+      }
+    }
+    return new UrlConnectionCall(urlConnection, null, tlsSessionCache);
+  }
+
+  /**
+   * Opens connection with a given url. HttpsURLConnection is returned for urls
+   * with https protocol.
+   *
+   * @param url with protocol, host and path
+   * @param port to connect
+   * @param timeoutInMs for connecting and reading the response
+   * @return HttpURLConnection
+   * @throws IOException when connection cannot be opened
+   */
+  public HttpURLConnection openConnection(final String url, final int port,
+      final int timeoutInMs) throws IOException {
+    URL initialUrl = new URL(url);
+    URL connectionUrl =
+        new URL(initialUrl.getProtocol(), initialUrl.getHost(), port, initialUrl.getFile());
+    HttpURLConnection urlConnection = (HttpURLConnection) openConnection(connectionUrl);
+    urlConnection.setConnectTimeout(timeoutInMs);
+    urlConnection.setReadTimeout(timeoutInMs);
+    urlConnection.setInstanceFollowRedirects(false);
+    urlConnection.setUseCaches(false);
+    return urlConnection;
+  }
+
+  @TargetApi(21) private URLConnection openConnection(final URL url) throws IOException {
+    final Network currentNetwork = network;
+    return currentNetwork != null ? currentNetwork.openConnection(url) : url.openConnection();
+  }
+
+  private static final class UrlConnectionCall implements Call {
+    private final HttpURLConnection urlConnection;
+    @Nullable private final SessionTrackingSocketFactory socketFactory;
+    private final TlsSessionCache tlsSessionCache;
+
+    private UrlConnectionCall(final HttpURLConnection urlConnection,
+        @Nullable final SessionTrackingSocketFactory socketFactory,
+        final TlsSessionCache tlsSessionCache) {
+      this.urlConnection = urlConnection;
+      this.socketFactory = socketFactory;
+      this.tlsSessionCache = tlsSessionCache;
+    }
+
+    @Override public int execute(final ProbeEventListener eventListener) throws IOException {
+      if (socketFactory != null) {
+        socketFactory.clearSocket();
+      }
+      eventListener.connectStart(System.nanoTime());
+      urlConnection.connect();
+      eventListener.connectEnd(System.nanoTime());
+      final SSLSocket socket = socketFactory != null ? socketFactory.takeSocket() : null;
+      if (socket != null) {
+        final boolean isResumed = tlsSessionCache.isSessionResumed(socket.getSession());
+        eventListener.secureSessionEstablished(isResumed, System.nanoTime());
+      }
+      return urlConnection.getResponseCode();
+    }
+
+    @Override public void cancel() {
+      urlConnection.disconnect();
+    }
+  }
+}
@@ -15,15 +15,23 @@
  */
 package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy;
 
+import android.annotation.TargetApi;
+import android.net.Network;
+import androidx.annotation.Nullable;
 import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.BindableInternetObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
 import com.jakewharton.nopen.annotation.Open;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.SingleEmitter;
 import io.reactivex.SingleOnSubscribe;
 import io.reactivex.annotations.NonNull;
+import io.reactivex.functions.Cancellable;
 import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 import java.io.IOException;
@@ -34,12 +42,44 @@ import java.util.concurrent.TimeUnit;
 /**
  * Socket strategy for monitoring connectivity with the Internet.
  * It monitors Internet connectivity via opening socket connection with the remote host.
+ * It can be bound to a given network with {@link #bindTo(Network)}.
  */
-@Open public class SocketInternetObservingStrategy implements InternetObservingStrategy {
+@Open public class SocketInternetObservingStrategy implements BindableInternetObservingStrategy {
   private static final String EMPTY_STRING = "";
   private static final String DEFAULT_HOST = "www.google.com";
   private static final String HTTP_PROTOCOL = "http://";
   private static final String HTTPS_PROTOCOL = "https://";
+  private static final String ERROR_MSG_CREATE_SOCKET = "Could not create the socket";
+  private final ProbeEventListener.Factory eventListenerFactory;
+  // check performed by the current thread, so its socket can be closed, when check is disposed
+  private final ThreadLocal<SingleEmitter<Boolean>> pendingCheck = new ThreadLocal<>();
+
+  public SocketInternetObservingStrategy() {
+    this(ProbeEventListener.factory(ProbeEventListener.NONE));
+  }
+
+  /**
+   * Creates strategy, which reports lifecycle events of each probe
+   *
+   * @param eventListenerFactory creating listener for each probe
+   */
+  public SocketInternetObservingStrategy(final ProbeEventListener.Factory eventListenerFactory) {
+    Preconditions.checkNotNull(eventListenerFactory, "eventListenerFactory == null");
+    this.eventListenerFactory = eventListenerFactory;
+  }
+
+  /**
+   * Creates strategy, which resolves hosts and opens sockets through a given network.
+   * Returned strategy is a new instance of this class, so methods overridden by a subclass
+   * aren't called by it. Subclass, which changes probes, should override this method as well.
+   *
+   * @param network through which probes are performed
+   * @return InternetObservingStrategy bound to the network
+   */
+  @TargetApi(21) @Override public InternetObservingStrategy bindTo(final Network network) {
+    Preconditions.checkNotNull(network, "network == null");
+    return new NetworkBoundStrategy(network, eventListenerFactory);
+  }
 
   @Override public String getDefaultPingHost() {
     return DEFAULT_HOST;
@@ -60,7 +100,7 @@ import java.util.concurrent.TimeUnit;
       @Override public Boolean apply(@NonNull Long tick) throws Exception {
         return isConnected(adjustedHost, port, timeoutInMs, errorHandler);
       }
-    }).distinctUntilChanged();
+    }).distinctUntilChanged(MetricsHelper.duplicateFilter());
   }
 
   @Override public Single<Boolean> checkInternetConnectivity(final String host, final int port,
@@ -69,9 +109,14 @@ import java.util.concurrent.TimeUnit;
 
     return Single.create(new SingleOnSubscribe<Boolean>() {
       @Override public void subscribe(@NonNull SingleEmitter<Boolean> emitter) throws Exception {
-        emitter.onSuccess(isConnected(host, port, timeoutInMs, errorHandler));
+        pendingCheck.set(emitter);
+        try {
+          emitter.onSuccess(isConnected(host, port, timeoutInMs, errorHandler));
+        } finally {
+          pendingCheck.remove();
+        }
       }
-    });
+    }).subscribeOn(Schedulers.io());
   }
 
   /**
@@ -107,8 +152,49 @@ import java.util.concurrent.TimeUnit;
    */
   protected boolean isConnected(final String host, final int port, final int timeoutInMs,
       final ErrorHandler errorHandler) {
-    final Socket socket = new Socket();
-    return isConnected(socket, host, port, timeoutInMs, errorHandler);
+    final Socket socket = tryToCreateSocket(errorHandler);
+    return socket != null && isConnected(socket, host, port, timeoutInMs, errorHandler);
+  }
+
+  /**
+   * creates unconnected socket used by a single probe
+   *
+   * @return Socket
+   * @throws IOException when socket cannot be created, e.g. because bound network is gone
+   */
+  protected Socket createSocket() throws IOException {
+    return new Socket();
+  }
+
+  @Nullable private Socket tryToCreateSocket(final ErrorHandler errorHandler) {
+    final Socket socket;
+    try {
+      socket = createSocket();
+    } catch (IOException exception) {
+      errorHandler.handleError(exception, ERROR_MSG_CREATE_SOCKET);
+      return null;
+    }
+    final SingleEmitter<Boolean> emitter = pendingCheck.get();
+    if (emitter != null) {
+      emitter.setCancellable(new Cancellable() {
+        @Override public void cancel() throws Exception {
+          socket.close();
+        }
+      });
+    }
+    return socket;
+  }
+
+  /**
+   * resolves address of the host used by a single probe
+   *
+   * @param host to be resolved
+   * @param port to connect
+   * @return InetSocketAddress, which is unresolved when host could not be resolved
+   * @throws IOException when host cannot be resolved
+   */
+  protected InetSocketAddress resolve(final String host, final int port) throws IOException {
+    return new InetSocketAddress(host, port);
   }
 
   /**
@@ -124,18 +210,54 @@ import java.util.concurrent.TimeUnit;
   protected boolean isConnected(final Socket socket, final String host, final int port,
       final int timeoutInMs, final ErrorHandler errorHandler) {
     boolean isConnected;
+    final ProbeEventListener eventListener = eventListenerFactory.create();
+    final long startTime = MetricsHelper.startTime();
+    MetricsHelper.increment(MetricsListener.Counter.PROBE);
+    eventListener.probeScheduled(host, port, System.nanoTime());
     try {
-      socket.connect(new InetSocketAddress(host, port), timeoutInMs);
+      eventListener.dnsStart(host, System.nanoTime());
+      final InetSocketAddress address = resolve(host, port);
+      eventListener.dnsEnd(host, address.getAddress(), System.nanoTime());
+      eventListener.connectStart(System.nanoTime());
+      socket.connect(address, timeoutInMs);
       isConnected = socket.isConnected();
+      eventListener.connectEnd(System.nanoTime());
     } catch (IOException e) {
+      MetricsHelper.incrementProbeFailure(e);
+      eventListener.probeFailed(e, System.nanoTime());
       isConnected = Boolean.FALSE;
     } finally {
+      MetricsHelper.recordSince(MetricsListener.Timer.PROBE, startTime);
       try {
         socket.close();
       } catch (IOException exception) {
         errorHandler.handleError(exception, "Could not close the socket");
       }
     }
+    eventListener.probeClosed(isConnected, System.nanoTime());
     return isConnected;
   }
+
+  /**
+   * Strategy, which resolves hosts and opens sockets through a given network
+   */
+  @TargetApi(21) private static final class NetworkBoundStrategy
+      extends SocketInternetObservingStrategy {
+    private final Network network;
+
+    private NetworkBoundStrategy(final Network network,
+        final ProbeEventListener.Factory eventListenerFactory) {
+      super(eventListenerFactory);
+      this.network = network;
+    }
+
+    @Override protected InetSocketAddress resolve(final String host, final int port)
+        throws IOException {
+      return new InetSocketAddress(network.getByName(host), port);
+    }
+
+    @Override protected Socket createSocket() throws IOException {
+      return network.getSocketFactory().createSocket();
+    }
+  }
 }
@@ -15,20 +15,29 @@
  */
 package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy;
 
+import android.annotation.TargetApi;
+import android.net.Network;
+import androidx.annotation.Nullable;
 import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.BindableInternetObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http.HttpTransport;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http.UrlConnectionHttpTransport;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
 import com.jakewharton.nopen.annotation.Open;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.SingleEmitter;
 import io.reactivex.SingleOnSubscribe;
 import io.reactivex.annotations.NonNull;
+import io.reactivex.functions.Cancellable;
 import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.concurrent.TimeUnit;
 import javax.net.ssl.HttpsURLConnection;
 
@@ -38,11 +47,91 @@ import javax.net.ssl.HttpsURLConnection;
  * which does not has access to several websites like Google. It such case, different HTTP responses
  * are generated. Instead HTTP 200 (OK), we got HTTP 204 (NO CONTENT), but it still can tell us
  * if a device is connected to the Internet or not.
+ * It can be bound to a given network with {@link #bindTo(Network)}.
  */
-@Open public class WalledGardenInternetObservingStrategy implements InternetObservingStrategy {
+@Open public class WalledGardenInternetObservingStrategy
+    implements BindableInternetObservingStrategy {
   private static final String DEFAULT_HOST = "http://clients3.google.com/generate_204";
   private static final String HTTP_PROTOCOL = "http://";
   private static final String HTTPS_PROTOCOL = "https://";
+  private static final UrlConnectionHttpTransport DEFAULT_TRANSPORT =
+      new UrlConnectionHttpTransport();
+  private final ProbeEventListener.Factory eventListenerFactory;
+  @Nullable private final HttpTransport transport;
+  // check performed by the current thread, so its call can be canceled, when check is disposed
+  private final ThreadLocal<SingleEmitter<Boolean>> pendingCheck = new ThreadLocal<>();
+
+  public WalledGardenInternetObservingStrategy() {
+    this(ProbeEventListener.factory(ProbeEventListener.NONE));
+  }
+
+  /**
+   * Creates strategy, which reports lifecycle events of each probe.
+   * Please note that HttpURLConnection resolves host internally,
+   * so DNS events are not reported by this strategy.
+   *
+   * @param eventListenerFactory creating listener for each probe
+   */
+  public WalledGardenInternetObservingStrategy(
+      final ProbeEventListener.Factory eventListenerFactory) {
+    Preconditions.checkNotNull(eventListenerFactory, "eventListenerFactory == null");
+    this.eventListenerFactory = eventListenerFactory;
+    this.transport = null;
+  }
+
+  /**
+   * Creates strategy, which performs probes with a custom HTTP transport
+   * instead of HttpURLConnection
+   *
+   * @param transport performing HTTP requests
+   */
+  public WalledGardenInternetObservingStrategy(final HttpTransport transport) {
+    this(transport, ProbeEventListener.factory(ProbeEventListener.NONE));
+  }
+
+  /**
+   * Creates strategy, which performs probes with a custom HTTP transport
+   * and reports lifecycle events of each probe
+   *
+   * @param transport performing HTTP requests
+   * @param eventListenerFactory creating listener for each probe
+   */
+  public WalledGardenInternetObservingStrategy(final HttpTransport transport,
+      final ProbeEventListener.Factory eventListenerFactory) {
+    Preconditions.checkNotNull(transport, "transport == null");
+    Preconditions.checkNotNull(eventListenerFactory, "eventListenerFactory == null");
+    this.eventListenerFactory = eventListenerFactory;
+    this.transport = transport;
+  }
+
+  /**
+   * Creates strategy, which performs probes with HttpURLConnection opened through a given
+   * network. When UrlConnectionHttpTransport was given, its TLS session cache is kept.
+   * Other custom HTTP transports aren't used by the returned strategy, because they cannot
+   * be bound to a network. Strategy is created by {@link #createNetworkBoundStrategy}.
+   *
+   * @param network through which probes are performed
+   * @return InternetObservingStrategy bound to the network
+   */
+  @TargetApi(21) @Override public InternetObservingStrategy bindTo(final Network network) {
+    Preconditions.checkNotNull(network, "network == null");
+    final UrlConnectionHttpTransport urlConnectionTransport =
+        transport instanceof UrlConnectionHttpTransport
+            ? (UrlConnectionHttpTransport) transport : DEFAULT_TRANSPORT;
+    return createNetworkBoundStrategy(urlConnectionTransport.bindTo(network));
+  }
+
+  /**
+   * Creates strategy, which performs probes with a transport bound to a network.
+   * It returns a new instance of this class, so subclass, which changes probes,
+   * should override this method and return its own instance.
+   *
+   * @param transport bound to a network
+   * @return InternetObservingStrategy performing probes with the transport
+   */
+  protected InternetObservingStrategy createNetworkBoundStrategy(final HttpTransport transport) {
+    return new WalledGardenInternetObservingStrategy(transport, eventListenerFactory);
+  }
 
   @Override public String getDefaultPingHost() {
     return DEFAULT_HOST;
@@ -65,7 +154,7 @@ import javax.net.ssl.HttpsURLConnection;
       @Override public Boolean apply(@NonNull Long tick) {
         return isConnected(adjustedHost, port, timeoutInMs, httpResponse, errorHandler);
       }
-    }).distinctUntilChanged();
+    }).distinctUntilChanged(MetricsHelper.duplicateFilter());
   }
 
   @Override public Single<Boolean> checkInternetConnectivity(final String host, final int port,
@@ -74,9 +163,14 @@ import javax.net.ssl.HttpsURLConnection;
 
     return Single.create(new SingleOnSubscribe<Boolean>() {
       @Override public void subscribe(@NonNull SingleEmitter<Boolean> emitter) {
-        emitter.onSuccess(isConnected(host, port, timeoutInMs, httpResponse, errorHandler));
+        pendingCheck.set(emitter);
+        try {
+          emitter.onSuccess(isConnected(host, port, timeoutInMs, httpResponse, errorHandler));
+        } finally {
+          pendingCheck.remove();
+        }
       }
-    });
+    }).subscribeOn(Schedulers.io());
   }
 
   protected String adjustHost(final String host) {
@@ -99,45 +193,76 @@ import javax.net.ssl.HttpsURLConnection;
 
   protected Boolean isConnected(final String host, final int port, final int timeoutInMs,
       final int httpResponse, final ErrorHandler errorHandler) {
-    HttpURLConnection urlConnection = null;
+    final SingleEmitter<Boolean> emitter = pendingCheck.get();
+    HttpTransport.Call call = null;
+    boolean isConnected = false;
+    final ProbeEventListener eventListener = eventListenerFactory.create();
+    final long startTime = MetricsHelper.startTime();
+    MetricsHelper.increment(MetricsListener.Counter.PROBE);
+    eventListener.probeScheduled(host, port, System.nanoTime());
     try {
-      if (host.startsWith(HTTPS_PROTOCOL)) {
-        urlConnection = createHttpsUrlConnection(host, port, timeoutInMs);
-      } else {
-        urlConnection = createHttpUrlConnection(host, port, timeoutInMs);
+      call = newCall(host, port, timeoutInMs);
+      if (emitter != null) {
+        emitter.setCancellable(createCancellable(call));
       }
-      return urlConnection.getResponseCode() == httpResponse;
+      final int responseCode = call.execute(eventListener);
+      eventListener.responseCode(responseCode, System.nanoTime());
+      isConnected = responseCode == httpResponse;
+      return isConnected;
     } catch (IOException e) {
-      errorHandler.handleError(e, "Could not establish connection with WalledGardenStrategy");
+      MetricsHelper.incrementProbeFailure(e);
+      eventListener.probeFailed(e, System.nanoTime());
+      if (emitter == null || !emitter.isDisposed()) {
+        errorHandler.handleError(e, "Could not establish connection with WalledGardenStrategy");
+      }
       return Boolean.FALSE;
     } finally {
-      if (urlConnection != null) {
-        urlConnection.disconnect();
+      MetricsHelper.recordSince(MetricsListener.Timer.PROBE, startTime);
+      if (call != null) {
+        call.cancel();
+      }
+      eventListener.probeClosed(isConnected, System.nanoTime());
+    }
+  }
+
+  private Cancellable createCancellable(final HttpTransport.Call call) {
+    return new Cancellable() {
+      @Override public void cancel() {
+        call.cancel();
       }
+    };
+  }
+
+  /**
+   * Creates call performing a single probe. When no custom transport was passed
+   * to the constructor, HttpURLConnection is used.
+   *
+   * @param host with protocol and path
+   * @param port to connect
+   * @param timeoutInMs for connecting and reading the response
+   * @return HttpTransport.Call
+   * @throws IOException when call cannot be created
+   */
+  protected HttpTransport.Call newCall(final String host, final int port, final int timeoutInMs)
+      throws IOException {
+    if (transport != null) {
+      return transport.newCall(host, port, timeoutInMs);
+    }
+
+    if (host.startsWith(HTTPS_PROTOCOL)) {
+      return DEFAULT_TRANSPORT.newCall(createHttpsUrlConnection(host, port, timeoutInMs));
+    } else {
+      return DEFAULT_TRANSPORT.newCall(createHttpUrlConnection(host, port, timeoutInMs));
     }
   }
 
   protected HttpURLConnection createHttpUrlConnection(final String host, final int port,
       final int timeoutInMs) throws IOException {
-    URL initialUrl = new URL(host);
-    URL url = new URL(initialUrl.getProtocol(), initialUrl.getHost(), port, initialUrl.getFile());
-    HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-    urlConnection.setConnectTimeout(timeoutInMs);
-    urlConnection.setReadTimeout(timeoutInMs);
-    urlConnection.setInstanceFollowRedirects(false);
-    urlConnection.setUseCaches(false);
-    return urlConnection;
+    return DEFAULT_TRANSPORT.openConnection(host, port, timeoutInMs);
   }
 
   protected HttpsURLConnection createHttpsUrlConnection(final String host, final int port,
       final int timeoutInMs) throws IOException {
-    URL initialUrl = new URL(host);
-    URL url = new URL(initialUrl.getProtocol(), initialUrl.getHost(), port, initialUrl.getFile());
-    HttpsURLConnection urlConnection = (HttpsURLConnection) url.openConnection();
-    urlConnection.setConnectTimeout(timeoutInMs);
-    urlConnection.setReadTimeout(timeoutInMs);
-    urlConnection.setInstanceFollowRedirects(false);
-    urlConnection.setUseCaches(false);
-    return urlConnection;
+    return (HttpsURLConnection) DEFAULT_TRANSPORT.openConnection(host, port, timeoutInMs);
   }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.metrics;
+
+import com.jakewharton.nopen.annotation.Open;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics listener, which accumulates counters and latency histograms in memory.
+ * Accumulation is lock-free and allocation-free, so it can be used on hot paths.
+ * Values can be read at any moment and exported to an external telemetry system.
+ */
+@Open public class AccumulatingMetricsListener implements MetricsListener {
+  private static final long[] BUCKET_UPPER_BOUNDS_IN_MS = {
+      1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE
+  };
+
+  private final AtomicLongArray counters;
+  private final AtomicLongArray histograms;
+  private final AtomicLongArray totalDurations;
+
+  public AccumulatingMetricsListener() {
+    this.counters = new AtomicLongArray(Counter.values().length);
+    this.histograms =
+        new AtomicLongArray(Timer.values().length * BUCKET_UPPER_BOUNDS_IN_MS.length);
+    this.totalDurations = new AtomicLongArray(Timer.values().length);
+  }
+
+  @Override public void increment(final Counter counter) {
+    counters.incrementAndGet(counter.ordinal());
+  }
+
+  @Override public void record(final Timer timer, final long durationInNanos) {
+    final long durationInMs = TimeUnit.NANOSECONDS.toMillis(durationInNanos);
+    final int offset = timer.ordinal() * BUCKET_UPPER_BOUNDS_IN_MS.length;
+    histograms.incrementAndGet(offset + bucketIndex(durationInMs));
+    totalDurations.addAndGet(timer.ordinal(), durationInNanos);
+  }
+
+  /**
+   * Returns index of the histogram bucket for a given duration
+   *
+   * @param durationInMs duration in milliseconds
+   * @return index of the bucket with the smallest upper bound greater or equal to the duration
+   */
+  protected int bucketIndex(final long durationInMs) {
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_IN_MS.length; i++) {
+      if (durationInMs <= BUCKET_UPPER_BOUNDS_IN_MS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_UPPER_BOUNDS_IN_MS.length - 1;
+  }
+
+  /**
+   * @param counter to be read
+   * @return current value of the counter
+   */
+  public long count(final Counter counter) {
+    return counters.get(counter.ordinal());
+  }
+
+  /**
+   * @param timer to be read
+   * @return number of recorded durations for a given timer
+   */
+  public long count(final Timer timer) {
+    long count = 0;
+    final int offset = timer.ordinal() * BUCKET_UPPER_BOUNDS_IN_MS.length;
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_IN_MS.length; i++) {
+      count += histograms.get(offset + i);
+    }
+    return count;
+  }
+
+  /**
+   * @param timer to be read
+   * @return sum of all recorded durations for a given timer in nanoseconds
+   */
+  public long totalDurationInNanos(final Timer timer) {
+    return totalDurations.get(timer.ordinal());
+  }
+
+  /**
+   * Copies histogram of a given timer. Value at a given index is a number of durations
+   * lower or equal to the upper bound at the same index in {@link #bucketUpperBoundsInMs()}
+   * and greater than the previous bound.
+   *
+   * @param timer to be read
+   * @return copy of the histogram buckets
+   */
+  public long[] histogram(final Timer timer) {
+    final long[] buckets = new long[BUCKET_UPPER_BOUNDS_IN_MS.length];
+    final int offset = timer.ordinal() * BUCKET_UPPER_BOUNDS_IN_MS.length;
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = histograms.get(offset + i);
+    }
+    return buckets;
+  }
+
+  /**
+   * @return copy of upper bounds of the histogram buckets in milliseconds
+   */
+  public long[] bucketUpperBoundsInMs() {
+    return BUCKET_UPPER_BOUNDS_IN_MS.clone();
+  }
+
+  /**
+   * Resets all counters and histograms to zero
+   */
+  public void reset() {
+    for (int i = 0; i < counters.length(); i++) {
+      counters.set(i, 0);
+    }
+    for (int i = 0; i < histograms.length(); i++) {
+      histograms.set(i, 0);
+    }
+    for (int i = 0; i < totalDurations.length(); i++) {
+      totalDurations.set(i, 0);
+    }
+  }
+}
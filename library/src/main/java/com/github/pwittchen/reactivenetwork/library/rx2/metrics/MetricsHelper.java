@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.metrics;
+
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import io.reactivex.functions.BiPredicate;
+import io.reactivex.functions.Consumer;
+import java.net.SocketTimeoutException;
+
+/**
+ * Holds process-wide metrics listener and provides methods used by the library
+ * for reporting metrics. When no listener is set, reporting is reduced to a call
+ * of an empty method and time is not measured at all.
+ */
+public final class MetricsHelper {
+  private static final MetricsListener NO_OP_LISTENER = new NoOpMetricsListener();
+  private static final long NOT_MEASURED = 0L;
+
+  private static final BiPredicate<Object, Object> DUPLICATE_FILTER =
+      new BiPredicate<Object, Object>() {
+        @Override public boolean test(final Object previous, final Object current) {
+          final boolean isDuplicate = previous.equals(current);
+          if (isDuplicate) {
+            increment(MetricsListener.Counter.DUPLICATE_DROPPED);
+          }
+          return isDuplicate;
+        }
+      };
+
+  private static final Consumer<Object> EMISSION_COUNTER = new Consumer<Object>() {
+    @Override public void accept(final Object value) {
+      increment(MetricsListener.Counter.EVENT_EMITTED);
+    }
+  };
+
+  private static volatile MetricsListener listener = NO_OP_LISTENER;
+
+  private MetricsHelper() {
+  }
+
+  /**
+   * Sets process-wide metrics listener
+   *
+   * @param metricsListener to be used, {@link NoOpMetricsListener} disables metrics
+   */
+  public static void setListener(final MetricsListener metricsListener) {
+    Preconditions.checkNotNull(metricsListener, "metricsListener == null");
+    listener = metricsListener instanceof NoOpMetricsListener ? NO_OP_LISTENER : metricsListener;
+  }
+
+  /**
+   * @return currently used metrics listener
+   */
+  public static MetricsListener listener() {
+    return listener;
+  }
+
+  /**
+   * @return true if metrics listener other than the no-op one is set
+   */
+  public static boolean isEnabled() {
+    return listener != NO_OP_LISTENER;
+  }
+
+  /**
+   * Increments given counter in the current listener
+   *
+   * @param counter to be incremented
+   */
+  public static void increment(final MetricsListener.Counter counter) {
+    listener.increment(counter);
+  }
+
+  /**
+   * Increments probe failure counter and probe timeout counter when the failure
+   * was caused by exceeding the timeout
+   *
+   * @param exception which caused the failure
+   */
+  public static void incrementProbeFailure(final Exception exception) {
+    increment(MetricsListener.Counter.PROBE_FAILURE);
+    if (exception instanceof SocketTimeoutException) {
+      increment(MetricsListener.Counter.PROBE_TIMEOUT);
+    }
+  }
+
+  /**
+   * Starts time measurement
+   *
+   * @return start time in nanoseconds or zero when metrics are disabled
+   */
+  public static long startTime() {
+    return isEnabled() ? System.nanoTime() : NOT_MEASURED;
+  }
+
+  /**
+   * Records time elapsed since the start time returned by {@link #startTime()}
+   *
+   * @param timer identifying measured operation
+   * @param startTime returned by {@link #startTime()}
+   */
+  public static void recordSince(final MetricsListener.Timer timer, final long startTime) {
+    if (startTime != NOT_MEASURED) {
+      listener.record(timer, System.nanoTime() - startTime);
+    }
+  }
+
+  /**
+   * Comparer for distinctUntilChanged operator, which counts dropped duplicates
+   *
+   * @return predicate returning true when two consecutive values are equal
+   */
+  public static BiPredicate<Object, Object> duplicateFilter() {
+    return DUPLICATE_FILTER;
+  }
+
+  /**
+   * Consumer for doOnNext operator, which counts emitted events
+   *
+   * @return consumer incrementing {@link MetricsListener.Counter#EVENT_EMITTED} counter
+   */
+  public static Consumer<Object> emissionCounter() {
+    return EMISSION_COUNTER;
+  }
+}
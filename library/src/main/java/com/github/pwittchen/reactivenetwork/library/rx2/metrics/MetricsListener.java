@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.metrics;
+
+/**
+ * Metrics listener receives counters and latencies reported by the library, so they can be
+ * exported to an external telemetry system. Methods are called on the thread, which performed
+ * the measured operation, so implementations have to be thread-safe and should not block.
+ */
+public interface MetricsListener {
+  /**
+   * Increments given counter by one
+   *
+   * @param counter to be incremented
+   */
+  void increment(final Counter counter);
+
+  /**
+   * Records duration of the measured operation
+   *
+   * @param timer identifying measured operation
+   * @param durationInNanos duration of the operation in nanoseconds
+   */
+  void record(final Timer timer, final long durationInNanos);
+
+  /**
+   * Counters reported by the library
+   */
+  enum Counter {
+    /** Internet connectivity check performed by an internet observing strategy */
+    PROBE,
+    /** Internet connectivity check, which failed with an exception */
+    PROBE_FAILURE,
+    /** Internet connectivity check, which exceeded its timeout */
+    PROBE_TIMEOUT,
+    /** Network callback or broadcast receiver registered by a network observing strategy */
+    CALLBACK_REGISTERED,
+    /** Network callback or broadcast receiver unregistered by a network observing strategy */
+    CALLBACK_UNREGISTERED,
+    /** Value emitted to subscribers by a network observing strategy */
+    EVENT_EMITTED,
+    /** Value dropped, because it was equal to the previous one */
+    DUPLICATE_DROPPED,
+    /** Error handled by a network observing strategy */
+    ERROR,
+    /** Network info reused instead of querying the ConnectivityManager again */
+    NETWORK_INFO_REUSED
+  }
+
+  /**
+   * Latencies reported by the library
+   */
+  enum Timer {
+    /** Duration of the internet connectivity check */
+    PROBE,
+    /** Duration of reading active network info from the ConnectivityManager */
+    CONNECTIVITY_CREATE
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import androidx.annotation.Nullable;
+
+/**
+ * Holds the library-owned background thread, which can be used by network observing strategies
+ * for receiving network callbacks and broadcasts instead of the main thread. Thread is started
+ * lazily, when its handler is requested for the first time, and it lives as long as the process.
+ */
+public final class CallbackThreadHelper {
+  private static final String THREAD_NAME = "ReactiveNetwork-callbacks";
+  @Nullable private static volatile Handler handler;
+
+  private CallbackThreadHelper() {
+  }
+
+  /**
+   * @return handler of the library-owned background thread
+   */
+  public static Handler getHandler() {
+    Handler currentHandler = handler;
+    if (currentHandler == null) {
+      synchronized (CallbackThreadHelper.class) {
+        currentHandler = handler;
+        if (currentHandler == null) {
+          final HandlerThread thread =
+              new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+          thread.start();
+          currentHandler = new Handler(thread.getLooper());
+          handler = currentHandler;
+        }
+      }
+    }
+    return currentHandler;
+  }
+}
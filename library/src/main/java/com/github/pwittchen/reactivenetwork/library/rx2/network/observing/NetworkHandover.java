@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing;
+
+import android.net.Network;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+
+/**
+ * NetworkHandover class represents a network, which is about to be lost, because the system
+ * is switching to a better one. It's emitted before the network is lost, so connections
+ * can be moved to the replacement network in advance.
+ */
+public final class NetworkHandover {
+  private final Network losingNetwork;
+  private final int maxMsToLive;
+  @Nullable private final Network replacementNetwork;
+
+  /**
+   * Creates handover event
+   *
+   * @param losingNetwork network, which is about to be lost
+   * @param maxMsToLive time in milliseconds, after which the system will try to tear down
+   * the losing network
+   * @param replacementNetwork network, which replaces the losing one or null if it's not known
+   */
+  public NetworkHandover(final Network losingNetwork, final int maxMsToLive,
+      @Nullable final Network replacementNetwork) {
+    Preconditions.checkNotNull(losingNetwork, "losingNetwork == null");
+    this.losingNetwork = losingNetwork;
+    this.maxMsToLive = maxMsToLive;
+    this.replacementNetwork = replacementNetwork;
+  }
+
+  /**
+   * @return network, which is about to be lost
+   */
+  public Network losingNetwork() {
+    return losingNetwork;
+  }
+
+  /**
+   * @return time in milliseconds, after which the system will try to tear down
+   * the losing network
+   */
+  public int maxMsToLive() {
+    return maxMsToLive;
+  }
+
+  /**
+   * @return network, which replaces the losing one or null if it's not known
+   */
+  @Nullable public Network replacementNetwork() {
+    return replacementNetwork;
+  }
+
+  @Override public boolean equals(@Nullable final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final NetworkHandover that = (NetworkHandover) o;
+    if (maxMsToLive != that.maxMsToLive) {
+      return false;
+    }
+    if (!losingNetwork.equals(that.losingNetwork)) {
+      return false;
+    }
+    return replacementNetwork != null ? replacementNetwork.equals(that.replacementNetwork)
+        : that.replacementNetwork == null;
+  }
+
+  @Override public int hashCode() {
+    int result = losingNetwork.hashCode();
+    result = 31 * result + maxMsToLive;
+    result = 31 * result + (replacementNetwork != null ? replacementNetwork.hashCode() : 0);
+    return result;
+  }
+
+  @Override public String toString() {
+    return "NetworkHandover{"
+        + "losingNetwork="
+        + losingNetwork
+        + ", maxMsToLive="
+        + maxMsToLive
+        + ", replacementNetwork="
+        + replacementNetwork
+        + '}';
+  }
+}
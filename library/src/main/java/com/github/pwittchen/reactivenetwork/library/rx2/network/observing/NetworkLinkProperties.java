@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing;
+
+import android.annotation.TargetApi;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.ProxyInfo;
+import android.net.RouteInfo;
+import android.os.Build;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * NetworkLinkProperties class represents properties of a link of a given network, which are
+ * useful for tuning connections, e.g. DNS servers, routes or MTU. Properties, which are not
+ * supported by the Android version installed on the device, have default values.
+ * It contains a bitmask of properties changed since the previous value for the same network.
+ */
+@TargetApi(21) public final class NetworkLinkProperties {
+  /** Name of the interface was changed */
+  public static final int FIELD_INTERFACE_NAME = 1;
+  /** DNS servers were changed */
+  public static final int FIELD_DNS_SERVERS = 1 << 1;
+  /** Routes were changed */
+  public static final int FIELD_ROUTES = 1 << 2;
+  /** MTU was changed, it's supported on Android 10 (API 29) or higher */
+  public static final int FIELD_MTU = 1 << 3;
+  /** Private DNS was changed, it's supported on Android 9 (API 28) or higher */
+  public static final int FIELD_PRIVATE_DNS = 1 << 4;
+  /** HTTP proxy was changed, it's supported on Android 6.0 (API 23) or higher */
+  public static final int FIELD_HTTP_PROXY = 1 << 5;
+  /** All fields, they're changed when properties of a network are observed for the first time */
+  public static final int ALL_FIELDS = (1 << 6) - 1;
+
+  private final Network network;
+  @Nullable private final String interfaceName;
+  private final List<InetAddress> dnsServers;
+  private final List<RouteInfo> routes;
+  private final int mtu;
+  private final boolean privateDnsActive;
+  @Nullable private final String privateDnsServerName;
+  @Nullable private final ProxyInfo httpProxy;
+  private final int changedFields;
+
+  private NetworkLinkProperties(final Network network, @Nullable final String interfaceName,
+      final List<InetAddress> dnsServers, final List<RouteInfo> routes, final int mtu,
+      final boolean privateDnsActive, @Nullable final String privateDnsServerName,
+      @Nullable final ProxyInfo httpProxy, @Nullable final NetworkLinkProperties previous) {
+    this.network = network;
+    this.interfaceName = interfaceName;
+    this.dnsServers = Collections.unmodifiableList(new ArrayList<>(dnsServers));
+    this.routes = Collections.unmodifiableList(new ArrayList<>(routes));
+    this.mtu = mtu;
+    this.privateDnsActive = privateDnsActive;
+    this.privateDnsServerName = privateDnsServerName;
+    this.httpProxy = httpProxy;
+    this.changedFields = previous == null ? ALL_FIELDS : changedFields(previous, this);
+  }
+
+  /**
+   * Creates properties of a given network
+   *
+   * @param network to which properties belong
+   * @param linkProperties received from the system
+   * @param previous properties of the same network or null if there are no previous properties
+   * @return NetworkLinkProperties with fields changed since the previous properties
+   */
+  public static NetworkLinkProperties create(final Network network,
+      final LinkProperties linkProperties, @Nullable final NetworkLinkProperties previous) {
+    Preconditions.checkNotNull(network, "network == null");
+    Preconditions.checkNotNull(linkProperties, "linkProperties == null");
+    final int sdk = Build.VERSION.SDK_INT;
+    return new NetworkLinkProperties(network,
+        linkProperties.getInterfaceName(),
+        linkProperties.getDnsServers(),
+        linkProperties.getRoutes(),
+        sdk >= Build.VERSION_CODES.Q ? linkProperties.getMtu() : 0,
+        sdk >= Build.VERSION_CODES.P && linkProperties.isPrivateDnsActive(),
+        sdk >= Build.VERSION_CODES.P ? linkProperties.getPrivateDnsServerName() : null,
+        sdk >= Build.VERSION_CODES.M ? linkProperties.getHttpProxy() : null,
+        previous);
+  }
+
+  /**
+   * Compares properties of the same network
+   *
+   * @param previous properties
+   * @param current properties
+   * @return bitmask of changed fields or zero, when no field was changed
+   */
+  public static int changedFields(final NetworkLinkProperties previous,
+      final NetworkLinkProperties current) {
+    int fields = 0;
+    if (!isEqual(previous.interfaceName, current.interfaceName)) {
+      fields |= FIELD_INTERFACE_NAME;
+    }
+    if (!previous.dnsServers.equals(current.dnsServers)) {
+      fields |= FIELD_DNS_SERVERS;
+    }
+    if (!previous.routes.equals(current.routes)) {
+      fields |= FIELD_ROUTES;
+    }
+    if (previous.mtu != current.mtu) {
+      fields |= FIELD_MTU;
+    }
+    if (previous.privateDnsActive != current.privateDnsActive
+        || !isEqual(previous.privateDnsServerName, current.privateDnsServerName)) {
+      fields |= FIELD_PRIVATE_DNS;
+    }
+    if (!isEqual(previous.httpProxy, current.httpProxy)) {
+      fields |= FIELD_HTTP_PROXY;
+    }
+    return fields;
+  }
+
+  private static boolean isEqual(@Nullable final Object first, @Nullable final Object second) {
+    return first != null ? first.equals(second) : second == null;
+  }
+
+  /**
+   * @return network to which properties belong
+   */
+  public Network network() {
+    return network;
+  }
+
+  /**
+   * @return name of the interface, e.g. wlan0 or null if it's not known
+   */
+  @Nullable public String interfaceName() {
+    return interfaceName;
+  }
+
+  /**
+   * @return DNS servers used by the network
+   */
+  public List<InetAddress> dnsServers() {
+    return dnsServers;
+  }
+
+  /**
+   * @return routes of the network
+   */
+  public List<RouteInfo> routes() {
+    return routes;
+  }
+
+  /**
+   * @return MTU in bytes or zero, when it's not known or not supported
+   */
+  public int mtu() {
+    return mtu;
+  }
+
+  /**
+   * @return true if private DNS is active, it's always false below Android 9 (API 28)
+   */
+  public boolean privateDnsActive() {
+    return privateDnsActive;
+  }
+
+  /**
+   * @return name of the private DNS server or null, when it's not set or not supported
+   */
+  @Nullable public String privateDnsServerName() {
+    return privateDnsServerName;
+  }
+
+  /**
+   * @return HTTP proxy or null, when it's not set or not supported
+   */
+  @Nullable public ProxyInfo httpProxy() {
+    return httpProxy;
+  }
+
+  /**
+   * @return bitmask of fields changed since the previous properties of the same network
+   */
+  public int changedFields() {
+    return changedFields;
+  }
+
+  /**
+   * Checks if any of given fields was changed
+   *
+   * @param fields bitmask of fields, e.g. {@link #FIELD_DNS_SERVERS}
+   * @return true if at least one of given fields was changed
+   */
+  public boolean hasChanged(final int fields) {
+    return (changedFields & fields) != 0;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    NetworkLinkProperties that = (NetworkLinkProperties) o;
+
+    if (mtu != that.mtu) {
+      return false;
+    }
+    if (privateDnsActive != that.privateDnsActive) {
+      return false;
+    }
+    if (changedFields != that.changedFields) {
+      return false;
+    }
+    if (!network.equals(that.network)) {
+      return false;
+    }
+    if (interfaceName != null ? !interfaceName.equals(that.interfaceName)
+        : that.interfaceName != null) {
+      return false;
+    }
+    if (!dnsServers.equals(that.dnsServers)) {
+      return false;
+    }
+    if (!routes.equals(that.routes)) {
+      return false;
+    }
+    if (privateDnsServerName != null ? !privateDnsServerName.equals(that.privateDnsServerName)
+        : that.privateDnsServerName != null) {
+      return false;
+    }
+
+    return httpProxy != null ? httpProxy.equals(that.httpProxy) : that.httpProxy == null;
+  }
+
+  @Override public int hashCode() {
+    int result = network.hashCode();
+    result = 31 * result + (interfaceName != null ? interfaceName.hashCode() : 0);
+    result = 31 * result + dnsServers.hashCode();
+    result = 31 * result + routes.hashCode();
+    result = 31 * result + mtu;
+    result = 31 * result + (privateDnsActive ? 1 : 0);
+    result = 31 * result + (privateDnsServerName != null ? privateDnsServerName.hashCode() : 0);
+    result = 31 * result + (httpProxy != null ? httpProxy.hashCode() : 0);
+    result = 31 * result + changedFields;
+    return result;
+  }
+
+  @Override public String toString() {
+    return "NetworkLinkProperties{"
+        + "network="
+        + network
+        + ", interfaceName='"
+        + interfaceName
+        + '\''
+        + ", dnsServers="
+        + dnsServers
+        + ", routes="
+        + routes
+        + ", mtu="
+        + mtu
+        + ", privateDnsActive="
+        + privateDnsActive
+        + ", privateDnsServerName='"
+        + privateDnsServerName
+        + '\''
+        + ", httpProxy="
+        + httpProxy
+        + ", changedFields="
+        + Integer.toBinaryString(changedFields)
+        + '}';
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing;
+
+import android.annotation.TargetApi;
+import android.net.NetworkRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contains transport types and capabilities of networks, which should be observed.
+ * They're passed to the system, when network callback is registered, so changes of other
+ * networks are filtered out by the system and don't wake up the app.
+ * We should use its Builder for creating new settings
+ */
+@SuppressWarnings("PMD") // I want to have the same method names as variable names on purpose
+public final class NetworkObservingSettings {
+  private final int[] transportTypes;
+  private final int[] capabilities;
+  private final int[] removedCapabilities;
+
+  private NetworkObservingSettings(Builder builder) {
+    this.transportTypes = toArray(builder.transportTypes);
+    this.capabilities = toArray(builder.capabilities);
+    this.removedCapabilities = toArray(builder.removedCapabilities);
+  }
+
+  /**
+   * @return settings without any transport types and capabilities, which match all networks
+   * matched by a default {@link NetworkRequest}
+   */
+  public static NetworkObservingSettings create() {
+    return new Builder().build();
+  }
+
+  /**
+   * Creates builder object
+   * @return Builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return transport types, e.g. {@code NetworkCapabilities.TRANSPORT_WIFI}
+   */
+  public int[] transportTypes() {
+    return transportTypes.clone();
+  }
+
+  /**
+   * @return capabilities required from networks, e.g.
+   * {@code NetworkCapabilities.NET_CAPABILITY_INTERNET}
+   */
+  public int[] capabilities() {
+    return capabilities.clone();
+  }
+
+  /**
+   * @return capabilities removed from the default ones, e.g.
+   * {@code NetworkCapabilities.NET_CAPABILITY_NOT_VPN}
+   */
+  public int[] removedCapabilities() {
+    return removedCapabilities.clone();
+  }
+
+  /**
+   * Creates network request, which should be passed to the system
+   *
+   * @return NetworkRequest
+   */
+  @TargetApi(21) public NetworkRequest createNetworkRequest() {
+    final NetworkRequest.Builder builder = new NetworkRequest.Builder();
+    for (int transportType : transportTypes) {
+      builder.addTransportType(transportType);
+    }
+    for (int capability : capabilities) {
+      builder.addCapability(capability);
+    }
+    for (int capability : removedCapabilities) {
+      builder.removeCapability(capability);
+    }
+    return builder.build();
+  }
+
+  private static int[] toArray(final List<Integer> values) {
+    final int[] result = new int[values.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = values.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * Settings builder. When many transport types are added, networks using any of them
+   * are observed. When many capabilities are added, networks having all of them are observed.
+   */
+  public final static class Builder {
+    private final List<Integer> transportTypes = new ArrayList<>();
+    private final List<Integer> capabilities = new ArrayList<>();
+    private final List<Integer> removedCapabilities = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * adds transport type of observed networks
+     *
+     * @param transportType e.g. {@code NetworkCapabilities.TRANSPORT_WIFI}
+     * @return Builder
+     */
+    public Builder addTransportType(int transportType) {
+      transportTypes.add(transportType);
+      return this;
+    }
+
+    /**
+     * adds capability required from observed networks
+     *
+     * @param capability e.g. {@code NetworkCapabilities.NET_CAPABILITY_INTERNET}
+     * @return Builder
+     */
+    public Builder addCapability(int capability) {
+      capabilities.add(capability);
+      return this;
+    }
+
+    /**
+     * removes capability, which is required by default, e.g.
+     * {@code NetworkCapabilities.NET_CAPABILITY_NOT_VPN} to observe VPN networks too
+     *
+     * @param capability to be removed
+     * @return Builder
+     */
+    public Builder removeCapability(int capability) {
+      removedCapabilities.add(capability);
+      return this;
+    }
+
+    public NetworkObservingSettings build() {
+      return new NetworkObservingSettings(this);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.net.NetworkInfo;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Operator, which emits every connectivity and additionally re-emits the previous connectivity
+ * when the device switched from one connected network type to another one and the current
+ * connectivity is disconnected. It keeps the previous connectivity in its observer, so it emits
+ * one or two values per event without creating inner publishers.
+ */
+final class ConnectedStatePropagator implements ObservableOperator<Connectivity, Connectivity> {
+
+  static boolean shouldPropagateLast(final Connectivity last, final Connectivity current) {
+    final boolean typeChanged = last.type() != current.type();
+    final boolean wasConnected = last.state() == NetworkInfo.State.CONNECTED;
+    final boolean isDisconnected = current.state() == NetworkInfo.State.DISCONNECTED;
+    final boolean isNotIdle = current.detailedState() != NetworkInfo.DetailedState.IDLE;
+    return typeChanged && wasConnected && isDisconnected && isNotIdle;
+  }
+
+  @Override public Observer<? super Connectivity> apply(
+      final Observer<? super Connectivity> observer) {
+    return new PropagatingObserver(observer);
+  }
+
+  private static final class PropagatingObserver implements Observer<Connectivity>, Disposable {
+    private final Observer<? super Connectivity> downstream;
+    @Nullable private Disposable upstream;
+    private Connectivity last = Connectivity.create();
+
+    private PropagatingObserver(final Observer<? super Connectivity> downstream) {
+      this.downstream = downstream;
+    }
+
+    @Override public void onSubscribe(final Disposable disposable) {
+      upstream = disposable;
+      downstream.onSubscribe(this);
+    }
+
+    @Override public void onNext(final Connectivity current) {
+      final Connectivity previous = last;
+      last = current;
+      downstream.onNext(current);
+      if (shouldPropagateLast(previous, current)) {
+        downstream.onNext(previous);
+      }
+    }
+
+    @Override public void onError(final Throwable throwable) {
+      downstream.onError(throwable);
+    }
+
+    @Override public void onComplete() {
+      downstream.onComplete();
+    }
+
+    @Override public void dispose() {
+      final Disposable disposable = upstream;
+      if (disposable != null) {
+        disposable.dispose();
+      }
+    }
+
+    @Override public boolean isDisposed() {
+      final Disposable disposable = upstream;
+      return disposable != null && disposable.isDisposed();
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.annotation.TargetApi;
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.Handler;
+import androidx.annotation.Nullable;
+
+/**
+ * Network callback, which forwards all events to another callback on a given handler.
+ * It's used on devices, which don't support registering network callbacks with a handler.
+ */
+@TargetApi(21) final class HandlerNetworkCallback extends NetworkCallback {
+  private final NetworkCallback delegate;
+  private final Handler handler;
+
+  private HandlerNetworkCallback(final NetworkCallback delegate, final Handler handler) {
+    this.delegate = delegate;
+    this.handler = handler;
+  }
+
+  /**
+   * Registers network callback, which is invoked on a given handler or on the default thread
+   * when handler is null
+   *
+   * @return callback, which was registered and which should be unregistered later
+   */
+  static NetworkCallback register(final ConnectivityManager manager, final NetworkRequest request,
+      final NetworkCallback callback, @Nullable final Handler handler) {
+    if (handler == null) {
+      manager.registerNetworkCallback(request, callback);
+      return callback;
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      manager.registerNetworkCallback(request, callback, handler);
+      return callback;
+    }
+    final NetworkCallback handlerCallback = new HandlerNetworkCallback(callback, handler);
+    manager.registerNetworkCallback(request, handlerCallback);
+    return handlerCallback;
+  }
+
+  /**
+   * Registers network callback, which tracks the default network of the system and which is invoked
+   * on a given handler or on the default thread when handler is null
+   *
+   * @return callback, which was registered and which should be unregistered later
+   */
+  @TargetApi(24) static NetworkCallback registerDefault(final ConnectivityManager manager,
+      final NetworkCallback callback, @Nullable final Handler handler) {
+    if (handler == null) {
+      manager.registerDefaultNetworkCallback(callback);
+      return callback;
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      manager.registerDefaultNetworkCallback(callback, handler);
+      return callback;
+    }
+    final NetworkCallback handlerCallback = new HandlerNetworkCallback(callback, handler);
+    manager.registerDefaultNetworkCallback(handlerCallback);
+    return handlerCallback;
+  }
+
+  /**
+   * Requests network, which satisfies a given request, and registers network callback for it,
+   * which is invoked on a given handler or on the default thread when handler is null.
+   * Network is held by the system, until the callback is unregistered.
+   *
+   * @return callback, which was registered and which should be unregistered later
+   */
+  static NetworkCallback request(final ConnectivityManager manager, final NetworkRequest request,
+      final NetworkCallback callback, @Nullable final Handler handler) {
+    if (handler == null) {
+      manager.requestNetwork(request, callback);
+      return callback;
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      manager.requestNetwork(request, callback, handler);
+      return callback;
+    }
+    final NetworkCallback handlerCallback = new HandlerNetworkCallback(callback, handler);
+    manager.requestNetwork(request, handlerCallback);
+    return handlerCallback;
+  }
+
+  /**
+   * Requests network in the same way as
+   * {@link #request(ConnectivityManager, NetworkRequest, NetworkCallback, Handler)},
+   * but callback is notified with {@link NetworkCallback#onUnavailable()}, when no network
+   * satisfying the request is found within a given timeout
+   *
+   * @return callback, which was registered and which should be unregistered later
+   */
+  @TargetApi(26) static NetworkCallback request(final ConnectivityManager manager,
+      final NetworkRequest request, final NetworkCallback callback,
+      @Nullable final Handler handler, final int timeoutInMs) {
+    if (handler == null) {
+      manager.requestNetwork(request, callback, timeoutInMs);
+    } else {
+      manager.requestNetwork(request, callback, handler, timeoutInMs);
+    }
+    return callback;
+  }
+
+  @Override public void onAvailable(final Network network) {
+    handler.post(new Runnable() {
+      @Override public void run() {
+        delegate.onAvailable(network);
+      }
+    });
+  }
+
+  @Override public void onLosing(final Network network, final int maxMsToLive) {
+    handler.post(new Runnable() {
+      @Override public void run() {
+        delegate.onLosing(network, maxMsToLive);
+      }
+    });
+  }
+
+  @Override public void onLost(final Network network) {
+    handler.post(new Runnable() {
+      @Override public void run() {
+        delegate.onLost(network);
+      }
+    });
+  }
+
+  @Override public void onUnavailable() {
+    handler.post(new Runnable() {
+      @Override public void run() {
+        delegate.onUnavailable();
+      }
+    });
+  }
+
+  @Override public void onCapabilitiesChanged(final Network network,
+      final NetworkCapabilities networkCapabilities) {
+    handler.post(new Runnable() {
+      @Override public void run() {
+        delegate.onCapabilitiesChanged(network, networkCapabilities);
+      }
+    });
+  }
+
+  @Override public void onLinkPropertiesChanged(final Network network,
+      final LinkProperties linkProperties) {
+    handler.post(new Runnable() {
+      @Override public void run() {
+        delegate.onLinkPropertiesChanged(network, linkProperties);
+      }
+    });
+  }
+}
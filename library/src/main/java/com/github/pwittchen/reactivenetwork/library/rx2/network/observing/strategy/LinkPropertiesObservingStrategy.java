@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.os.Handler;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkLinkProperties;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Observes link properties of networks for devices with Android Lollipop (API 21) or higher.
+ * Emits {@link NetworkLinkProperties}, when the system notifies about changed properties
+ * with {@link NetworkCallback#onLinkPropertiesChanged(Network, LinkProperties)}, but only when
+ * at least one of properties exposed by {@link NetworkLinkProperties} was changed since
+ * the previous notification for the same network. By default, networks with the Internet
+ * capability, which are not restricted, are observed. System services are not touched
+ * until subscription.
+ */
+@Open @TargetApi(21) public class LinkPropertiesObservingStrategy
+    extends NetworkCallbackStrategy<NetworkLinkProperties> {
+
+  public LinkPropertiesObservingStrategy() {
+    this(null, null);
+  }
+
+  /**
+   * Creates strategy, which observes only networks with transport types and capabilities
+   * given in settings
+   *
+   * @param settings of observed networks
+   */
+  public LinkPropertiesObservingStrategy(final NetworkObservingSettings settings) {
+    this(settings, null);
+    Preconditions.checkNotNull(settings, "settings == null");
+  }
+
+  /**
+   * Creates strategy with the given settings of observed networks and threading options
+   *
+   * @param settings of observed networks or null for networks with the Internet capability,
+   * which are not restricted
+   * @param callbackHandler handler, on which network callback is invoked
+   * or null for the default thread
+   */
+  public LinkPropertiesObservingStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Handler callbackHandler) {
+    super(settings, callbackHandler);
+  }
+
+  /**
+   * Observes link properties of networks
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with NetworkLinkProperties
+   */
+  public Observable<NetworkLinkProperties> observeLinkProperties(final Context context) {
+    return observeNetworkCallback(context);
+  }
+
+  @Override protected NetworkCallback createNetworkCallback(
+      final ObservableEmitter<NetworkLinkProperties> emitter, final ConnectivityManager manager) {
+    return new NetworkCallback() {
+      private final Map<Network, NetworkLinkProperties> lastProperties = new HashMap<>();
+
+      @Override public void onLinkPropertiesChanged(final Network network,
+          final LinkProperties linkProperties) {
+        final NetworkLinkProperties properties = NetworkLinkProperties.create(network,
+            linkProperties, lastProperties.get(network));
+        lastProperties.put(network, properties);
+        if (properties.changedFields() != 0) {
+          emitter.onNext(properties);
+        }
+      }
+
+      @Override public void onLost(final Network network) {
+        lastProperties.remove(network);
+      }
+    };
+  }
+}
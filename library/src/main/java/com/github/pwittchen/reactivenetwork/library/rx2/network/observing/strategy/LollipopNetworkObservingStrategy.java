@@ -21,52 +21,152 @@ import android.net.ConnectivityManager;
 import android.net.ConnectivityManager.NetworkCallback;
 import android.net.Network;
 import android.net.NetworkRequest;
+import android.os.Handler;
 import android.util.Log;
+import androidx.annotation.Nullable;
 import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy;
 import com.jakewharton.nopen.annotation.Open;
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
-import io.reactivex.functions.Action;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Cancellable;
+import java.util.concurrent.Callable;
 
 import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.LOG_TAG;
 
 /**
  * Network observing strategy for devices with Android Lollipop (API 21) or higher.
- * Uses Network Callback API.
+ * Uses Network Callback API. System services are not touched until subscription.
+ * Network callback can be invoked on a given handler instead of the default thread.
+ * All networks are observed, unless {@link NetworkObservingSettings} are given.
+ * In such case, observing starts with connectivity of a connected network matching the settings
+ * and connectivity of the network passed to the callback is emitted instead of the active one,
+ * so networks not matching the settings are never emitted.
  */
 @Open @TargetApi(21) public class LollipopNetworkObservingStrategy
     implements NetworkObservingStrategy {
-  @SuppressWarnings("NullAway") // it has to be initialized in the Observable due to Context
-  private NetworkCallback networkCallback;
+  @Nullable private final Scheduler initialConnectivityScheduler;
+  @Nullable private final Handler callbackHandler;
+  @Nullable private final NetworkObservingSettings settings;
 
-  @Override public Observable<Connectivity> observeNetworkConnectivity(final Context context) {
-    final String service = Context.CONNECTIVITY_SERVICE;
-    final ConnectivityManager manager = (ConnectivityManager) context.getSystemService(service);
+  public LollipopNetworkObservingStrategy() {
+    this(null, null);
+  }
+
+  /**
+   * Creates strategy, which observes only networks with transport types and capabilities
+   * given in settings
+   *
+   * @param settings of observed networks
+   */
+  public LollipopNetworkObservingStrategy(final NetworkObservingSettings settings) {
+    this(settings, null, null);
+    Preconditions.checkNotNull(settings, "settings == null");
+  }
+
+  /**
+   * Creates strategy, which reads the initial connectivity and registers the network callback
+   * on a given scheduler instead of the thread, which subscribes
+   *
+   * @param initialConnectivityScheduler scheduler, e.g. {@code Schedulers.io()}
+   */
+  public LollipopNetworkObservingStrategy(final Scheduler initialConnectivityScheduler) {
+    this(initialConnectivityScheduler, null);
+    Preconditions.checkNotNull(initialConnectivityScheduler,
+        "initialConnectivityScheduler == null");
+  }
+
+  /**
+   * Creates strategy with the given threading options
+   *
+   * @param initialConnectivityScheduler scheduler for reading the initial connectivity
+   * and registering the network callback or null for the thread, which subscribes
+   * @param callbackHandler handler, on which network callback is invoked, e.g.
+   * {@code CallbackThreadHelper.getHandler()}
+   * or null for the default thread
+   */
+  public LollipopNetworkObservingStrategy(@Nullable final Scheduler initialConnectivityScheduler,
+      @Nullable final Handler callbackHandler) {
+    this(null, initialConnectivityScheduler, callbackHandler);
+  }
 
+  /**
+   * Creates strategy with the given settings of observed networks and threading options
+   *
+   * @param settings of observed networks or null for all networks
+   * @param initialConnectivityScheduler scheduler for reading the initial connectivity
+   * and registering the network callback or null for the thread, which subscribes
+   * @param callbackHandler handler, on which network callback is invoked
+   * or null for the default thread
+   */
+  public LollipopNetworkObservingStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Scheduler initialConnectivityScheduler,
+      @Nullable final Handler callbackHandler) {
+    this.settings = settings;
+    this.initialConnectivityScheduler = initialConnectivityScheduler;
+    this.callbackHandler = callbackHandler;
+  }
+
+  @Override public Observable<Connectivity> observeNetworkConnectivity(final Context context) {
     return Observable.create(new ObservableOnSubscribe<Connectivity>() {
       @Override public void subscribe(ObservableEmitter<Connectivity> subscriber) throws Exception {
-        networkCallback = createNetworkCallback(subscriber, context);
-        final NetworkRequest networkRequest = new NetworkRequest.Builder().build();
-        manager.registerNetworkCallback(networkRequest, networkCallback);
-      }
-    }).doOnDispose(new Action() {
-      @Override public void run() {
-        tryToUnregisterCallback(manager);
+        final String service = Context.CONNECTIVITY_SERVICE;
+        final ConnectivityManager manager =
+            (ConnectivityManager) context.getSystemService(service);
+        final NetworkRequest networkRequest = createNetworkRequest();
+        // callback is kept per subscription, so each subscription unregisters its own callback
+        final NetworkCallback networkCallback = HandlerNetworkCallback.register(manager,
+            networkRequest, createNetworkCallback(subscriber, context), callbackHandler);
+        MetricsHelper.increment(MetricsListener.Counter.CALLBACK_REGISTERED);
+        subscriber.setCancellable(new Cancellable() {
+          @Override public void cancel() {
+            tryToUnregisterCallback(manager, networkCallback);
+          }
+        });
       }
-    }).startWith(Connectivity.create(context)).distinctUntilChanged();
+    }).startWith(createInitialConnectivity(context))
+        .distinctUntilChanged(MetricsHelper.duplicateFilter())
+        .doOnNext(MetricsHelper.emissionCounter());
+  }
+
+  protected Observable<Connectivity> createInitialConnectivity(final Context context) {
+    final Observable<Connectivity> initialConnectivity =
+        Observable.fromCallable(new Callable<Connectivity>() {
+          @Override public Connectivity call() {
+            final NetworkObservingSettings currentSettings = settings;
+            return currentSettings != null
+                ? NetworkCallbackHelper.createMatchingConnectivity(context, currentSettings)
+                : Connectivity.create(context);
+          }
+        });
+    final Scheduler scheduler = initialConnectivityScheduler;
+    return scheduler == null ? initialConnectivity : initialConnectivity.subscribeOn(scheduler);
+  }
+
+  private NetworkRequest createNetworkRequest() {
+    final NetworkObservingSettings currentSettings = settings;
+    return currentSettings == null
+        ? new NetworkRequest.Builder().build() : currentSettings.createNetworkRequest();
   }
 
-  private void tryToUnregisterCallback(final ConnectivityManager manager) {
+  private void tryToUnregisterCallback(final ConnectivityManager manager,
+      final NetworkCallback networkCallback) {
     try {
       manager.unregisterNetworkCallback(networkCallback);
+      MetricsHelper.increment(MetricsListener.Counter.CALLBACK_UNREGISTERED);
     } catch (Exception exception) {
       onError("could not unregister network callback", exception);
     }
   }
 
   @Override public void onError(final String message, final Exception exception) {
+    MetricsHelper.increment(MetricsListener.Counter.ERROR);
     Log.e(LOG_TAG, message, exception);
   }
 
@@ -74,11 +174,14 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
       final Context context) {
     return new ConnectivityManager.NetworkCallback() {
       @Override public void onAvailable(Network network) {
-        subscriber.onNext(Connectivity.create(context));
+        subscriber.onNext(settings != null
+            ? Connectivity.create(context, network) : Connectivity.create(context));
       }
 
       @Override public void onLost(Network network) {
-        subscriber.onNext(Connectivity.create(context));
+        subscriber.onNext(settings != null
+            ? NetworkCallbackHelper.createLostConnectivity(network)
+            : Connectivity.create(context));
       }
     };
   }
@@ -22,30 +22,48 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.net.ConnectivityManager;
 import android.net.Network;
-import android.net.NetworkCapabilities;
-import android.net.NetworkInfo;
 import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.Handler;
 import android.os.PowerManager;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy;
 import com.jakewharton.nopen.annotation.Open;
-import io.reactivex.BackpressureStrategy;
 import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
 import io.reactivex.functions.Action;
-import io.reactivex.functions.Consumer;
-import io.reactivex.functions.Function;
 import io.reactivex.subjects.PublishSubject;
 import io.reactivex.subjects.Subject;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import org.reactivestreams.Publisher;
 
 import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.LOG_TAG;
 
 /**
  * Network observing strategy for devices with Android Marshmallow (API 23) or higher.
- * Uses Network Callback API and handles Doze mode.
+ * Uses Network Callback API and handles Doze mode. Connectivity is also emitted, when Data Saver
+ * is changed on Android Nougat (API 24) or higher and when the system blocks or unblocks network
+ * for the app on Android 10 (API 29) or higher. Network callback and receiver are registered
+ * and system services are touched only when the Observable is subscribed. Network callback
+ * and receiver can be invoked on a given handler instead of the main thread.
+ * One instance can be used by many subscribers. They share one registration of the network
+ * callback and receiver, which is removed when the last subscriber is disposed.
+ * When {@link NetworkObservingSettings} are given, connectivity of the network passed
+ * to the callback is emitted instead of the active one, so networks not matching the settings
+ * are never emitted. Blocked state reported by the callback is kept for each network and used
+ * for all values emitted afterwards. Without settings, all callbacks emit connectivity
+ * of the active network, so blocked state of another network isn't emitted.
  */
 @Open @TargetApi(23) public class MarshmallowNetworkObservingStrategy
     implements NetworkObservingStrategy {
@@ -54,57 +72,226 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
   protected static final String ERROR_MSG_RECEIVER = "could not unregister receiver";
 
   @SuppressWarnings("NullAway") // it has to be initialized in the Observable due to Context
-  private ConnectivityManager.NetworkCallback networkCallback;
+  private volatile ConnectivityManager.NetworkCallback networkCallback;
   private final Subject<Connectivity> connectivitySubject;
   private final BroadcastReceiver idleReceiver;
-  private Connectivity lastConnectivity = Connectivity.create();
+  private final Object registrationLock = new Object();
+  private int subscribersCount; // guarded by registrationLock
+  @Nullable private ConnectivityManager registeredManager; // guarded by registrationLock
+  @Nullable private Context registeredContext; // guarded by registrationLock
+  @Nullable private final Scheduler initialConnectivityScheduler;
+  @Nullable private final Handler callbackHandler;
+  @Nullable private final NetworkObservingSettings settings;
+  @Nullable private volatile Network availableNetwork; // tracked only when settings are given
+  private final Map<Network, Boolean> blockedStatuses = new ConcurrentHashMap<>();
 
-  @SuppressWarnings("NullAway") // networkCallback cannot be initialized here
   public MarshmallowNetworkObservingStrategy() {
+    this(null, null);
+  }
+
+  /**
+   * Creates strategy, which observes only networks with transport types and capabilities
+   * given in settings
+   *
+   * @param settings of observed networks
+   */
+  public MarshmallowNetworkObservingStrategy(final NetworkObservingSettings settings) {
+    this(settings, null, null);
+    Preconditions.checkNotNull(settings, "settings == null");
+  }
+
+  /**
+   * Creates strategy, which reads the initial connectivity and registers the network callback
+   * on a given scheduler instead of the thread, which subscribes
+   *
+   * @param initialConnectivityScheduler scheduler, e.g. {@code Schedulers.io()}
+   */
+  public MarshmallowNetworkObservingStrategy(final Scheduler initialConnectivityScheduler) {
+    this(initialConnectivityScheduler, null);
+    Preconditions.checkNotNull(initialConnectivityScheduler,
+        "initialConnectivityScheduler == null");
+  }
+
+  /**
+   * Creates strategy with the given threading options
+   *
+   * @param initialConnectivityScheduler scheduler for reading the initial connectivity
+   * and registering the network callback or null for the thread, which subscribes
+   * @param callbackHandler handler, on which network callback and idle receiver are invoked, e.g.
+   * {@code CallbackThreadHelper.getHandler()}
+   * or null for the main thread
+   */
+  public MarshmallowNetworkObservingStrategy(
+      @Nullable final Scheduler initialConnectivityScheduler,
+      @Nullable final Handler callbackHandler) {
+    this(null, initialConnectivityScheduler, callbackHandler);
+  }
+
+  /**
+   * Creates strategy with the given settings of observed networks and threading options
+   *
+   * @param settings of observed networks or null for networks with the Internet capability,
+   * which are not restricted
+   * @param initialConnectivityScheduler scheduler for reading the initial connectivity
+   * and registering the network callback or null for the thread, which subscribes
+   * @param callbackHandler handler, on which network callback and idle receiver are invoked
+   * or null for the main thread
+   */
+  @SuppressWarnings("NullAway") // networkCallback cannot be initialized here
+  public MarshmallowNetworkObservingStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Scheduler initialConnectivityScheduler,
+      @Nullable final Handler callbackHandler) {
+    this.settings = settings;
     this.idleReceiver = createIdleBroadcastReceiver();
     this.connectivitySubject = PublishSubject.<Connectivity>create().toSerialized();
+    this.initialConnectivityScheduler = initialConnectivityScheduler;
+    this.callbackHandler = callbackHandler;
   }
 
   @Override public Observable<Connectivity> observeNetworkConnectivity(final Context context) {
-    final String service = Context.CONNECTIVITY_SERVICE;
-    final ConnectivityManager manager = (ConnectivityManager) context.getSystemService(service);
-    networkCallback = createNetworkCallback(context);
+    return Observable.defer(new Callable<ObservableSource<Connectivity>>() {
+      @Override public ObservableSource<Connectivity> call() {
+        return observeRegisteredNetworkConnectivity(context);
+      }
+    }).startWith(createInitialConnectivity(context))
+        .distinctUntilChanged(MetricsHelper.duplicateFilter())
+        .doOnNext(MetricsHelper.emissionCounter());
+  }
 
-    registerIdleReceiver(context);
+  protected Observable<Connectivity> createInitialConnectivity(final Context context) {
+    final Observable<Connectivity> initialConnectivity =
+        Observable.fromCallable(new Callable<Connectivity>() {
+          @Override public Connectivity call() {
+            return settings != null
+                ? createAvailableConnectivity(context) : createActiveConnectivity(context);
+          }
+        });
+    final Scheduler scheduler = initialConnectivityScheduler;
+    return scheduler == null ? initialConnectivity : initialConnectivity.subscribeOn(scheduler);
+  }
 
-    final NetworkRequest request =
-        new NetworkRequest.Builder().addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
-            .addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_RESTRICTED)
-            .build();
+  private Observable<Connectivity> observeRegisteredNetworkConnectivity(final Context context) {
+    acquireRegistration(context);
+    final Observable<Connectivity> connectivity = connectivitySubject.doOnDispose(new Action() {
+      @Override public void run() {
+        releaseRegistration();
+      }
+    });
+    // lost network is emitted as disconnected, so connected state of another one isn't propagated
+    return settings != null ? connectivity : propagateConnectedState(connectivity);
+  }
 
-    manager.registerNetworkCallback(request, networkCallback);
+  /**
+   * Emits the last connected state after the current one, when connection type was changed
+   * without disconnecting the previous network. It's done by an operator, which doesn't create
+   * publishers for each value. Subclass can override this method to change the propagation.
+   *
+   * @param connectivity observed connectivity
+   * @return Observable emitting observed connectivity with propagated connected state
+   */
+  protected Observable<Connectivity> propagateConnectedState(
+      final Observable<Connectivity> connectivity) {
+    return connectivity.lift(new ConnectedStatePropagator());
+  }
 
-    return connectivitySubject.toFlowable(BackpressureStrategy.LATEST).doOnCancel(new Action() {
-      @Override public void run() {
-        tryToUnregisterCallback(manager);
-        tryToUnregisterReceiver(context);
+  private Connectivity createAvailableConnectivity(final Context context) {
+    final Network network = availableNetwork;
+    return network != null ? createConnectivity(context, network) : Connectivity.create();
+  }
+
+  private Connectivity createActiveConnectivity(final Context context) {
+    if (blockedStatuses.isEmpty()) {
+      return Connectivity.create(context);
+    }
+    final ConnectivityManager manager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    final Network network = manager.getActiveNetwork();
+    return network != null ? createConnectivity(context, network) : Connectivity.create();
+  }
+
+  private Connectivity createConnectivity(final Context context, final Network network) {
+    final Boolean blocked = blockedStatuses.get(network);
+    return blocked != null
+        ? Connectivity.create(context, network, blocked) : Connectivity.create(context, network);
+  }
+
+  private void acquireRegistration(final Context context) {
+    synchronized (registrationLock) {
+      if (subscribersCount == 0) {
+        final String service = Context.CONNECTIVITY_SERVICE;
+        final ConnectivityManager manager =
+            (ConnectivityManager) context.getSystemService(service);
+        registerIdleReceiver(context);
+        networkCallback =
+            registerNetworkCallback(manager, createNetworkCallback(context), callbackHandler);
+        MetricsHelper.increment(MetricsListener.Counter.CALLBACK_REGISTERED);
+        registeredManager = manager;
+        registeredContext = context;
+      }
+      subscribersCount++;
+    }
+  }
+
+  /**
+   * @return settings of observed networks or null, when they were not given
+   */
+  @Nullable protected NetworkObservingSettings getNetworkObservingSettings() {
+    return settings;
+  }
+
+  /**
+   * Registers network callback for networks matching the settings or for networks
+   * with the Internet capability, which are not restricted, when settings were not given
+   *
+   * @param manager ConnectivityManager
+   * @param callback to be registered
+   * @param handler on which callback is invoked or null for the default thread
+   * @return callback, which was registered and which should be unregistered later
+   */
+  protected ConnectivityManager.NetworkCallback registerNetworkCallback(
+      final ConnectivityManager manager, final ConnectivityManager.NetworkCallback callback,
+      @Nullable final Handler handler) {
+    final NetworkObservingSettings currentSettings = settings;
+    final NetworkRequest request = currentSettings != null
+        ? currentSettings.createNetworkRequest()
+        : NetworkCallbackHelper.createDefaultNetworkRequest();
+    return HandlerNetworkCallback.register(manager, request, callback, handler);
+  }
+
+  private void releaseRegistration() {
+    synchronized (registrationLock) {
+      if (subscribersCount == 0 || --subscribersCount > 0) {
+        return;
       }
-    }).doAfterNext(new Consumer<Connectivity>() {
-      @Override
-      public void accept(final Connectivity connectivity) {
-        lastConnectivity = connectivity;
+      final ConnectivityManager manager = registeredManager;
+      final Context context = registeredContext;
+      registeredManager = null;
+      registeredContext = null;
+      availableNetwork = null;
+      blockedStatuses.clear();
+      if (manager != null) {
+        tryToUnregisterCallback(manager);
       }
-    }).flatMap(new Function<Connectivity, Publisher<Connectivity>>() {
-      @Override
-      public Publisher<Connectivity> apply(final Connectivity connectivity) {
-        return propagateAnyConnectedState(lastConnectivity, connectivity);
+      if (context != null) {
+        tryToUnregisterReceiver(context);
       }
-    }).startWith(Connectivity.create(context)).distinctUntilChanged().toObservable();
+    }
   }
 
+  /**
+   * Emits the current connectivity and the last one, when the last connected state
+   * should be propagated
+   *
+   * @param last previous connectivity
+   * @param current current connectivity
+   * @return Publisher with one or two values
+   * @deprecated observed connectivity is propagated by {@link #propagateConnectedState},
+   * which doesn't create publishers for each value and should be overridden instead
+   */
+  @Deprecated
   protected Publisher<Connectivity> propagateAnyConnectedState(final Connectivity last,
       final Connectivity current) {
-    final boolean typeChanged = last.type() != current.type();
-    final boolean wasConnected = last.state() == NetworkInfo.State.CONNECTED;
-    final boolean isDisconnected = current.state() == NetworkInfo.State.DISCONNECTED;
-    final boolean isNotIdle = current.detailedState() != NetworkInfo.DetailedState.IDLE;
-
-    if (typeChanged && wasConnected && isDisconnected && isNotIdle) {
+    if (ConnectedStatePropagator.shouldPropagateLast(last, current)) {
       return Flowable.fromArray(current, last);
     } else {
       return Flowable.fromArray(current);
@@ -113,7 +300,12 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
 
   protected void registerIdleReceiver(final Context context) {
     final IntentFilter filter = new IntentFilter(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
-    context.registerReceiver(idleReceiver, filter);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+      // connectivity is created again, when Data Saver is changed
+      filter.addAction(ConnectivityManager.ACTION_RESTRICT_BACKGROUND_CHANGED);
+    }
+    context.registerReceiver(idleReceiver, filter, null, callbackHandler);
+    MetricsHelper.increment(MetricsListener.Counter.CALLBACK_REGISTERED);
   }
 
   @NonNull protected BroadcastReceiver createIdleBroadcastReceiver() {
@@ -121,8 +313,10 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
       @Override public void onReceive(final Context context, final Intent intent) {
         if (isIdleMode(context)) {
           onNext(Connectivity.create());
+        } else if (settings != null) {
+          onNext(createAvailableConnectivity(context));
         } else {
-          onNext(Connectivity.create(context));
+          onNext(createActiveConnectivity(context));
         }
       }
     };
@@ -138,6 +332,7 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
   protected void tryToUnregisterCallback(final ConnectivityManager manager) {
     try {
       manager.unregisterNetworkCallback(networkCallback);
+      MetricsHelper.increment(MetricsListener.Counter.CALLBACK_UNREGISTERED);
     } catch (Exception exception) {
       onError(ERROR_MSG_NETWORK_CALLBACK, exception);
     }
@@ -146,23 +341,47 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
   protected void tryToUnregisterReceiver(Context context) {
     try {
       context.unregisterReceiver(idleReceiver);
+      MetricsHelper.increment(MetricsListener.Counter.CALLBACK_UNREGISTERED);
     } catch (Exception exception) {
       onError(ERROR_MSG_RECEIVER, exception);
     }
   }
 
   @Override public void onError(final String message, final Exception exception) {
+    MetricsHelper.increment(MetricsListener.Counter.ERROR);
     Log.e(LOG_TAG, message, exception);
   }
 
   protected ConnectivityManager.NetworkCallback createNetworkCallback(final Context context) {
     return new ConnectivityManager.NetworkCallback() {
       @Override public void onAvailable(Network network) {
-        onNext(Connectivity.create(context));
+        if (settings != null) {
+          availableNetwork = network;
+          onNext(createConnectivity(context, network));
+        } else {
+          onNext(createActiveConnectivity(context));
+        }
       }
 
       @Override public void onLost(Network network) {
-        onNext(Connectivity.create(context));
+        blockedStatuses.remove(network);
+        if (settings != null) {
+          if (network.equals(availableNetwork)) {
+            availableNetwork = null;
+          }
+          onNext(NetworkCallbackHelper.createLostConnectivity(network));
+        } else {
+          onNext(createActiveConnectivity(context));
+        }
+      }
+
+      @Override public void onBlockedStatusChanged(Network network, boolean blocked) {
+        blockedStatuses.put(network, blocked);
+        if (settings != null) {
+          onNext(createConnectivity(context, network));
+        } else {
+          onNext(createActiveConnectivity(context));
+        }
       }
     };
   }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+
+/**
+ * Helper for network callbacks registered by network observing strategies
+ */
+@TargetApi(21) final class NetworkCallbackHelper {
+
+  private NetworkCallbackHelper() {
+  }
+
+  /**
+   * Creates disconnected connectivity of a lost network. Network info isn't read,
+   * because the system may still return the last state of the network or nothing at all.
+   *
+   * @param network which was lost
+   * @return disconnected Connectivity with handle of the network on Marshmallow or higher
+   */
+  static Connectivity createLostConnectivity(final Network network) {
+    final Connectivity.Builder builder = Connectivity.state(NetworkInfo.State.DISCONNECTED)
+        .detailedState(NetworkInfo.DetailedState.DISCONNECTED);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      builder.networkHandle(network.getNetworkHandle());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Creates request of networks with the Internet capability, which are not restricted.
+   * It's used, when settings of observed networks were not given.
+   *
+   * @return NetworkRequest
+   */
+  static NetworkRequest createDefaultNetworkRequest() {
+    return new NetworkRequest.Builder()
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_RESTRICTED)
+        .build();
+  }
+
+  /**
+   * Creates connectivity of a connected network matching given settings, so observing
+   * starts with the current state of observed networks instead of the default one.
+   * Capabilities required by each NetworkRequest by default (e.g. not restricted)
+   * are not checked, because the system doesn't expose them.
+   *
+   * @param context Context of the activity or an application
+   * @param settings of observed networks
+   * @return Connectivity of the first matching connected network or default one
+   */
+  static Connectivity createMatchingConnectivity(final Context context,
+      final NetworkObservingSettings settings) {
+    final ConnectivityManager manager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    if (manager == null) {
+      return Connectivity.create();
+    }
+    for (Network network : manager.getAllNetworks()) {
+      if (matches(settings, manager.getNetworkCapabilities(network))) {
+        final Connectivity connectivity = Connectivity.create(context, network);
+        if (connectivity.state() == NetworkInfo.State.CONNECTED) {
+          return connectivity;
+        }
+      }
+    }
+    return Connectivity.create();
+  }
+
+  private static boolean matches(final NetworkObservingSettings settings,
+      @Nullable final NetworkCapabilities capabilities) {
+    if (capabilities == null) {
+      return false;
+    }
+    final int[] transportTypes = settings.transportTypes();
+    boolean hasTransportType = transportTypes.length == 0;
+    for (int transportType : transportTypes) {
+      hasTransportType |= capabilities.hasTransport(transportType);
+    }
+    if (!hasTransportType) {
+      return false;
+    }
+    for (int capability : settings.capabilities()) {
+      if (!capabilities.hasCapability(capability)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
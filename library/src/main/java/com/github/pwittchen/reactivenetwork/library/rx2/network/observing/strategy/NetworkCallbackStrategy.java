@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.NetworkRequest;
+import android.os.Handler;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.functions.Cancellable;
+
+import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.LOG_TAG;
+
+/**
+ * Base of strategies, which register one network callback per subscription and emit values
+ * created by it. Callback is registered for networks matching the settings or for networks
+ * matching the default request, when settings were not given, and it's unregistered, when
+ * subscription is disposed. Callback is invoked serially, so its state doesn't need
+ * to be synchronized. System services are not touched until subscription.
+ *
+ * @param <T> type of emitted values
+ */
+@TargetApi(21) abstract class NetworkCallbackStrategy<T> {
+  private static final String ERROR_MSG_NETWORK_CALLBACK = "could not unregister network callback";
+
+  @Nullable private final NetworkObservingSettings settings;
+  @Nullable private final Handler callbackHandler;
+
+  NetworkCallbackStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Handler callbackHandler) {
+    this.settings = settings;
+    this.callbackHandler = callbackHandler;
+  }
+
+  /**
+   * Registers network callback, when Observable is subscribed
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with values emitted by the callback
+   */
+  Observable<T> observeNetworkCallback(final Context context) {
+    Preconditions.checkNotNull(context, "context == null");
+    return Observable.create(new ObservableOnSubscribe<T>() {
+      @Override public void subscribe(final ObservableEmitter<T> emitter) {
+        final String service = Context.CONNECTIVITY_SERVICE;
+        final ConnectivityManager manager =
+            (ConnectivityManager) context.getSystemService(service);
+        final NetworkCallback networkCallback = registerNetworkCallback(manager,
+            createNetworkRequest(), createNetworkCallback(emitter, manager), callbackHandler);
+        MetricsHelper.increment(MetricsListener.Counter.CALLBACK_REGISTERED);
+        emitter.setCancellable(new Cancellable() {
+          @Override public void cancel() {
+            tryToUnregisterCallback(manager, networkCallback);
+          }
+        });
+      }
+    });
+  }
+
+  protected abstract NetworkCallback createNetworkCallback(ObservableEmitter<T> emitter,
+      ConnectivityManager manager);
+
+  NetworkCallback registerNetworkCallback(final ConnectivityManager manager,
+      final NetworkRequest request, final NetworkCallback callback,
+      @Nullable final Handler handler) {
+    return HandlerNetworkCallback.register(manager, request, callback, handler);
+  }
+
+  NetworkRequest createDefaultNetworkRequest() {
+    return NetworkCallbackHelper.createDefaultNetworkRequest();
+  }
+
+  String getUnregisterErrorMessage() {
+    return ERROR_MSG_NETWORK_CALLBACK;
+  }
+
+  public void onError(final String message, final Exception exception) {
+    MetricsHelper.increment(MetricsListener.Counter.ERROR);
+    Log.e(LOG_TAG, message, exception);
+  }
+
+  private NetworkRequest createNetworkRequest() {
+    final NetworkObservingSettings currentSettings = settings;
+    return currentSettings != null
+        ? currentSettings.createNetworkRequest() : createDefaultNetworkRequest();
+  }
+
+  private void tryToUnregisterCallback(final ConnectivityManager manager,
+      final NetworkCallback networkCallback) {
+    try {
+      manager.unregisterNetworkCallback(networkCallback);
+      MetricsHelper.increment(MetricsListener.Counter.CALLBACK_UNREGISTERED);
+    } catch (Exception exception) {
+      onError(getUnregisterErrorMessage(), exception);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.Network;
+import android.os.Build;
+import android.os.Handler;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkHandover;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Observes handovers between networks for devices with Android Lollipop (API 21) or higher.
+ * Emits {@link NetworkHandover}, when the system notifies that a network is about to be lost
+ * with {@link NetworkCallback#onLosing(Network, int)}, so it happens before the network is lost.
+ * Replacement network is the active one on Marshmallow or higher or the network, which became
+ * available most recently. By default, networks with the Internet capability,
+ * which are not restricted, are observed. System services are not touched until subscription.
+ */
+@Open @TargetApi(21) public class NetworkHandoverObservingStrategy
+    extends NetworkCallbackStrategy<NetworkHandover> {
+
+  public NetworkHandoverObservingStrategy() {
+    this(null, null);
+  }
+
+  /**
+   * Creates strategy, which observes only networks with transport types and capabilities
+   * given in settings
+   *
+   * @param settings of observed networks
+   */
+  public NetworkHandoverObservingStrategy(final NetworkObservingSettings settings) {
+    this(settings, null);
+    Preconditions.checkNotNull(settings, "settings == null");
+  }
+
+  /**
+   * Creates strategy with the given settings of observed networks and threading options
+   *
+   * @param settings of observed networks or null for networks with the Internet capability,
+   * which are not restricted
+   * @param callbackHandler handler, on which network callback is invoked
+   * or null for the default thread
+   */
+  public NetworkHandoverObservingStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Handler callbackHandler) {
+    super(settings, callbackHandler);
+  }
+
+  /**
+   * Observes handovers between networks
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with NetworkHandover
+   */
+  public Observable<NetworkHandover> observeNetworkHandovers(final Context context) {
+    return observeNetworkCallback(context);
+  }
+
+  @Override protected NetworkCallback createNetworkCallback(
+      final ObservableEmitter<NetworkHandover> emitter, final ConnectivityManager manager) {
+    return new NetworkCallback() {
+      private final List<Network> availableNetworks = new ArrayList<>();
+
+      @Override public void onAvailable(final Network network) {
+        availableNetworks.remove(network);
+        availableNetworks.add(network);
+      }
+
+      @Override public void onLosing(final Network network, final int maxMsToLive) {
+        final Network replacementNetwork =
+            findReplacementNetwork(manager, network, availableNetworks);
+        emitter.onNext(new NetworkHandover(network, maxMsToLive, replacementNetwork));
+      }
+
+      @Override public void onLost(final Network network) {
+        availableNetworks.remove(network);
+      }
+    };
+  }
+
+  @Nullable protected Network findReplacementNetwork(final ConnectivityManager manager,
+      final Network losingNetwork, final List<Network> availableNetworks) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      final Network activeNetwork = manager.getActiveNetwork();
+      if (activeNetwork != null && !activeNetwork.equals(losingNetwork)) {
+        return activeNetwork;
+      }
+    }
+    for (int i = availableNetworks.size() - 1; i >= 0; i--) {
+      final Network network = availableNetworks.get(i);
+      if (!network.equals(losingNetwork)) {
+        return network;
+      }
+    }
+    return null;
+  }
+}
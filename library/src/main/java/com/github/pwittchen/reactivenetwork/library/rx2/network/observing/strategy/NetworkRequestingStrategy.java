@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.os.Handler;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Function;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Requests network from the system for devices with Android Lollipop (API 21) or higher
+ * with {@link ConnectivityManager#requestNetwork(NetworkRequest, NetworkCallback)}, so the system
+ * brings up and keeps alive a network, which satisfies the request, even if it's not the default
+ * one. It can be used for routing time-critical traffic around broken default network, e.g.
+ * through cellular network, while WiFi has no access to the Internet. Network is emitted,
+ * when it becomes available. It's held while the Observable is subscribed and released when
+ * subscription is disposed. Observable is completed, when the emitted network is lost or when
+ * the system reports that the request cannot be fulfilled, e.g. when network isn't available
+ * within a given timeout. By default, cellular network with the Internet capability
+ * is requested.
+ * System services are not touched until subscription.
+ */
+@Open @TargetApi(21) public class NetworkRequestingStrategy
+    extends NetworkCallbackStrategy<Network> {
+  private static final int NO_TIMEOUT = 0;
+  private final int timeoutInMs;
+
+  public NetworkRequestingStrategy() {
+    this(null, null);
+  }
+
+  /**
+   * Creates strategy, which requests network with transport types and capabilities
+   * given in settings
+   *
+   * @param settings of requested network
+   */
+  public NetworkRequestingStrategy(final NetworkObservingSettings settings) {
+    this(settings, null);
+    Preconditions.checkNotNull(settings, "settings == null");
+  }
+
+  /**
+   * Creates strategy with the given settings of requested network and threading options
+   *
+   * @param settings of requested network or null for cellular network with the Internet capability
+   * @param callbackHandler handler, on which network callback is invoked
+   * or null for the default thread
+   */
+  public NetworkRequestingStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Handler callbackHandler) {
+    super(settings, callbackHandler);
+    this.timeoutInMs = NO_TIMEOUT;
+  }
+
+  /**
+   * Creates strategy, which completes the Observable, when network satisfying the request
+   * isn't available within a given timeout. On Android Oreo (API 26) or higher, timeout
+   * is passed to the system. On older devices, it's applied to the first emitted network.
+   *
+   * @param settings of requested network or null for cellular network with the Internet capability
+   * @param callbackHandler handler, on which network callback is invoked
+   * or null for the default thread
+   * @param timeoutInMs time to wait for the network
+   */
+  public NetworkRequestingStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Handler callbackHandler, final int timeoutInMs) {
+    super(settings, callbackHandler);
+    Preconditions.checkGreaterThanZero(timeoutInMs, "timeoutInMs is not a positive number");
+    this.timeoutInMs = timeoutInMs;
+  }
+
+  /**
+   * Requests network and holds it until subscription is disposed
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with Network
+   */
+  public Observable<Network> requestNetwork(final Context context) {
+    final Observable<Network> networks = observeNetworkCallback(context);
+    if (timeoutInMs == NO_TIMEOUT || Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      return networks;
+    }
+    // onUnavailable is delivered only on Oreo or higher, so the timeout is applied here
+    return networks.timeout(Observable.timer(timeoutInMs, TimeUnit.MILLISECONDS),
+        new Function<Network, ObservableSource<Long>>() {
+          @Override public ObservableSource<Long> apply(final Network network) {
+            return Observable.never();
+          }
+        }).onErrorResumeNext(new Function<Throwable, ObservableSource<Network>>() {
+          @Override public ObservableSource<Network> apply(final Throwable throwable) {
+            return throwable instanceof TimeoutException
+                ? Observable.<Network>empty() : Observable.<Network>error(throwable);
+          }
+        });
+  }
+
+  @Override protected NetworkCallback createNetworkCallback(
+      final ObservableEmitter<Network> emitter, final ConnectivityManager manager) {
+    return new NetworkCallback() {
+      @Nullable private Network availableNetwork;
+
+      @Override public void onAvailable(final Network network) {
+        availableNetwork = network;
+        emitter.onNext(network);
+      }
+
+      @Override public void onLost(final Network network) {
+        // network satisfying the request can be replaced with onAvailable without onLost
+        if (network.equals(availableNetwork)) {
+          emitter.onComplete();
+        }
+      }
+
+      @Override public void onUnavailable() {
+        emitter.onComplete();
+      }
+    };
+  }
+
+  @Override NetworkCallback registerNetworkCallback(final ConnectivityManager manager,
+      final NetworkRequest request, final NetworkCallback callback,
+      @Nullable final Handler handler) {
+    if (timeoutInMs != NO_TIMEOUT && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      return HandlerNetworkCallback.request(manager, request, callback, handler, timeoutInMs);
+    }
+    return HandlerNetworkCallback.request(manager, request, callback, handler);
+  }
+
+  @Override NetworkRequest createDefaultNetworkRequest() {
+    return new NetworkRequest.Builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_CELLULAR)
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+        .build();
+  }
+
+  @Override String getUnregisterErrorMessage() {
+    return "could not release requested network";
+  }
+}
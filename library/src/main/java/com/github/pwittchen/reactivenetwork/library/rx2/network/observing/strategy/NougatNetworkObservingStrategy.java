@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.annotation.TargetApi;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import androidx.annotation.Nullable;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+import com.jakewharton.nopen.annotation.Open;
+import io.reactivex.Scheduler;
+
+/**
+ * Network observing strategy for devices with Android Nougat (API 24) or higher.
+ * Tracks only the default network of the system, so it isn't notified about changes
+ * of other networks (e.g. cellular network, when device is connected to WiFi, or VPN).
+ * Handles Doze mode in the same way as {@link MarshmallowNetworkObservingStrategy}.
+ * When {@link NetworkObservingSettings} are given, networks matching them are observed instead,
+ * because callback of the default network cannot be limited to given transports or capabilities.
+ */
+@Open @TargetApi(24) public class NougatNetworkObservingStrategy
+    extends MarshmallowNetworkObservingStrategy {
+
+  public NougatNetworkObservingStrategy() {
+    super();
+  }
+
+  /**
+   * Creates strategy, which observes only networks with transport types and capabilities
+   * given in settings
+   *
+   * @param settings of observed networks
+   */
+  public NougatNetworkObservingStrategy(final NetworkObservingSettings settings) {
+    super(settings);
+  }
+
+  /**
+   * Creates strategy, which reads the initial connectivity and registers the network callback
+   * on a given scheduler instead of the thread, which subscribes
+   *
+   * @param initialConnectivityScheduler scheduler, e.g. {@code Schedulers.io()}
+   */
+  public NougatNetworkObservingStrategy(final Scheduler initialConnectivityScheduler) {
+    super(initialConnectivityScheduler);
+  }
+
+  /**
+   * Creates strategy with the given threading options
+   *
+   * @param initialConnectivityScheduler scheduler for reading the initial connectivity
+   * and registering the network callback or null for the thread, which subscribes
+   * @param callbackHandler handler, on which network callback and idle receiver are invoked, e.g.
+   * {@code CallbackThreadHelper.getHandler()}
+   * or null for the main thread
+   */
+  public NougatNetworkObservingStrategy(@Nullable final Scheduler initialConnectivityScheduler,
+      @Nullable final Handler callbackHandler) {
+    super(initialConnectivityScheduler, callbackHandler);
+  }
+
+  /**
+   * Creates strategy with the given settings of observed networks and threading options
+   *
+   * @param settings of observed networks or null for the default network
+   * @param initialConnectivityScheduler scheduler for reading the initial connectivity
+   * and registering the network callback or null for the thread, which subscribes
+   * @param callbackHandler handler, on which network callback and idle receiver are invoked
+   * or null for the main thread
+   */
+  public NougatNetworkObservingStrategy(@Nullable final NetworkObservingSettings settings,
+      @Nullable final Scheduler initialConnectivityScheduler,
+      @Nullable final Handler callbackHandler) {
+    super(settings, initialConnectivityScheduler, callbackHandler);
+  }
+
+  @Override protected ConnectivityManager.NetworkCallback registerNetworkCallback(
+      final ConnectivityManager manager, final ConnectivityManager.NetworkCallback callback,
+      @Nullable final Handler handler) {
+    if (getNetworkObservingSettings() != null) {
+      return super.registerNetworkCallback(manager, callback, handler);
+    }
+    return HandlerNetworkCallback.registerDefault(manager, callback, handler);
+  }
+}
@@ -20,9 +20,14 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.net.ConnectivityManager;
+import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import androidx.annotation.Nullable;
 import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import com.github.pwittchen.reactivenetwork.library.rx2.Preconditions;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsHelper;
+import com.github.pwittchen.reactivenetwork.library.rx2.metrics.MetricsListener;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy;
 import com.jakewharton.nopen.annotation.Open;
 import io.reactivex.Observable;
@@ -38,9 +43,24 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
 
 /**
  * Network observing strategy for Android devices before Lollipop (API 20 or lower).
- * Uses Broadcast Receiver.
+ * Uses Broadcast Receiver. Receiver can be invoked on a given handler instead of the main thread.
  */
 @Open public class PreLollipopNetworkObservingStrategy implements NetworkObservingStrategy {
+  @Nullable private final Handler callbackHandler;
+
+  public PreLollipopNetworkObservingStrategy() {
+    this.callbackHandler = null;
+  }
+
+  /**
+   * Creates strategy, which receives broadcasts and unregisters its receiver on a given handler
+   *
+   * @param callbackHandler handler, e.g. {@code CallbackThreadHelper.getHandler()}
+   */
+  public PreLollipopNetworkObservingStrategy(final Handler callbackHandler) {
+    Preconditions.checkNotNull(callbackHandler, "callbackHandler == null");
+    this.callbackHandler = callbackHandler;
+  }
 
   @Override public Observable<Connectivity> observeNetworkConnectivity(final Context context) {
     final IntentFilter filter = new IntentFilter();
@@ -55,43 +75,48 @@ import static com.github.pwittchen.reactivenetwork.library.rx2.ReactiveNetwork.L
           }
         };
 
-        context.registerReceiver(receiver, filter);
+        context.registerReceiver(receiver, filter, null, callbackHandler);
+        MetricsHelper.increment(MetricsListener.Counter.CALLBACK_REGISTERED);
 
-        Disposable disposable = disposeInUiThread(new Action() {
+        Disposable disposable = disposeInCallbackThread(new Action() {
           @Override public void run() {
             tryToUnregisterReceiver(context, receiver);
           }
         });
         emitter.setDisposable(disposable);
       }
-    }).defaultIfEmpty(Connectivity.create());
+    }).defaultIfEmpty(Connectivity.create()).doOnNext(MetricsHelper.emissionCounter());
   }
 
   protected void tryToUnregisterReceiver(final Context context, final BroadcastReceiver receiver) {
     try {
       context.unregisterReceiver(receiver);
+      MetricsHelper.increment(MetricsListener.Counter.CALLBACK_UNREGISTERED);
     } catch (Exception exception) {
       onError("receiver was already unregistered", exception);
     }
   }
 
   @Override public void onError(final String message, final Exception exception) {
+    MetricsHelper.increment(MetricsListener.Counter.ERROR);
     Log.e(LOG_TAG, message, exception);
   }
 
-  private Disposable disposeInUiThread(final Action action) {
+  private Disposable disposeInCallbackThread(final Action action) {
+    final Handler handler = callbackHandler;
+    final Looper looper = handler != null ? handler.getLooper() : Looper.getMainLooper();
     return Disposables.fromAction(new Action() {
       @Override public void run() throws Exception {
-        if (Looper.getMainLooper() == Looper.myLooper()) {
+        if (looper == Looper.myLooper()) {
           action.run();
         } else {
-          final Scheduler.Worker inner = AndroidSchedulers.mainThread().createWorker();
+          final Scheduler.Worker inner = AndroidSchedulers.from(looper).createWorker();
           inner.schedule(new Runnable() {
             @Override public void run() {
               try {
                 action.run();
               } catch (Exception e) {
-                onError("Could not unregister receiver in UI Thread", e);
+                onError("Could not unregister receiver in callback thread", e);
               }
               inner.dispose();
             }
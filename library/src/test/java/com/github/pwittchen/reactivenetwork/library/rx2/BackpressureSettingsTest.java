@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class BackpressureSettingsTest {
+
+  @Test public void shouldKeepOnlyTheLatestValueByDefault() {
+    // given
+    final PublishSubject<Integer> subject = PublishSubject.create();
+    final TestSubscriber<Integer> subscriber =
+        BackpressureSettings.latest().toFlowable(subject).test(0);
+
+    // when
+    subject.onNext(1);
+    subject.onNext(2);
+    subject.onNext(3);
+    subscriber.request(3);
+
+    // then
+    subscriber.assertValues(3);
+  }
+
+  @Test public void shouldDropTheOldestValueWhenBufferIsFull() {
+    // given
+    final PublishSubject<Integer> subject = PublishSubject.create();
+    final TestSubscriber<Integer> subscriber =
+        BackpressureSettings.buffer(2).toFlowable(subject).test(0);
+
+    // when
+    subject.onNext(1);
+    subject.onNext(2);
+    subject.onNext(3);
+    subscriber.request(3);
+
+    // then
+    subscriber.assertValues(2, 3);
+  }
+
+  @Test public void shouldReturnBufferSize() {
+    // then
+    assertThat(BackpressureSettings.latest().bufferSize()).isEqualTo(0);
+    assertThat(BackpressureSettings.buffer(16).bufferSize()).isEqualTo(16);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowNonPositiveBufferSize() {
+    // when
+    BackpressureSettings.buffer(0);
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.content.Context;
+import android.net.NetworkInfo;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingSettings;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.DefaultErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import java.io.IOException;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class ConnectivitySnapshotTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+  private final ConnectivitySnapshot snapshot = ReactiveNetwork.snapshot();
+
+  @After public void tearDown() {
+    snapshot.reset();
+  }
+
+  @Test public void shouldHaveDefaultStateInitially() {
+    // then
+    assertThat(snapshot.connectivity()).isEqualTo(Connectivity.create());
+    assertThat(snapshot.internetState()).isEqualTo(ConnectivitySnapshot.InternetState.UNKNOWN);
+    assertThat(snapshot.isConnectedToInternet()).isFalse();
+    assertThat(snapshot.connectivityUpdateTimeInMs()).isEqualTo(-1L);
+    assertThat(snapshot.internetStateUpdateTimeInMs()).isEqualTo(-1L);
+  }
+
+  @Test public void shouldUpdateConnectivityWhenItIsObserved() {
+    // when
+    final Connectivity connectivity = ReactiveNetwork
+        .observeNetworkConnectivity(RuntimeEnvironment.getApplication())
+        .blockingFirst();
+
+    // then
+    assertThat(snapshot.connectivity()).isSameInstanceAs(connectivity);
+    assertThat(snapshot.connectivityUpdateTimeInMs()).isAtLeast(0L);
+  }
+
+  @Test public void shouldNotUpdateConnectivityObservedWithCustomStrategy() {
+    // given
+    final NetworkObservingStrategy strategy =
+        createStrategy(Connectivity.state(NetworkInfo.State.CONNECTED).build());
+
+    // when
+    ReactiveNetwork.observeNetworkConnectivity(RuntimeEnvironment.getApplication(), strategy)
+        .blockingFirst();
+
+    // then
+    assertThat(snapshot.connectivity()).isEqualTo(Connectivity.create());
+    assertThat(snapshot.connectivityUpdateTimeInMs()).isEqualTo(-1L);
+  }
+
+  @Test public void shouldUpdateInternetStateWhenItIsChecked() {
+    // when
+    final boolean isConnected = ReactiveNetwork.checkInternetConnectivity().blockingGet();
+
+    // then
+    assertThat(snapshot.isConnectedToInternet()).isEqualTo(isConnected);
+    assertThat(snapshot.internetStateUpdateTimeInMs()).isAtLeast(0L);
+  }
+
+  @Test public void shouldNotUpdateInternetStateCheckedWithCustomStrategy() {
+    // when
+    ReactiveNetwork.checkInternetConnectivity(createStrategy(true), "www.test.com", 80, 1000,
+        204, new DefaultErrorHandler()).blockingGet();
+    ReactiveNetwork.checkInternetConnectivity(InternetObservingSettings.builder()
+        .strategy(createStrategy(true))
+        .build()).blockingGet();
+
+    // then
+    assertThat(snapshot.internetState()).isEqualTo(ConnectivitySnapshot.InternetState.UNKNOWN);
+    assertThat(snapshot.internetStateUpdateTimeInMs()).isEqualTo(-1L);
+  }
+
+  @Test public void shouldNotUpdateInternetStateObservedWithCustomStrategy() {
+    // when
+    ReactiveNetwork.observeInternetConnectivity(createStrategy(false), 0, 1000, "www.test.com",
+        80, 1000, 204, new DefaultErrorHandler()).blockingFirst();
+
+    // then
+    assertThat(snapshot.internetState()).isEqualTo(ConnectivitySnapshot.InternetState.UNKNOWN);
+  }
+
+  @Test public void shouldUpdateConnectivityAfterStart() {
+    // when
+    final Disposable first = snapshot.start(RuntimeEnvironment.getApplication());
+    final Disposable second = snapshot.start(RuntimeEnvironment.getApplication());
+
+    // then
+    assertThat(snapshot.connectivityUpdateTimeInMs()).isAtLeast(0L);
+    first.dispose();
+    second.dispose();
+  }
+
+  @Test public void shouldRestorePersistedStateAsStale() throws IOException {
+    // given
+    final ConnectivityStore store = new ConnectivityStore(folder.newFile());
+    store.write(new ConnectivityStore.StoredState(
+        Connectivity.state(NetworkInfo.State.CONNECTED).build(), 1000L,
+        ConnectivitySnapshot.InternetState.CONNECTED, 2000L));
+
+    // when
+    snapshot.persist(store);
+
+    // then
+    assertThat(snapshot.connectivity().state()).isEqualTo(NetworkInfo.State.CONNECTED);
+    assertThat(snapshot.connectivity().stale()).isTrue();
+    assertThat(snapshot.internetState()).isEqualTo(ConnectivitySnapshot.InternetState.CONNECTED);
+    assertThat(snapshot.isInternetStateStale()).isTrue();
+  }
+
+  @Test public void shouldEmitPersistedConnectivityBeforeCurrentOne() throws IOException {
+    // given
+    final ConnectivityStore store = new ConnectivityStore(folder.newFile());
+    store.write(new ConnectivityStore.StoredState(
+        Connectivity.state(NetworkInfo.State.CONNECTED).build(), 1000L,
+        ConnectivitySnapshot.InternetState.UNKNOWN, -1L));
+    snapshot.persist(store);
+
+    // when
+    final List<Connectivity> emitted = ReactiveNetwork
+        .observeNetworkConnectivity(RuntimeEnvironment.getApplication())
+        .take(2)
+        .toList()
+        .blockingGet();
+
+    // then
+    assertThat(emitted).hasSize(2);
+    assertThat(emitted.get(0).stale()).isTrue();
+    assertThat(emitted.get(1).stale()).isFalse();
+    assertThat(snapshot.connectivity()).isSameInstanceAs(emitted.get(1));
+  }
+
+  @Test public void shouldWritePersistedState() throws IOException {
+    // given
+    final ConnectivityStore store = new ConnectivityStore(folder.newFile());
+    snapshot.persist(store);
+
+    // when
+    snapshot.update(true);
+    snapshot.write();
+
+    // then
+    final ConnectivityStore.StoredState state = store.read();
+    assertThat(state).isNotNull();
+    assertThat(state.internetState()).isEqualTo(ConnectivitySnapshot.InternetState.CONNECTED);
+    assertThat(state.internetStateTimestampInMs()).isAtLeast(0L);
+    assertThat(snapshot.isInternetStateStale()).isFalse();
+  }
+
+  private NetworkObservingStrategy createStrategy(final Connectivity connectivity) {
+    return new NetworkObservingStrategy() {
+      @Override public Observable<Connectivity> observeNetworkConnectivity(Context context) {
+        return Observable.just(connectivity);
+      }
+
+      @Override public void onError(String message, Exception exception) {
+      }
+    };
+  }
+
+  private InternetObservingStrategy createStrategy(final boolean isConnected) {
+    return new InternetObservingStrategy() {
+      @Override public Observable<Boolean> observeInternetConnectivity(int initialIntervalInMs,
+          int intervalInMs, String host, int port, int timeoutInMs, int httpResponse,
+          ErrorHandler errorHandler) {
+        return Observable.just(isConnected);
+      }
+
+      @Override public Single<Boolean> checkInternetConnectivity(String host, int port,
+          int timeoutInMs, int httpResponse, ErrorHandler errorHandler) {
+        return Single.just(isConnected);
+      }
+
+      @Override public String getDefaultPingHost() {
+        return "www.test.com";
+      }
+    };
+  }
+}
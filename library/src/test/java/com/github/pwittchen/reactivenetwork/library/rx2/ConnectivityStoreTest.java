@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class ConnectivityStoreTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test public void shouldReadStoredState() throws IOException {
+    // given
+    final ConnectivityStore store = new ConnectivityStore(folder.newFile());
+    final Connectivity connectivity = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .detailedState(NetworkInfo.DetailedState.CONNECTED)
+        .type(ConnectivityManager.TYPE_WIFI)
+        .subType(3)
+        .available(true)
+        .roaming(true)
+        .build();
+
+    // when
+    store.write(new ConnectivityStore.StoredState(connectivity, 1000L,
+        ConnectivitySnapshot.InternetState.CONNECTED, 2000L));
+    final ConnectivityStore.StoredState state = store.read();
+
+    // then
+    assertThat(state).isNotNull();
+    assertThat(state.connectivity().state()).isEqualTo(NetworkInfo.State.CONNECTED);
+    assertThat(state.connectivity().detailedState())
+        .isEqualTo(NetworkInfo.DetailedState.CONNECTED);
+    assertThat(state.connectivity().type()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+    assertThat(state.connectivity().subType()).isEqualTo(3);
+    assertThat(state.connectivity().available()).isTrue();
+    assertThat(state.connectivity().failover()).isFalse();
+    assertThat(state.connectivity().roaming()).isTrue();
+    assertThat(state.connectivity().stale()).isTrue();
+    assertThat(state.connectivityTimestampInMs()).isEqualTo(1000L);
+    assertThat(state.internetState()).isEqualTo(ConnectivitySnapshot.InternetState.CONNECTED);
+    assertThat(state.internetStateTimestampInMs()).isEqualTo(2000L);
+  }
+
+  @Test public void shouldReturnNullWhenNothingWasStored() {
+    // given
+    final ConnectivityStore store = new ConnectivityStore(new File(folder.getRoot(), "state"));
+
+    // when
+    final ConnectivityStore.StoredState state = store.read();
+
+    // then
+    assertThat(state).isNull();
+  }
+
+  @Test public void shouldReturnNullWhenFileIsCorrupted() throws IOException {
+    // given
+    final File file = folder.newFile();
+    final FileOutputStream outputStream = new FileOutputStream(file);
+    outputStream.write(new byte[64]);
+    outputStream.close();
+    final ConnectivityStore store = new ConnectivityStore(file);
+
+    // when
+    final ConnectivityStore.StoredState state = store.read();
+
+    // then
+    assertThat(state).isNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowNullFile() {
+    // when
+    new ConnectivityStore(null);
+  }
+}
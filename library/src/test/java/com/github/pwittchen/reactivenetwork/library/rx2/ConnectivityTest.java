@@ -15,16 +15,29 @@
  */
 package com.github.pwittchen.reactivenetwork.library.rx2;
 
+import android.app.ActivityManager;
 import android.content.Context;
 import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 import io.reactivex.functions.Predicate;
+import java.util.Collections;
+import org.robolectric.shadows.ShadowNetworkCapabilities;
+import org.robolectric.shadows.ShadowNetworkInfo;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
 
 @RunWith(RobolectricTestRunner.class)
 @SuppressWarnings("NullAway") public class ConnectivityTest {
@@ -174,6 +187,20 @@ import static com.google.common.truth.Truth.assertThat;
     // an exception is thrown
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void createShouldThrowAnExceptionWhenNetworkIsNull() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final Network network = null;
+
+    // when
+    //noinspection ConstantConditions
+    Connectivity.create(context, network);
+
+    // then
+    // an exception is thrown
+  }
+
   @Test public void shouldReturnProperToStringValue() {
     // given
     final String expectedToString = "Connectivity{"
@@ -187,7 +214,10 @@ import static com.google.common.truth.Truth.assertThat;
         + "typeName='NONE', "
         + "subTypeName='NONE', "
         + "reason='', "
-        + "extraInfo=''}";
+        + "extraInfo='', "
+        + "stale=false, "
+        + "networkHandle=0, "
+        + "blocked=false}";
 
     // when
     Connectivity connectivity = Connectivity.create();
@@ -343,4 +373,274 @@ import static com.google.common.truth.Truth.assertThat;
     assertThat(connectivity.reason()).isEmpty();
     assertThat(connectivity.extraInfo()).isEmpty();
   }
+
+  @Test public void shouldBeTheSameNetworkWhenHandlesAreEqual() {
+    // given
+    final Connectivity connected = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .type(ConnectivityManager.TYPE_WIFI)
+        .networkHandle(100L)
+        .build();
+    final Connectivity suspended = Connectivity.state(NetworkInfo.State.SUSPENDED)
+        .type(ConnectivityManager.TYPE_WIFI)
+        .networkHandle(100L)
+        .build();
+
+    // when
+    final boolean isSameNetwork = connected.isSameNetwork(suspended);
+
+    // then
+    assertThat(isSameNetwork).isTrue();
+    assertThat(connected).isNotEqualTo(suspended);
+  }
+
+  @Test public void shouldNotBeTheSameNetworkWhenHandlesAreDifferent() {
+    // given
+    final Connectivity first = Connectivity.type(ConnectivityManager.TYPE_WIFI)
+        .networkHandle(100L)
+        .build();
+    final Connectivity second = Connectivity.type(ConnectivityManager.TYPE_WIFI)
+        .networkHandle(200L)
+        .build();
+
+    // when
+    final boolean isSameNetwork = first.isSameNetwork(second);
+
+    // then
+    assertThat(isSameNetwork).isFalse();
+  }
+
+  @Test public void shouldCompareTypesWhenHandlesAreNotKnown() {
+    // given
+    final Connectivity wifi = Connectivity.type(ConnectivityManager.TYPE_WIFI).build();
+    final Connectivity mobile = Connectivity.type(ConnectivityManager.TYPE_MOBILE).build();
+
+    // then
+    assertThat(wifi.isSameNetwork(Connectivity.type(ConnectivityManager.TYPE_WIFI).build()))
+        .isTrue();
+    assertThat(wifi.isSameNetwork(mobile)).isFalse();
+  }
+
+  @Test @Config(sdk = 23) public void shouldCreateConnectivityWithHandleOfActiveNetwork() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final ConnectivityManager manager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    final Network activeNetwork = manager.getActiveNetwork();
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context);
+
+    // then
+    assertThat(connectivity.networkHandle()).isEqualTo(activeNetwork.getNetworkHandle());
+  }
+
+  @Test @Config(sdk = 23) public void shouldReadInfoOfActiveNetworkReadOnlyOnce() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final Network activeNetwork = mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.CONNECTED, NetworkInfo.State.CONNECTED));
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, manager);
+
+    // then
+    verify(manager).getActiveNetwork();
+    verify(manager).getNetworkInfo(activeNetwork);
+    verify(manager, never()).getActiveNetworkInfo();
+    assertThat(connectivity.networkHandle()).isEqualTo(activeNetwork.getNetworkHandle());
+    assertThat(connectivity.state()).isEqualTo(NetworkInfo.State.CONNECTED);
+  }
+
+  @Test @Config(sdk = 23) public void shouldLookUpActiveNetworkOnceWithinCoalescingWindow() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final Network activeNetwork = mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.CONNECTED, NetworkInfo.State.CONNECTED));
+
+    // when
+    final Connectivity first = Connectivity.create(context, manager);
+    final Connectivity second = Connectivity.create(context, manager);
+
+    // then
+    verify(manager, times(1)).getActiveNetwork();
+    verify(manager, times(1)).getNetworkInfo(activeNetwork);
+    assertThat(second.networkHandle()).isEqualTo(first.networkHandle());
+  }
+
+  @Test public void shouldBeBlockedWhenNetworkIsBlockedBySystem() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.BLOCKED, NetworkInfo.State.DISCONNECTED));
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, manager);
+
+    // then
+    assertThat(connectivity.blocked()).isTrue();
+  }
+
+  @Test @Config(sdk = 29)
+  public void shouldBeBlockedWhenDataSaverIsEnabledOnMeteredNetworkInBackground() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    moveAppToBackground(context);
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final Network network = mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.CONNECTED, NetworkInfo.State.CONNECTED));
+    when(manager.getRestrictBackgroundStatus())
+        .thenReturn(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+    mockMeteredNetwork(manager, network, true);
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, manager);
+
+    // then
+    assertThat(connectivity.blocked()).isTrue();
+  }
+
+  @Test @Config(sdk = 29) public void shouldNotBeBlockedWhenDataSaverIsEnabledOnUnmeteredNetwork() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    moveAppToBackground(context);
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final Network network = mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.CONNECTED, NetworkInfo.State.CONNECTED));
+    when(manager.getRestrictBackgroundStatus())
+        .thenReturn(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+    mockMeteredNetwork(manager, network, false);
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, manager);
+
+    // then
+    assertThat(connectivity.blocked()).isFalse();
+  }
+
+  @Test @Config(sdk = 29) public void shouldNotBeBlockedWhenAppIsWhitelistedByDataSaver() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    moveAppToBackground(context);
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final Network network = mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.CONNECTED, NetworkInfo.State.CONNECTED));
+    when(manager.getRestrictBackgroundStatus())
+        .thenReturn(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_WHITELISTED);
+    mockMeteredNetwork(manager, network, true);
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, manager);
+
+    // then
+    assertThat(connectivity.blocked()).isFalse();
+  }
+
+  @Test @Config(sdk = 29) public void shouldNotBeBlockedByDataSaverInForeground() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final Network network = mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.CONNECTED, NetworkInfo.State.CONNECTED));
+    when(manager.getRestrictBackgroundStatus())
+        .thenReturn(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+    mockMeteredNetwork(manager, network, true);
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, manager);
+
+    // then
+    assertThat(connectivity.blocked()).isFalse();
+    verify(manager, never()).getNetworkCapabilities(network);
+  }
+
+  @Test @Config(sdk = 29) public void shouldNotCheckDataSaverWhenNetworkIsNotConnected() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final Network network = mockActiveNetwork(manager,
+        createNetworkInfo(NetworkInfo.DetailedState.BLOCKED, NetworkInfo.State.DISCONNECTED));
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, manager);
+
+    // then
+    assertThat(connectivity.blocked()).isTrue();
+    verify(manager, never()).getRestrictBackgroundStatus();
+    verify(manager, never()).getNetworkCapabilities(network);
+  }
+
+  @Test @Config(sdk = 29) public void shouldCreateConnectivityOfNetworkWithGivenBlockedState() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final ConnectivityManager connectivityManager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    final Network network = connectivityManager.getActiveNetwork();
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context, network, true);
+
+    // then
+    assertThat(connectivity.blocked()).isTrue();
+    assertThat(connectivity.networkHandle()).isEqualTo(network.getNetworkHandle());
+    assertThat(connectivity.state()).isEqualTo(NetworkInfo.State.CONNECTED);
+  }
+
+  @Test public void shouldNotBeEqualWhenBlockedFlagIsDifferent() {
+    // given
+    final Connectivity blocked = Connectivity.blocked(true).build();
+    final Connectivity notBlocked = Connectivity.blocked(false).build();
+
+    // then
+    assertThat(blocked).isNotEqualTo(notBlocked);
+    assertThat(blocked.isSameNetwork(notBlocked)).isTrue();
+  }
+
+  private NetworkInfo createNetworkInfo(final NetworkInfo.DetailedState detailedState,
+      final NetworkInfo.State state) {
+    return ShadowNetworkInfo.newInstance(detailedState, ConnectivityManager.TYPE_MOBILE, 0, true,
+        state);
+  }
+
+  private Network mockActiveNetwork(final ConnectivityManager manager,
+      final NetworkInfo networkInfo) {
+    final Network network = mock(Network.class);
+    when(manager.getActiveNetwork()).thenReturn(network);
+    when(manager.getNetworkInfo(network)).thenReturn(networkInfo);
+    return network;
+  }
+
+  private void moveAppToBackground(final Context context) {
+    final ActivityManager.RunningAppProcessInfo processInfo =
+        new ActivityManager.RunningAppProcessInfo(context.getPackageName(),
+            android.os.Process.myPid(), null);
+    processInfo.importance = ActivityManager.RunningAppProcessInfo.IMPORTANCE_CACHED;
+    final ActivityManager activityManager =
+        (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+    shadowOf(activityManager).setProcesses(Collections.singletonList(processInfo));
+  }
+
+  private void mockMeteredNetwork(final ConnectivityManager manager, final Network network,
+      final boolean isMetered) {
+    final NetworkCapabilities capabilities = ShadowNetworkCapabilities.newInstance();
+    if (isMetered) {
+      shadowOf(capabilities).removeCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    } else {
+      shadowOf(capabilities).addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    }
+    when(manager.getNetworkCapabilities(network)).thenReturn(capabilities);
+  }
+
+  @Test @Config(sdk = 22) public void shouldCreateConnectivityWithoutHandleBeforeMarshmallow() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+
+    // when
+    final Connectivity connectivity = Connectivity.create(context);
+
+    // then
+    assertThat(connectivity.networkHandle()).isEqualTo(Connectivity.UNKNOWN_NETWORK_HANDLE);
+  }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.telephony.TelephonyManager;
+import io.reactivex.Observable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class ConnectivityTransitionTest {
+
+  private final Connectivity wifi = Connectivity.state(NetworkInfo.State.CONNECTED)
+      .type(ConnectivityManager.TYPE_WIFI)
+      .build();
+  private final Connectivity mobile = Connectivity.state(NetworkInfo.State.CONNECTED)
+      .type(ConnectivityManager.TYPE_MOBILE)
+      .subType(TelephonyManager.NETWORK_TYPE_LTE)
+      .build();
+  private final Connectivity disconnected = Connectivity.create();
+
+  @Test public void shouldCreateInitialTransition() {
+    // when
+    final ConnectivityTransition transition = ConnectivityTransition.initial(wifi);
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.INITIAL);
+    assertThat(transition.previous()).isNull();
+    assertThat(transition.current()).isSameInstanceAs(wifi);
+    assertThat(transition.changedFields()).isEqualTo(ConnectivityTransition.ALL_FIELDS);
+  }
+
+  @Test public void shouldDetectConnectedTransition() {
+    // when
+    final ConnectivityTransition transition = ConnectivityTransition.between(disconnected, wifi);
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.CONNECTED);
+    assertThat(transition.hasChanged(ConnectivityTransition.FIELD_STATE)).isTrue();
+  }
+
+  @Test public void shouldDetectDisconnectedTransition() {
+    // when
+    final ConnectivityTransition transition = ConnectivityTransition.between(wifi, disconnected);
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.DISCONNECTED);
+  }
+
+  @Test public void shouldDetectHandover() {
+    // when
+    final ConnectivityTransition transition = ConnectivityTransition.between(wifi, mobile);
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.HANDOVER);
+    assertThat(transition.changedFields())
+        .isEqualTo(ConnectivityTransition.FIELD_TYPE | ConnectivityTransition.FIELD_SUB_TYPE);
+    assertThat(transition.hasChanged(ConnectivityTransition.FIELD_STATE)).isFalse();
+  }
+
+  @Test public void shouldDetectHandoverBetweenNetworksOfTheSameType() {
+    // given
+    final Connectivity first = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .type(ConnectivityManager.TYPE_WIFI)
+        .networkHandle(100L)
+        .build();
+    final Connectivity second = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .type(ConnectivityManager.TYPE_WIFI)
+        .networkHandle(200L)
+        .build();
+
+    // when
+    final ConnectivityTransition transition = ConnectivityTransition.between(first, second);
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.HANDOVER);
+    assertThat(transition.changedFields()).isEqualTo(ConnectivityTransition.FIELD_NETWORK);
+  }
+
+  @Test public void shouldDetectUpdateOfRoaming() {
+    // given
+    final Connectivity roaming = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .type(ConnectivityManager.TYPE_MOBILE)
+        .subType(TelephonyManager.NETWORK_TYPE_LTE)
+        .roaming(true)
+        .build();
+
+    // when
+    final ConnectivityTransition transition = ConnectivityTransition.between(mobile, roaming);
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.UPDATED);
+    assertThat(transition.changedFields()).isEqualTo(ConnectivityTransition.FIELD_ROAMING);
+  }
+
+  @Test public void shouldDetectUpdateOfBlockedFlag() {
+    // given
+    final Connectivity notBlocked = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .type(ConnectivityManager.TYPE_MOBILE)
+        .build();
+    final Connectivity blocked = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .type(ConnectivityManager.TYPE_MOBILE)
+        .blocked(true)
+        .build();
+
+    // when
+    final ConnectivityTransition transition = ConnectivityTransition.between(notBlocked, blocked);
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.UPDATED);
+    assertThat(transition.changedFields()).isEqualTo(ConnectivityTransition.FIELD_BLOCKED);
+  }
+
+  @Test public void shouldNotDetectChangesOfEqualSnapshots() {
+    // given
+    final Connectivity otherWifi = Connectivity.state(NetworkInfo.State.CONNECTED)
+        .type(ConnectivityManager.TYPE_WIFI)
+        .build();
+
+    // when
+    final int changedFields = ConnectivityTransition.changedFields(wifi, otherWifi);
+
+    // then
+    assertThat(changedFields).isEqualTo(0);
+  }
+
+  @Test public void shouldEmitTransitionsOfChangedSnapshotsOnly() {
+    // when
+    final Observable<ConnectivityTransition> transitions =
+        Observable.just(disconnected, wifi, wifi, mobile)
+            .lift(new ConnectivityTransitionOperator());
+
+    // then
+    transitions.map(transition -> transition.type()).test().assertValues(
+        ConnectivityTransition.Type.INITIAL,
+        ConnectivityTransition.Type.CONNECTED,
+        ConnectivityTransition.Type.HANDOVER);
+  }
+}
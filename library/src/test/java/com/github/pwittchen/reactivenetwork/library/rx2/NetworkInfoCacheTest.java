@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkInfo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD", "NullAway" }) public class NetworkInfoCacheTest {
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private Context context;
+  @Mock private Context applicationContext;
+  @Mock private ConnectivityManager manager;
+  @Mock private NetworkInfo networkInfo;
+  @Mock private Network network;
+  @Mock private Network anotherNetwork;
+
+  private long currentTimeInMs;
+  private NetworkInfoCache cache;
+
+  @Before public void setUp() {
+    currentTimeInMs = 0L;
+    cache = new NetworkInfoCache() {
+      @Override protected long now() {
+        return currentTimeInMs;
+      }
+    };
+    when(context.getApplicationContext()).thenReturn(applicationContext);
+    when(applicationContext.getApplicationContext()).thenReturn(applicationContext);
+    when(applicationContext.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    when(manager.getActiveNetworkInfo()).thenReturn(networkInfo);
+    when(manager.getNetworkInfo(network)).thenReturn(networkInfo);
+  }
+
+  @Test public void shouldReuseConnectivityManagerForTheSameApplication() {
+    // when
+    final ConnectivityManager first = cache.getConnectivityManager(context);
+    final ConnectivityManager second = cache.getConnectivityManager(applicationContext);
+
+    // then
+    assertThat(first).isSameInstanceAs(manager);
+    assertThat(second).isSameInstanceAs(manager);
+    verify(applicationContext, times(1)).getSystemService(Context.CONNECTIVITY_SERVICE);
+  }
+
+  @Test public void shouldNotUseContextOtherThanApplicationContext() {
+    // when
+    cache.getConnectivityManager(context);
+
+    // then
+    verify(context, never()).getSystemService(Context.CONNECTIVITY_SERVICE);
+  }
+
+  @Test public void shouldCoalesceNetworkInfoRequestsWithinWindow() {
+    // when
+    final NetworkInfo first = cache.getNetworkInfo(manager, network);
+    currentTimeInMs += NetworkInfoCache.COALESCING_WINDOW_IN_MS - 1;
+    final NetworkInfo second = cache.getNetworkInfo(manager, network);
+
+    // then
+    assertThat(first).isSameInstanceAs(networkInfo);
+    assertThat(second).isSameInstanceAs(networkInfo);
+    verify(manager, times(1)).getNetworkInfo(network);
+  }
+
+  @Test public void shouldQueryNetworkInfoAgainAfterWindow() {
+    // when
+    cache.getNetworkInfo(manager, network);
+    currentTimeInMs += NetworkInfoCache.COALESCING_WINDOW_IN_MS;
+    cache.getNetworkInfo(manager, network);
+
+    // then
+    verify(manager, times(2)).getNetworkInfo(network);
+  }
+
+  @Test public void shouldNotReuseNetworkInfoOfAnotherNetwork() {
+    // when
+    cache.getNetworkInfo(manager, network);
+    cache.getNetworkInfo(manager, anotherNetwork);
+    cache.getNetworkInfo(manager, network);
+
+    // then
+    verify(manager, times(2)).getNetworkInfo(network);
+    verify(manager).getNetworkInfo(anotherNetwork);
+  }
+
+  @Test public void shouldCoalesceActiveNetworkInfoRequestsWithinWindow() {
+    // when
+    final NetworkInfo first = cache.getActiveNetworkInfo(manager);
+    currentTimeInMs += NetworkInfoCache.COALESCING_WINDOW_IN_MS - 1;
+    final NetworkInfo second = cache.getActiveNetworkInfo(manager);
+
+    // then
+    assertThat(first).isSameInstanceAs(networkInfo);
+    assertThat(second).isSameInstanceAs(networkInfo);
+    verify(manager, times(1)).getActiveNetworkInfo();
+  }
+
+  @Test public void shouldQueryActiveNetworkInfoAgainAfterWindow() {
+    // when
+    cache.getActiveNetworkInfo(manager);
+    currentTimeInMs += NetworkInfoCache.COALESCING_WINDOW_IN_MS;
+    cache.getActiveNetworkInfo(manager);
+
+    // then
+    verify(manager, times(2)).getActiveNetworkInfo();
+  }
+
+  @Test @Config(sdk = 23) public void shouldCoalesceActiveNetworkRequestsWithinWindow() {
+    // given
+    when(manager.getActiveNetwork()).thenReturn(network, anotherNetwork);
+
+    // when
+    final Network first = cache.getActiveNetwork(manager);
+    currentTimeInMs += NetworkInfoCache.COALESCING_WINDOW_IN_MS - 1;
+    final Network second = cache.getActiveNetwork(manager);
+
+    // then
+    assertThat(first).isSameInstanceAs(network);
+    assertThat(second).isSameInstanceAs(network);
+    verify(manager, times(1)).getActiveNetwork();
+  }
+
+  @Test @Config(sdk = 23) public void shouldQueryActiveNetworkAgainAfterWindow() {
+    // given
+    when(manager.getActiveNetwork()).thenReturn(network, anotherNetwork);
+
+    // when
+    final Network first = cache.getActiveNetwork(manager);
+    currentTimeInMs += NetworkInfoCache.COALESCING_WINDOW_IN_MS;
+    final Network second = cache.getActiveNetwork(manager);
+
+    // then
+    assertThat(first).isSameInstanceAs(network);
+    assertThat(second).isSameInstanceAs(anotherNetwork);
+  }
+
+  @Test @Config(sdk = 29) public void shouldReadRestrictBackgroundStatusOnce() {
+    // given
+    when(manager.getRestrictBackgroundStatus())
+        .thenReturn(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+
+    // when
+    cache.getRestrictBackgroundStatus(context, manager);
+    final int status = cache.getRestrictBackgroundStatus(context, manager);
+
+    // then
+    assertThat(status).isEqualTo(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+    verify(manager, times(1)).getRestrictBackgroundStatus();
+  }
+
+  @Test @Config(sdk = 29) public void shouldReadRestrictBackgroundStatusAgainAfterChange() {
+    // given
+    when(manager.getRestrictBackgroundStatus())
+        .thenReturn(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_DISABLED);
+    cache.getRestrictBackgroundStatus(context, manager);
+    final ArgumentCaptor<BroadcastReceiver> receiver =
+        ArgumentCaptor.forClass(BroadcastReceiver.class);
+    verify(applicationContext).registerReceiver(receiver.capture(), any(IntentFilter.class));
+    when(manager.getRestrictBackgroundStatus())
+        .thenReturn(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+
+    // when
+    receiver.getValue().onReceive(applicationContext,
+        new Intent(ConnectivityManager.ACTION_RESTRICT_BACKGROUND_CHANGED));
+    final int status = cache.getRestrictBackgroundStatus(context, manager);
+
+    // then
+    assertThat(status).isEqualTo(ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+    verify(manager, times(2)).getRestrictBackgroundStatus();
+  }
+}
@@ -48,6 +48,16 @@ import static com.google.common.truth.Truth.assertThat;
     assertThat(isAtLeastAndroidMarshmallow).isTrue();
   }
 
+  @Test @Config(sdk = 23) public void shouldNotBeAtLeastAndroidNougatForLowerApi() {
+    boolean isAtLeastAndroidNougat = Preconditions.isAtLeastAndroidNougat();
+    assertThat(isAtLeastAndroidNougat).isFalse();
+  }
+
+  @Test @Config(sdk = 29) public void shouldBeAtLeastAndroidNougat() {
+    boolean isAtLeastAndroidNougat = Preconditions.isAtLeastAndroidNougat();
+    assertThat(isAtLeastAndroidNougat).isTrue();
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void shouldThrowAnExceptionWhenStringIsNull() {
     Preconditions.checkNotNullOrEmpty(null, MSG_STRING_IS_NULL);
@@ -17,6 +17,9 @@ package com.github.pwittchen.reactivenetwork.library.rx2;
 
 import android.app.Application;
 import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 import androidx.annotation.NonNull;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingSettings;
@@ -24,17 +27,27 @@ import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.Inter
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.DefaultErrorHandler;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy.SocketInternetObservingStrategy;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkHandover;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkLinkProperties;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy.LollipopNetworkObservingStrategy;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.TestScheduler;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowConnectivityManager;
+import org.robolectric.shadows.ShadowNetworkInfo;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -65,6 +78,10 @@ import static com.google.common.truth.Truth.assertThat;
     networkConnectivityObservableShouldNotBeNull();
   }
 
+  @Test @Config(sdk = 29) public void observeNetworkConnectivityShouldNotBeNullForNougat() {
+    networkConnectivityObservableShouldNotBeNull();
+  }
+
   @Test @Config(sdk = 23) public void observeNetworkConnectivityShouldNotBeNullForMarshmallow() {
     // given
     networkConnectivityObservableShouldNotBeNull();
@@ -90,6 +107,157 @@ import static com.google.common.truth.Truth.assertThat;
     assertThat(observable).isNotNull();
   }
 
+  @Test public void observeNetworkConnectivityWithSettingsShouldNotBeNull() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .build();
+
+    // when
+    Observable<Connectivity> observable;
+    observable = ReactiveNetwork.observeNetworkConnectivity(context, settings);
+
+    // then
+    assertThat(observable).isNotNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void observeNetworkConnectivityShouldThrowAnExceptionForNullSettings() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+    final NetworkObservingSettings settings = null;
+
+    // when
+    ReactiveNetwork.observeNetworkConnectivity(context, settings);
+  }
+
+  @Test public void shouldEmitInitialConnectivityTransition() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+
+    // when
+    final ConnectivityTransition transition =
+        ReactiveNetwork.observeConnectivityTransitions(context).blockingFirst();
+
+    // then
+    assertThat(transition.type()).isEqualTo(ConnectivityTransition.Type.INITIAL);
+    assertThat(transition.previous()).isNull();
+  }
+
+  @Test public void shouldRegisterOneNetworkCallbackForManyTransitionSubscribers() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+    final ConnectivityManager manager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    final Observable<ConnectivityTransition> transitions =
+        ReactiveNetwork.observeConnectivityTransitions(context);
+
+    // when
+    final TestObserver<ConnectivityTransition> first = transitions.test();
+    final TestObserver<ConnectivityTransition> second = transitions.test();
+
+    // then
+    assertThat(Shadows.shadowOf(manager).getNetworkCallbacks()).hasSize(1);
+    first.dispose();
+    second.dispose();
+    assertThat(Shadows.shadowOf(manager).getNetworkCallbacks()).isEmpty();
+  }
+
+  @Test public void observeLinkPropertiesShouldNotBeNull() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+
+    // when
+    Observable<NetworkLinkProperties> observable;
+    observable = ReactiveNetwork.observeLinkProperties(context);
+
+    // then
+    assertThat(observable).isNotNull();
+  }
+
+  @Test public void checkInternetConnectivityOfNetworksShouldNotBeNull() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+
+    // when
+    Single<Map<Network, Boolean>> single;
+    single = ReactiveNetwork.checkInternetConnectivityOfNetworks(context,
+        InternetObservingSettings.create());
+
+    // then
+    assertThat(single).isNotNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void checkInternetConnectivityOfNetworksShouldThrowAnExceptionForUnboundStrategy() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(createTestInternetObservingStrategy())
+        .build();
+
+    // when
+    ReactiveNetwork.checkInternetConnectivityOfNetworks(context, settings);
+  }
+
+  @Test public void requestNetworkShouldNotBeNull() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+
+    // when
+    Observable<Network> observable;
+    observable = ReactiveNetwork.requestNetwork(context, NetworkObservingSettings.create());
+
+    // then
+    assertThat(observable).isNotNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requestNetworkShouldNotAcceptZeroTimeout() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+
+    // when
+    ReactiveNetwork.requestNetwork(context, NetworkObservingSettings.create(), 0);
+  }
+
+  @Test public void shouldRequestAndReleaseNetworkWithDefaultRequest() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+    final ConnectivityManager manager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+    // when
+    final TestObserver<Network> observer = ReactiveNetwork.requestNetwork(context).test();
+
+    // then
+    assertThat(Shadows.shadowOf(manager).getNetworkCallbacks()).hasSize(1);
+    observer.dispose();
+    assertThat(Shadows.shadowOf(manager).getNetworkCallbacks()).isEmpty();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requestNetworkWithDefaultRequestShouldNotAcceptZeroTimeout() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+
+    // when
+    ReactiveNetwork.requestNetwork(context, 0);
+  }
+
+  @Test public void observeNetworkHandoversShouldNotBeNull() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+
+    // when
+    Observable<NetworkHandover> observable;
+    observable = ReactiveNetwork.observeNetworkHandovers(context);
+
+    // then
+    assertThat(observable).isNotNull();
+  }
+
   @Test public void observeNetworkConnectivityWithStrategyShouldNotBeNull() {
     // given
     final Application context = RuntimeEnvironment.getApplication();
@@ -263,6 +431,161 @@ import static com.google.common.truth.Truth.assertThat;
     assertThat(single).isNotNull();
   }
 
+  @Test
+  public void shouldEmitFalseWhenDeadlineIsExceeded() {
+    // given
+    final TestScheduler scheduler = new TestScheduler();
+    RxJavaPlugins.setComputationSchedulerHandler(current -> scheduler);
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(createNeverEndingInternetObservingStrategy())
+        .timeout(100)
+        .deadline(100)
+        .build();
+
+    // when
+    final TestObserver<Boolean> observer =
+        ReactiveNetwork.checkInternetConnectivity(settings).test();
+    scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+    RxJavaPlugins.reset();
+
+    // then
+    observer.assertValue(false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionForNegativeDeadline() {
+    // given
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(createTestInternetObservingStrategy())
+        .deadline(-1)
+        .build();
+
+    // when
+    ReactiveNetwork.checkInternetConnectivity(settings);
+  }
+
+  @Test public void shouldObserveNetworkConnectivityAsFlowable() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication();
+    final Connectivity connectivity = Connectivity.state(NetworkInfo.State.CONNECTED).build();
+    final NetworkObservingStrategy strategy = new NetworkObservingStrategy() {
+      @Override public Observable<Connectivity> observeNetworkConnectivity(Context context) {
+        return Observable.just(connectivity);
+      }
+
+      @Override public void onError(String message, Exception exception) {
+      }
+    };
+
+    // when
+    final Connectivity observed = ReactiveNetwork.observeNetworkConnectivityFlowable(context,
+        strategy, BackpressureSettings.buffer(1)).blockingFirst();
+
+    // then
+    assertThat(observed).isSameInstanceAs(connectivity);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void observeNetworkConnectivityFlowableShouldThrowAnExceptionForNullSettings() {
+    // given
+    final Context context = RuntimeEnvironment.getApplication();
+    final NetworkObservingStrategy strategy = new LollipopNetworkObservingStrategy();
+
+    // when
+    ReactiveNetwork.observeNetworkConnectivityFlowable(context, strategy, null);
+  }
+
+  @Test public void shouldObserveInternetConnectivityAsFlowable() {
+    // given
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(createSingleValueInternetObservingStrategy())
+        .build();
+
+    // when
+    final boolean isConnected =
+        ReactiveNetwork.observeInternetConnectivityFlowable(settings).blockingFirst();
+
+    // then
+    assertThat(isConnected).isTrue();
+  }
+
+  @Test public void shouldObserveInternetConnectivityWhenDataIsNotBlocked() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(createSingleValueInternetObservingStrategy())
+        .build();
+
+    // when
+    final boolean isConnected =
+        ReactiveNetwork.observeInternetConnectivity(context, settings).blockingFirst();
+
+    // then
+    assertThat(isConnected).isTrue();
+  }
+
+  @Test @Config(sdk = 29) public void shouldNotObserveInternetConnectivityWhenDataIsBlocked() {
+    // given
+    final Application context = RuntimeEnvironment.getApplication();
+    final ConnectivityManager manager =
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    final ShadowConnectivityManager shadowManager = Shadows.shadowOf(manager);
+    shadowManager.setRestrictBackgroundStatus(
+        ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED);
+    shadowManager.setActiveNetworkInfo(ShadowNetworkInfo.newInstance(
+        NetworkInfo.DetailedState.CONNECTED, ConnectivityManager.TYPE_MOBILE, 0, true,
+        NetworkInfo.State.CONNECTED));
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(createSingleValueInternetObservingStrategy())
+        .build();
+
+    // when
+    final TestObserver<Boolean> observer =
+        ReactiveNetwork.observeInternetConnectivity(context, settings).test();
+
+    // then
+    observer.assertNoValues();
+    observer.dispose();
+  }
+
+  @NonNull private InternetObservingStrategy createSingleValueInternetObservingStrategy() {
+    return new InternetObservingStrategy() {
+      @Override public Observable<Boolean> observeInternetConnectivity(int initialIntervalInMs,
+          int intervalInMs, String host, int port, int timeoutInMs, int httpResponse,
+          ErrorHandler errorHandler) {
+        return Observable.just(true);
+      }
+
+      @Override public Single<Boolean> checkInternetConnectivity(String host, int port,
+          int timeoutInMs, int httpResponse, ErrorHandler errorHandler) {
+        return Single.just(true);
+      }
+
+      @Override public String getDefaultPingHost() {
+        return "www.test.com";
+      }
+    };
+  }
+
+  @NonNull private InternetObservingStrategy createNeverEndingInternetObservingStrategy() {
+    return new InternetObservingStrategy() {
+      @Override public Observable<Boolean> observeInternetConnectivity(int initialIntervalInMs,
+          int intervalInMs, String host, int port, int timeoutInMs, int httpResponse,
+          ErrorHandler errorHandler) {
+        return Observable.never();
+      }
+
+      @Override public Single<Boolean> checkInternetConnectivity(String host, int port,
+          int timeoutInMs, int httpResponse, ErrorHandler errorHandler) {
+        return Single.never();
+      }
+
+      @Override public String getDefaultPingHost() {
+        return null;
+      }
+    };
+  }
+
   @NonNull private InternetObservingStrategy createTestInternetObservingStrategy() {
     return new InternetObservingStrategy() {
       @Override public Observable<Boolean> observeInternetConnectivity(int initialIntervalInMs,
@@ -288,11 +611,11 @@ import static com.google.common.truth.Truth.assertThat;
   }
 
   @Test
-  public void shouldHaveJustSevenMethodsInPublicApi() {
+  public void shouldHaveJustTwentyFourMethodsInPublicApi() {
     // given
     Class<? extends ReactiveNetwork> clazz = ReactiveNetwork.create().getClass();
     final int predefinedNumberOfMethods = 9;
-    final int publicMethodsInApi = 7; // this number can be increased only in reasonable case
+    final int publicMethodsInApi = 24; // this number can be increased only in reasonable case
 
     // when
     Method[] methods = clazz.getMethods();
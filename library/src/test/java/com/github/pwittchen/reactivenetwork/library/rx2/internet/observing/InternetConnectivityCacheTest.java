@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing;
+
+import android.net.Network;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.DefaultErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.SingleSubject;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class InternetConnectivityCacheTest {
+
+  private static final int MAX_AGE_IN_MS = 1000;
+
+  private final AtomicInteger checks = new AtomicInteger();
+  private SingleSubject<Boolean> result;
+  private long now;
+  private InternetConnectivityCache cache;
+
+  @Before public void setUp() {
+    result = SingleSubject.create();
+    now = 0;
+    cache = new InternetConnectivityCache() {
+      @Override protected long now() {
+        return now;
+      }
+    };
+  }
+
+  @Test public void shouldShareCheckInProgress() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    final InternetObservingSettings equalSettings = InternetObservingSettings.builder()
+        .strategy(settings.strategy())
+        .build();
+
+    // when
+    final TestObserver<Boolean> first = cache.check(settings, 0).test();
+    final TestObserver<Boolean> second = cache.check(equalSettings, 0).test();
+    result.onSuccess(true);
+
+    // then
+    assertThat(checks.get()).isEqualTo(1);
+    first.assertValue(true);
+    second.assertValue(true);
+  }
+
+  @Test public void shouldReturnFreshResultWithoutChecking() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    cache.check(settings, MAX_AGE_IN_MS).test();
+    result.onSuccess(true);
+    now += MAX_AGE_IN_MS;
+
+    // when
+    final TestObserver<Boolean> observer = cache.check(settings, MAX_AGE_IN_MS).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(1);
+    observer.assertValue(true);
+  }
+
+  @Test public void shouldCheckAgainWhenResultIsTooOld() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    cache.check(settings, MAX_AGE_IN_MS).test();
+    result.onSuccess(true);
+    now += MAX_AGE_IN_MS + 1;
+
+    // when
+    cache.check(settings, MAX_AGE_IN_MS).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(2);
+  }
+
+  @Test public void shouldCheckAgainWhenMaxAgeIsZero() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    cache.check(settings, 0).test();
+    result.onSuccess(true);
+
+    // when
+    cache.check(settings, 0).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(2);
+  }
+
+  @Test public void shouldCheckAgainAfterInvalidation() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    cache.check(settings, MAX_AGE_IN_MS).test();
+    result.onSuccess(true);
+
+    // when
+    cache.invalidate();
+    cache.check(settings, MAX_AGE_IN_MS).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(2);
+  }
+
+  @Test public void shouldNotShareCheckWithDifferentSettings() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    final InternetObservingSettings otherSettings = InternetObservingSettings.builder()
+        .strategy(settings.strategy())
+        .port(443)
+        .build();
+
+    // when
+    cache.check(settings, 0).test();
+    cache.check(otherSettings, 0).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(2);
+  }
+
+  @Test public void shouldShareCheckOfDefaultSettings() {
+    // given
+    final InternetObservingSettings settings = InternetObservingSettings.create();
+    final InternetObservingSettings otherSettings = InternetObservingSettings.create();
+
+    // then
+    assertThat(otherSettings.strategy()).isSameInstanceAs(settings.strategy());
+    assertThat(otherSettings.errorHandler()).isSameInstanceAs(settings.errorHandler());
+  }
+
+  @Test public void shouldNotShareCheckWithDifferentStrategyInstances() {
+    // when
+    cache.check(createSettings(), MAX_AGE_IN_MS).test();
+    result.onSuccess(true);
+    cache.check(createSettings(), MAX_AGE_IN_MS).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(2);
+  }
+
+  @Test public void shouldNotShareCheckOfBoundStrategyWithDefaultOne() {
+    // given
+    final BindableCountingStrategy strategy = new BindableCountingStrategy();
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(strategy)
+        .build();
+    final InternetObservingSettings boundSettings = InternetObservingSettings.builder()
+        .strategy(strategy.bindTo(mock(Network.class)))
+        .build();
+
+    // when
+    cache.check(settings, MAX_AGE_IN_MS).test();
+    cache.check(boundSettings, MAX_AGE_IN_MS).test();
+    result.onSuccess(true);
+    cache.check(settings, MAX_AGE_IN_MS).test();
+    cache.check(boundSettings, MAX_AGE_IN_MS).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test public void shouldNotShareCheckWithDifferentErrorHandlers() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    final InternetObservingSettings otherSettings = InternetObservingSettings.builder()
+        .strategy(settings.strategy())
+        .errorHandler(new DefaultErrorHandler())
+        .build();
+
+    // when
+    cache.check(settings, 0).test();
+    cache.check(otherSettings, 0).test();
+
+    // then
+    assertThat(checks.get()).isEqualTo(2);
+  }
+
+  @Test public void shouldEvictIdleEntriesAfterInvalidation() {
+    // given
+    cache.check(createSettings(), MAX_AGE_IN_MS).test();
+    result.onSuccess(true);
+
+    // when
+    cache.invalidate();
+
+    // then
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test public void shouldNotKeepMoreIdleEntriesThanLimit() {
+    // given
+    result.onSuccess(true);
+
+    // when
+    for (int i = 0; i < 100; i++) {
+      cache.check(createSettings(), MAX_AGE_IN_MS).test();
+    }
+
+    // then
+    assertThat(cache.size()).isAtMost(17);
+  }
+
+  @Test public void shouldNotEvictEntriesWithCheckInProgress() {
+    // given
+    cache.check(createSettings(), 0).test();
+
+    // when
+    cache.invalidate();
+
+    // then
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test public void shouldCancelCheckWhenAllObserversAreDisposed() {
+    // given
+    final InternetObservingSettings settings = createSettings();
+    final TestObserver<Boolean> first = cache.check(settings, 0).test();
+    final TestObserver<Boolean> second = cache.check(settings, 0).test();
+
+    // when
+    first.dispose();
+    second.dispose();
+
+    // then
+    assertThat(result.hasObservers()).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowNegativeMaxAge() {
+    cache.check(createSettings(), -1);
+  }
+
+  private InternetObservingSettings createSettings() {
+    return InternetObservingSettings.builder()
+        .strategy(new CountingStrategy())
+        .build();
+  }
+
+  private class CountingStrategy implements InternetObservingStrategy {
+    @Override public Observable<Boolean> observeInternetConnectivity(int initialIntervalInMs,
+        int intervalInMs, String host, int port, int timeoutInMs, int httpResponse,
+        ErrorHandler errorHandler) {
+      return Observable.never();
+    }
+
+    @Override public Single<Boolean> checkInternetConnectivity(String host, int port,
+        int timeoutInMs, int httpResponse, ErrorHandler errorHandler) {
+      checks.incrementAndGet();
+      return result;
+    }
+
+    @Override public String getDefaultPingHost() {
+      return "http://clients3.google.com/generate_204";
+    }
+  }
+
+  private final class BindableCountingStrategy extends CountingStrategy
+      implements BindableInternetObservingStrategy {
+    @Override public InternetObservingStrategy bindTo(Network network) {
+      return new CountingStrategy();
+    }
+  }
+}
@@ -52,6 +52,7 @@ public class InternetObservingSettingsTest {
     assertThat(settings.httpResponse()).isEqualTo(204);
     assertThat(settings.errorHandler()).isInstanceOf(DefaultErrorHandler.class);
     assertThat(settings.strategy()).isInstanceOf(WalledGardenInternetObservingStrategy.class);
+    assertThat(settings.deadline()).isEqualTo(0);
   }
 
   @Test
@@ -63,6 +64,7 @@ public class InternetObservingSettingsTest {
     int port = 90;
     int timeout = 3;
     int httpResponse = 200;
+    int deadline = 4;
     ErrorHandler testErrorHandler = createTestErrorHandler();
     SocketInternetObservingStrategy strategy = new SocketInternetObservingStrategy();
 
@@ -76,6 +78,7 @@ public class InternetObservingSettingsTest {
         .httpResponse(httpResponse)
         .errorHandler(testErrorHandler)
         .strategy(strategy)
+        .deadline(deadline)
         .build();
 
     // then
@@ -88,6 +91,32 @@ public class InternetObservingSettingsTest {
     assertThat(settings.errorHandler()).isNotNull();
     assertThat(settings.errorHandler()).isNotInstanceOf(DefaultErrorHandler.class);
     assertThat(settings.strategy()).isInstanceOf(SocketInternetObservingStrategy.class);
+    assertThat(settings.deadline()).isEqualTo(deadline);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionForNegativeDeadline() {
+    InternetObservingSettings.builder().deadline(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionWhenDeadlineIsShorterThanTimeout() {
+    InternetObservingSettings.builder()
+        .timeout(2000)
+        .deadline(1000)
+        .build();
+  }
+
+  @Test
+  public void shouldBuildSettingsWithoutDeadline() {
+    // when
+    InternetObservingSettings settings = InternetObservingSettings.builder()
+        .timeout(2000)
+        .deadline(0)
+        .build();
+
+    // then
+    assertThat(settings.deadline()).isEqualTo(0);
   }
 
   @NonNull private ErrorHandler createTestErrorHandler() {
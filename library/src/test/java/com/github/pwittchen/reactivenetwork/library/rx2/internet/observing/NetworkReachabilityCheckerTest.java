@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy.SocketInternetObservingStrategy;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class NetworkReachabilityCheckerTest {
+
+  private static final int TIMEOUT_IN_MS = 10;
+
+  private final Network wifiNetwork = mock(Network.class);
+  private final Network cellularNetwork = mock(Network.class);
+  private final Map<Network, Single<Boolean>> results = new HashMap<>();
+
+  @Test public void shouldCheckEachNetworkIndependently() {
+    // given
+    results.put(wifiNetwork, Single.just(false));
+    results.put(cellularNetwork, Single.just(true));
+    final NetworkReachabilityChecker checker = new NetworkReachabilityChecker(createSettings(0));
+
+    // when
+    final Map<Network, Boolean> reachability =
+        checker.checkNetworks(Arrays.asList(wifiNetwork, cellularNetwork)).blockingGet();
+
+    // then
+    assertThat(reachability).containsExactly(wifiNetwork, false, cellularNetwork, true);
+  }
+
+  @Test public void shouldMapNetworkToFalseWhenProbeFails() {
+    // given
+    results.put(wifiNetwork, Single.<Boolean>error(new IllegalStateException()));
+    results.put(cellularNetwork, Single.just(true));
+    final NetworkReachabilityChecker checker = new NetworkReachabilityChecker(createSettings(0));
+
+    // when
+    final Map<Network, Boolean> reachability =
+        checker.checkNetworks(Arrays.asList(wifiNetwork, cellularNetwork)).blockingGet();
+
+    // then
+    assertThat(reachability).containsExactly(wifiNetwork, false, cellularNetwork, true);
+  }
+
+  @Test public void shouldMapNetworkToFalseWhenDeadlineIsExceeded() {
+    // given
+    results.put(wifiNetwork, Single.<Boolean>never());
+    results.put(cellularNetwork, Single.just(true));
+    final NetworkReachabilityChecker checker = new NetworkReachabilityChecker(createSettings(50));
+
+    // when
+    final Map<Network, Boolean> reachability =
+        checker.checkNetworks(Arrays.asList(wifiNetwork, cellularNetwork)).blockingGet();
+
+    // then
+    assertThat(reachability).containsExactly(wifiNetwork, false, cellularNetwork, true);
+  }
+
+  @Test public void shouldCheckOnlyNetworksWithInternetCapability() {
+    // given
+    results.put(wifiNetwork, Single.just(true));
+    results.put(cellularNetwork, Single.just(true));
+    final Context context = mock(Context.class);
+    final ConnectivityManager manager = mock(ConnectivityManager.class);
+    final NetworkCapabilities internetCapabilities = mock(NetworkCapabilities.class);
+    final NetworkCapabilities otherCapabilities = mock(NetworkCapabilities.class);
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    when(manager.getAllNetworks()).thenReturn(new Network[] { wifiNetwork, cellularNetwork });
+    when(manager.getNetworkCapabilities(wifiNetwork)).thenReturn(internetCapabilities);
+    when(manager.getNetworkCapabilities(cellularNetwork)).thenReturn(otherCapabilities);
+    when(internetCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET))
+        .thenReturn(true);
+    final NetworkReachabilityChecker checker = new NetworkReachabilityChecker(createSettings(0));
+
+    // when
+    final Map<Network, Boolean> reachability = checker.checkNetworks(context).blockingGet();
+
+    // then
+    assertThat(reachability).containsExactly(wifiNetwork, true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptStrategyWhichCannotBeBound() {
+    // given
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(mock(InternetObservingStrategy.class))
+        .build();
+
+    // when
+    new NetworkReachabilityChecker(settings);
+  }
+
+  @Test public void shouldAcceptDefaultStrategy() {
+    // given
+    final InternetObservingSettings settings = InternetObservingSettings.builder()
+        .strategy(new SocketInternetObservingStrategy())
+        .build();
+
+    // when
+    final NetworkReachabilityChecker checker = new NetworkReachabilityChecker(settings);
+
+    // then
+    assertThat(checker).isNotNull();
+  }
+
+  private InternetObservingSettings createSettings(final int deadlineInMs) {
+    return InternetObservingSettings.builder()
+        .strategy(new FakeBindableStrategy())
+        .timeout(TIMEOUT_IN_MS)
+        .deadline(deadlineInMs)
+        .build();
+  }
+
+  private class FakeBindableStrategy implements BindableInternetObservingStrategy {
+    @Override public InternetObservingStrategy bindTo(final Network network) {
+      return new FakeBindableStrategy() {
+        @Override public Single<Boolean> checkInternetConnectivity(final String host,
+            final int port, final int timeoutInMs, final int httpResponse,
+            final ErrorHandler errorHandler) {
+          return results.get(network);
+        }
+      };
+    }
+
+    @Override public Observable<Boolean> observeInternetConnectivity(
+        final int initialIntervalInMs, final int intervalInMs, final String host, final int port,
+        final int timeoutInMs, final int httpResponse, final ErrorHandler errorHandler) {
+      return Observable.never();
+    }
+
+    @Override public Single<Boolean> checkInternetConnectivity(final String host, final int port,
+        final int timeoutInMs, final int httpResponse, final ErrorHandler errorHandler) {
+      return Single.never();
+    }
+
+    @Override public String getDefaultPingHost() {
+      return "www.website.com";
+    }
+  }
+}
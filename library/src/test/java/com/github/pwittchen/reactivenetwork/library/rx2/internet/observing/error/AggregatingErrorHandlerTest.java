@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error;
+
+import io.reactivex.schedulers.TestScheduler;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class AggregatingErrorHandlerTest {
+
+  private static final int FLUSH_INTERVAL_IN_MS = 1000;
+  private static final int MAX_DISTINCT_ERRORS = 2;
+  private static final String MESSAGE = "Could not establish connection";
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  private final TestScheduler scheduler = new TestScheduler();
+  @Spy private AggregatingErrorHandler handler =
+      new AggregatingErrorHandler(FLUSH_INTERVAL_IN_MS, MAX_DISTINCT_ERRORS, scheduler);
+
+  @Test public void shouldNotLogErrorImmediately() {
+    // when
+    handler.handleError(new IOException(), MESSAGE);
+
+    // then
+    verify(handler, never()).log(any(Exception.class), anyString(), anyInt());
+  }
+
+  @Test public void shouldLogDeduplicatedErrorsAfterFlushInterval() {
+    // given
+    final IOException exception = new IOException("timeout");
+
+    // when
+    handler.handleError(exception, MESSAGE);
+    handler.handleError(new IOException("timeout"), MESSAGE);
+    handler.handleError(new IOException("timeout"), MESSAGE);
+    scheduler.advanceTimeBy(FLUSH_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+
+    // then
+    verify(handler, times(1)).log(exception, MESSAGE, 3);
+  }
+
+  @Test public void shouldLogDistinctErrorsSeparately() {
+    // given
+    final IOException first = new IOException("timeout");
+    final IllegalStateException second = new IllegalStateException("timeout");
+
+    // when
+    handler.handleError(first, MESSAGE);
+    handler.handleError(second, MESSAGE);
+    scheduler.advanceTimeBy(FLUSH_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+
+    // then
+    verify(handler).log(first, MESSAGE, 1);
+    verify(handler).log(second, MESSAGE, 1);
+  }
+
+  @Test public void shouldCountErrorsAboveTheLimitOfDistinctErrors() {
+    // when
+    handler.handleError(new IOException("first"), MESSAGE);
+    handler.handleError(new IOException("second"), MESSAGE);
+    handler.handleError(new IOException("third"), MESSAGE);
+    handler.handleError(new IOException("fourth"), MESSAGE);
+    scheduler.advanceTimeBy(FLUSH_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+
+    // then
+    verify(handler, times(2)).log(any(Exception.class), anyString(), anyInt());
+    verify(handler).logDropped(2);
+  }
+
+  @Test public void shouldAcceptNewDistinctErrorsAfterFlush() {
+    // given
+    handler.handleError(new IOException("first"), MESSAGE);
+    handler.handleError(new IOException("second"), MESSAGE);
+    handler.flush();
+
+    // when
+    handler.handleError(new IOException("third"), MESSAGE);
+    handler.handleError(new IOException("fourth"), MESSAGE);
+    handler.flush();
+
+    // then
+    verify(handler, times(4)).log(any(Exception.class), anyString(), eq(1));
+    verify(handler, never()).logDropped(anyInt());
+  }
+
+  @Test public void shouldCountErrorReportedWhileFlushing() {
+    // given
+    final IOException exception = new IOException("timeout");
+    final AggregatingErrorHandler reentrantHandler =
+        spy(new AggregatingErrorHandler(FLUSH_INTERVAL_IN_MS, MAX_DISTINCT_ERRORS, scheduler) {
+          private boolean isReported;
+
+          @Override protected void log(Exception exception, String message, int count) {
+            if (!isReported) {
+              isReported = true;
+              handleError(exception, message);
+            }
+          }
+        });
+    reentrantHandler.handleError(exception, MESSAGE);
+
+    // when
+    reentrantHandler.flush();
+    reentrantHandler.flush();
+
+    // then
+    verify(reentrantHandler, times(2)).log(exception, MESSAGE, 1);
+  }
+
+  @Test public void shouldNotLogTheSameErrorsTwice() {
+    // given
+    handler.handleError(new IOException(), MESSAGE);
+    scheduler.advanceTimeBy(FLUSH_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+
+    // when
+    handler.flush();
+
+    // then
+    verify(handler, times(1)).log(any(Exception.class), anyString(), anyInt());
+  }
+}
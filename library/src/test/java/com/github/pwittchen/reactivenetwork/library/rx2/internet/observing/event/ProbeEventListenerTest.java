@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class ProbeEventListenerTest {
+
+  private final ProbeEventListener listener = new ProbeEventListener() {
+  };
+
+  @Test public void shouldAlwaysReturnTheSameListener() {
+    // given
+    final ProbeEventListener.Factory factory = ProbeEventListener.factory(listener);
+
+    // when
+    final ProbeEventListener first = factory.create();
+    final ProbeEventListener second = factory.create();
+
+    // then
+    assertThat(first).isSameInstanceAs(listener);
+    assertThat(second).isSameInstanceAs(listener);
+  }
+
+  @Test public void shouldReturnListenerForOneInEveryNProbes() {
+    // given
+    final ProbeEventListener.Factory factory = ProbeEventListener.sampledFactory(listener, 3);
+
+    // when
+    final ProbeEventListener first = factory.create();
+    final ProbeEventListener second = factory.create();
+    final ProbeEventListener third = factory.create();
+    final ProbeEventListener fourth = factory.create();
+
+    // then
+    assertThat(first).isSameInstanceAs(listener);
+    assertThat(second).isSameInstanceAs(ProbeEventListener.NONE);
+    assertThat(third).isSameInstanceAs(ProbeEventListener.NONE);
+    assertThat(fourth).isSameInstanceAs(listener);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionWhenSampleRateIsNotPositive() {
+    ProbeEventListener.sampledFactory(listener, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionWhenListenerIsNull() {
+    ProbeEventListener.factory(null);
+  }
+}
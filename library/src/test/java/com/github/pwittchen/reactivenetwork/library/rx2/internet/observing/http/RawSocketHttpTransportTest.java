@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class RawSocketHttpTransportTest {
+
+  private static final int TIMEOUT_IN_MS = 2000;
+  private static final Charset ASCII = Charset.forName("US-ASCII");
+
+  private RawSocketHttpTransport transport;
+  private ServerSocket serverSocket;
+
+  @Before public void setUp() throws IOException {
+    transport = new RawSocketHttpTransport();
+    serverSocket = new ServerSocket(0);
+  }
+
+  @After public void tearDown() throws IOException {
+    serverSocket.close();
+  }
+
+  @Test public void shouldReadStatusCodeFromServerResponse() throws Exception {
+    // given
+    final StringBuilder request = new StringBuilder();
+    final Thread server = respondWith("HTTP/1.1 204 No Content\r\nContent-Length: 0\r\n\r\n",
+        request);
+    final String url = "http://127.0.0.1/generate_204";
+
+    // when
+    final HttpTransport.Call call =
+        transport.newCall(url, serverSocket.getLocalPort(), TIMEOUT_IN_MS);
+    final int responseCode = call.execute(ProbeEventListener.NONE);
+    call.cancel();
+    server.join(TIMEOUT_IN_MS);
+
+    // then
+    assertThat(responseCode).isEqualTo(204);
+    assertThat(request.toString()).isEqualTo("GET /generate_204 HTTP/1.1\r\nHost: 127.0.0.1:"
+        + serverSocket.getLocalPort() + "\r\nConnection: close\r\n\r\n");
+  }
+
+  @Test public void shouldOmitDefaultPortInHostHeader() {
+    assertThat(RawSocketHttpTransport.createHostHeader("www.website.com", 80, false))
+        .isEqualTo("www.website.com");
+    assertThat(RawSocketHttpTransport.createHostHeader("www.website.com", 443, true))
+        .isEqualTo("www.website.com");
+  }
+
+  @Test public void shouldAddNonDefaultPortToHostHeader() {
+    assertThat(RawSocketHttpTransport.createHostHeader("www.website.com", 8080, false))
+        .isEqualTo("www.website.com:8080");
+    assertThat(RawSocketHttpTransport.createHostHeader("www.website.com", 80, true))
+        .isEqualTo("www.website.com:80");
+  }
+
+  @Test public void shouldReuseRequestPreparedForTheSameUrl() throws Exception {
+    // when
+    final RawSocketHttpTransport.PreparedRequest first =
+        transport.prepareRequest("http://www.website.com", 80);
+    final RawSocketHttpTransport.PreparedRequest second =
+        transport.prepareRequest("http://www.website.com", 80);
+    final RawSocketHttpTransport.PreparedRequest third =
+        transport.prepareRequest("http://www.website.com", 8080);
+
+    // then
+    assertThat(second).isSameInstanceAs(first);
+    assertThat(third).isNotSameInstanceAs(first);
+  }
+
+  @Test public void shouldParseStatusLine() throws IOException {
+    // given
+    final InputStream inputStream = createInputStream("HTTP/1.0 200 OK\r\n");
+
+    // when
+    final int responseCode = transport.readStatusCode(inputStream);
+
+    // then
+    assertThat(responseCode).isEqualTo(200);
+  }
+
+  @Test(expected = ProtocolException.class)
+  public void shouldThrowAnExceptionWhenStatusLineIsInvalid() throws IOException {
+    transport.readStatusCode(createInputStream("SSH-2.0-OpenSSH\r\n"));
+  }
+
+  @Test(expected = ProtocolException.class)
+  public void shouldThrowAnExceptionWhenStatusLineIsTruncated() throws IOException {
+    transport.readStatusCode(createInputStream("HTTP/1.1 2"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowNullSocketFactory() {
+    new RawSocketHttpTransport(null, null);
+  }
+
+  private InputStream createInputStream(final String content) {
+    return new ByteArrayInputStream(content.getBytes(ASCII));
+  }
+
+  private Thread respondWith(final String response, final StringBuilder request) {
+    final Thread thread = new Thread(new Runnable() {
+      @Override public void run() {
+        try (Socket socket = serverSocket.accept()) {
+          final InputStream inputStream = socket.getInputStream();
+          final byte[] buffer = new byte[256];
+          while (!request.toString().endsWith("\r\n\r\n")) {
+            final int read = inputStream.read(buffer);
+            if (read == -1) {
+              break;
+            }
+            request.append(new String(buffer, 0, read, ASCII));
+          }
+          final OutputStream outputStream = socket.getOutputStream();
+          outputStream.write(response.getBytes(ASCII));
+          outputStream.flush();
+        } catch (IOException ignored) {
+          // test will fail on assertions
+        }
+      }
+    });
+    thread.start();
+    return thread;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http;
+
+import java.io.IOException;
+import java.net.URL;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class TlsSessionCacheTest {
+
+  @Test public void shouldCreateSocketFactoryOnce() {
+    // given
+    final TlsSessionCache cache = new TlsSessionCache();
+
+    // when
+    final SSLSocketFactory first = cache.getSocketFactory();
+    final SSLSocketFactory second = cache.getSocketFactory();
+
+    // then
+    assertThat(first).isNotNull();
+    assertThat(second).isSameInstanceAs(first);
+  }
+
+  @Test public void shouldReturnTheSameDefaultCache() {
+    assertThat(TlsSessionCache.getDefault()).isSameInstanceAs(TlsSessionCache.getDefault());
+  }
+
+  @Test public void shouldDetectResumedSession() {
+    // given
+    final TlsSessionCache cache = new TlsSessionCache();
+    final SSLSession session = createSession(new byte[] { 1, 2, 3 });
+    cache.isSessionResumed(session);
+
+    // when
+    final boolean isResumed = cache.isSessionResumed(createSession(new byte[] { 1, 2, 3 }));
+
+    // then
+    assertThat(isResumed).isTrue();
+  }
+
+  @Test public void shouldDetectNewSession() {
+    // given
+    final TlsSessionCache cache = new TlsSessionCache();
+    cache.isSessionResumed(createSession(new byte[] { 1, 2, 3 }));
+
+    // when
+    final boolean isResumed = cache.isSessionResumed(createSession(new byte[] { 4, 5, 6 }));
+
+    // then
+    assertThat(isResumed).isFalse();
+  }
+
+  @Test public void shouldNotTreatSessionsWithoutIdAsResumed() {
+    // given
+    final TlsSessionCache cache = new TlsSessionCache();
+    cache.isSessionResumed(createSession(new byte[0]));
+
+    // when
+    final boolean isResumed = cache.isSessionResumed(createSession(new byte[0]));
+
+    // then
+    assertThat(isResumed).isFalse();
+  }
+
+  @Test public void shouldForgetTheEldestSessionsAboveCacheSize() {
+    // given
+    final TlsSessionCache cache = new TlsSessionCache(1, 60);
+    cache.isSessionResumed(createSession(new byte[] { 1 }));
+    cache.isSessionResumed(createSession(new byte[] { 2 }));
+
+    // when
+    final boolean isResumed = cache.isSessionResumed(createSession(new byte[] { 1 }));
+
+    // then
+    assertThat(isResumed).isFalse();
+  }
+
+  @Test public void shouldUseCacheForHttpsConnections() throws IOException {
+    // given
+    final UrlConnectionHttpTransport transport = new UrlConnectionHttpTransport();
+    final HttpsURLConnection connection =
+        (HttpsURLConnection) new URL("https://clients3.google.com").openConnection();
+
+    // when
+    transport.newCall(connection);
+
+    // then
+    assertThat(connection.getSSLSocketFactory())
+        .isInstanceOf(SessionTrackingSocketFactory.class);
+  }
+
+  @Test public void shouldShareSocketFactoryBetweenHttpsConnections() throws IOException {
+    // given
+    final UrlConnectionHttpTransport transport = new UrlConnectionHttpTransport();
+    final HttpsURLConnection first =
+        (HttpsURLConnection) new URL("https://clients3.google.com").openConnection();
+    final HttpsURLConnection second =
+        (HttpsURLConnection) new URL("https://clients3.google.com").openConnection();
+
+    // when
+    transport.newCall(first);
+    transport.newCall(second);
+
+    // then
+    assertThat(second.getSSLSocketFactory()).isSameInstanceAs(first.getSSLSocketFactory());
+  }
+
+  @Test public void shouldNotReplaceCustomSocketFactory() throws IOException {
+    // given
+    final UrlConnectionHttpTransport transport = new UrlConnectionHttpTransport();
+    final SSLSocketFactory customSocketFactory = mock(SSLSocketFactory.class);
+    final HttpsURLConnection connection =
+        (HttpsURLConnection) new URL("https://clients3.google.com").openConnection();
+    connection.setSSLSocketFactory(customSocketFactory);
+
+    // when
+    transport.newCall(connection);
+
+    // then
+    assertThat(connection.getSSLSocketFactory()).isSameInstanceAs(customSocketFactory);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowNonPositiveCacheSize() {
+    new TlsSessionCache(0, 60);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowNonPositiveSessionTimeout() {
+    new TlsSessionCache(8, 0);
+  }
+
+  private SSLSession createSession(final byte[] id) {
+    final SSLSession session = mock(SSLSession.class);
+    when(session.getId()).thenReturn(id);
+    return session;
+  }
+}
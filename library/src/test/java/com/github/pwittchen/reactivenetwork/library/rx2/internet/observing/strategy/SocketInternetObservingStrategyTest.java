@@ -15,23 +15,45 @@
  */
 package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy;
 
+import android.net.Network;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.net.SocketFactory;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,11 +68,13 @@ import static org.mockito.Mockito.when;
   private static final int HTTP_RESPONSE = 204;
   private static final String HOST_WITH_HTTP = "http://www.website.com";
   private static final String HOST_WITHOUT_HTTP = "www.website.com";
+  private static final String LOCAL_HOST_ADDRESS = "127.0.0.1";
 
   @Rule public MockitoRule rule = MockitoJUnit.rule();
   @Spy private SocketInternetObservingStrategy strategy;
   @Mock private ErrorHandler errorHandler;
   @Mock private Socket socket;
+  @Mock private ProbeEventListener eventListener;
 
   private String getHost() {
     return strategy.getDefaultPingHost();
@@ -113,6 +137,39 @@ import static org.mockito.Mockito.when;
     verify(errorHandler, times(1)).handleError(givenException, errorMsg);
   }
 
+  @Test public void shouldReportProbeLifecycleEvents() {
+    // given
+    final SocketInternetObservingStrategy strategy =
+        new SocketInternetObservingStrategy(ProbeEventListener.factory(eventListener));
+    when(socket.isConnected()).thenReturn(true);
+
+    // when
+    strategy.isConnected(socket, getHost(), PORT, TIMEOUT_IN_MS, errorHandler);
+
+    // then
+    verify(eventListener).probeScheduled(eq(getHost()), eq(PORT), anyLong());
+    verify(eventListener).dnsStart(eq(getHost()), anyLong());
+    verify(eventListener).connectStart(anyLong());
+    verify(eventListener).connectEnd(anyLong());
+    verify(eventListener).probeClosed(eq(true), anyLong());
+  }
+
+  @Test public void shouldReportProbeFailure() throws IOException {
+    // given
+    final SocketInternetObservingStrategy strategy =
+        new SocketInternetObservingStrategy(ProbeEventListener.factory(eventListener));
+    final IOException exception = new IOException();
+    final InetSocketAddress address = new InetSocketAddress(getHost(), PORT);
+    doThrow(exception).when(socket).connect(address, TIMEOUT_IN_MS);
+
+    // when
+    strategy.isConnected(socket, getHost(), PORT, TIMEOUT_IN_MS, errorHandler);
+
+    // then
+    verify(eventListener).probeFailed(eq(exception), anyLong());
+    verify(eventListener).probeClosed(eq(false), anyLong());
+  }
+
   @Test public void shouldBeConnectedToTheInternetViaSingle() {
     // given
     when(strategy.isConnected(getHost(), PORT, TIMEOUT_IN_MS, errorHandler)).thenReturn(true);
@@ -143,6 +200,60 @@ import static org.mockito.Mockito.when;
     assertThat(isConnected).isFalse();
   }
 
+  @Test public void shouldCloseSocketWhenCheckIsDisposed() throws IOException {
+    // given
+    final CountDownLatch connectStarted = new CountDownLatch(1);
+    final CountDownLatch socketClosed = new CountDownLatch(1);
+    final CountDownLatch connectFinished = new CountDownLatch(1);
+    final AtomicBoolean isClosedDuringConnect = new AtomicBoolean();
+    final String host = LOCAL_HOST_ADDRESS;
+    doReturn(socket).when(strategy).createSocket();
+    doAnswer(new Answer<Void>() {
+      @Override public Void answer(InvocationOnMock invocation) throws InterruptedException {
+        connectStarted.countDown();
+        isClosedDuringConnect.set(awaitQuietly(socketClosed));
+        connectFinished.countDown();
+        return null;
+      }
+    }).when(socket).connect(any(SocketAddress.class), anyInt());
+    doAnswer(new Answer<Void>() {
+      @Override public Void answer(InvocationOnMock invocation) {
+        socketClosed.countDown();
+        return null;
+      }
+    }).when(socket).close();
+
+    // when
+    final Disposable disposable =
+        strategy.checkInternetConnectivity(host, PORT, TIMEOUT_IN_MS, HTTP_RESPONSE,
+            errorHandler).subscribe();
+    awaitQuietly(connectStarted);
+    disposable.dispose();
+    awaitQuietly(connectFinished);
+
+    // then
+    assertThat(isClosedDuringConnect.get()).isTrue();
+  }
+
+  @Test public void shouldCheckConnectivityOnBackgroundThread() {
+    // given
+    final AtomicReference<Thread> probeThread = new AtomicReference<>();
+    final String host = getHost();
+    doAnswer(new Answer<Boolean>() {
+      @Override public Boolean answer(InvocationOnMock invocation) {
+        probeThread.set(Thread.currentThread());
+        return true;
+      }
+    }).when(strategy).isConnected(host, PORT, TIMEOUT_IN_MS, errorHandler);
+
+    // when
+    strategy.checkInternetConnectivity(host, PORT, TIMEOUT_IN_MS, HTTP_RESPONSE,
+        errorHandler).blockingGet();
+
+    // then
+    assertThat(probeThread.get()).isNotSameInstanceAs(Thread.currentThread());
+  }
+
   @Test public void shouldNotTransformHost() {
     // when
     String transformedHost = strategy.adjustHost(HOST_WITHOUT_HTTP);
@@ -180,4 +291,73 @@ import static org.mockito.Mockito.when;
     // then
     verify(strategy).adjustHost(host);
   }
+
+  @Test public void shouldConnectThroughBoundNetwork() throws IOException {
+    // given
+    final Network network = mock(Network.class);
+    final SocketFactory socketFactory = mock(SocketFactory.class);
+    final InetAddress address = InetAddress.getByName(LOCAL_HOST_ADDRESS);
+    when(network.getSocketFactory()).thenReturn(socketFactory);
+    when(socketFactory.createSocket()).thenReturn(socket);
+    when(network.getByName(HOST_WITHOUT_HTTP)).thenReturn(address);
+    when(socket.isConnected()).thenReturn(true);
+    final InternetObservingStrategy boundStrategy = strategy.bindTo(network);
+
+    // when
+    final boolean isConnected = boundStrategy.checkInternetConnectivity(HOST_WITHOUT_HTTP, PORT,
+        TIMEOUT_IN_MS, HTTP_RESPONSE, errorHandler).blockingGet();
+
+    // then
+    assertThat(isConnected).isTrue();
+    verify(socket).connect(new InetSocketAddress(address, PORT), TIMEOUT_IN_MS);
+  }
+
+  @Test public void shouldNotBeConnectedWhenBoundNetworkCannotResolveHost() throws IOException {
+    // given
+    final Network network = mock(Network.class);
+    final SocketFactory socketFactory = mock(SocketFactory.class);
+    when(network.getSocketFactory()).thenReturn(socketFactory);
+    when(socketFactory.createSocket()).thenReturn(socket);
+    when(network.getByName(HOST_WITHOUT_HTTP)).thenThrow(new UnknownHostException());
+    final InternetObservingStrategy boundStrategy = strategy.bindTo(network);
+
+    // when
+    final boolean isConnected = boundStrategy.checkInternetConnectivity(HOST_WITHOUT_HTTP, PORT,
+        TIMEOUT_IN_MS, HTTP_RESPONSE, errorHandler).blockingGet();
+
+    // then
+    assertThat(isConnected).isFalse();
+    verify(socket, never()).connect(any(SocketAddress.class), anyInt());
+  }
+
+  @Test public void shouldHandleErrorWhenBoundNetworkCannotCreateSocket() throws IOException {
+    // given
+    final Network network = mock(Network.class);
+    final SocketFactory socketFactory = mock(SocketFactory.class);
+    final IOException exception = new IOException("network is gone");
+    when(network.getSocketFactory()).thenReturn(socketFactory);
+    when(socketFactory.createSocket()).thenThrow(exception);
+    final InternetObservingStrategy boundStrategy = strategy.bindTo(network);
+
+    // when
+    final boolean isConnected = boundStrategy.checkInternetConnectivity(HOST_WITHOUT_HTTP, PORT,
+        TIMEOUT_IN_MS, HTTP_RESPONSE, errorHandler).blockingGet();
+
+    // then
+    assertThat(isConnected).isFalse();
+    verify(errorHandler).handleError(exception, "Could not create the socket");
+    verify(network, never()).getByName(anyString());
+  }
+
+  private boolean awaitQuietly(final CountDownLatch latch) {
+    // polling is used, because timed await relies on the clock controlled by Robolectric
+    try {
+      for (int i = 0; i < 100 && latch.getCount() > 0; i++) {
+        Thread.sleep(10);
+      }
+    } catch (InterruptedException ignored) {
+      Thread.currentThread().interrupt();
+    }
+    return latch.getCount() == 0;
+  }
 }
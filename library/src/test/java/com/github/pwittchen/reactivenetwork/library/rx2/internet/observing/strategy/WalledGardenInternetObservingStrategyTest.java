@@ -15,22 +15,39 @@
  */
 package com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.strategy;
 
+import android.net.Network;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.InternetObservingStrategy;
 import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.error.ErrorHandler;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.event.ProbeEventListener;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http.HttpTransport;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http.TlsSessionCache;
+import com.github.pwittchen.reactivenetwork.library.rx2.internet.observing.http.UrlConnectionHttpTransport;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -228,6 +245,136 @@ import static org.mockito.Mockito.when;
     verify(strategy).adjustHost(host);
   }
 
+  @Test public void shouldOpenConnectionThroughBoundNetwork() throws IOException {
+    // given
+    final Network network = mock(Network.class);
+    final HttpURLConnection connection = mock(HttpURLConnection.class);
+    when(network.openConnection(any(URL.class))).thenReturn(connection);
+    when(connection.getResponseCode()).thenReturn(HTTP_RESPONSE);
+    final InternetObservingStrategy boundStrategy = strategy.bindTo(network);
+
+    // when
+    final boolean isConnected = boundStrategy.checkInternetConnectivity(HOST_WITH_HTTP, PORT,
+        TIMEOUT_IN_MS, HTTP_RESPONSE, errorHandler).blockingGet();
+
+    // then
+    assertThat(isConnected).isTrue();
+    verify(network).openConnection(new URL("http", HOST_WITHOUT_HTTPS, PORT, ""));
+    verify(connection).setConnectTimeout(TIMEOUT_IN_MS);
+  }
+
+  @Test public void shouldKeepTlsSessionCacheOfTransportBoundToNetwork() {
+    // given
+    final Network network = mock(Network.class);
+    final UrlConnectionHttpTransport transport =
+        spy(new UrlConnectionHttpTransport(new TlsSessionCache()));
+    final WalledGardenInternetObservingStrategy strategy =
+        spy(new WalledGardenInternetObservingStrategy(transport));
+
+    // when
+    strategy.bindTo(network);
+
+    // then
+    verify(transport).bindTo(network);
+    verify(strategy).createNetworkBoundStrategy(any(UrlConnectionHttpTransport.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotBindToNullNetwork() {
+    // when
+    strategy.bindTo(null);
+  }
+
+  @Test public void shouldPerformProbeWithCustomTransport() throws IOException {
+    // given
+    final HttpTransport transport = mock(HttpTransport.class);
+    final HttpTransport.Call call = mock(HttpTransport.Call.class);
+    when(transport.newCall(HOST_WITH_HTTPS, PORT, TIMEOUT_IN_MS)).thenReturn(call);
+    when(call.execute(any(ProbeEventListener.class))).thenReturn(HTTP_RESPONSE);
+    final WalledGardenInternetObservingStrategy customStrategy =
+        new WalledGardenInternetObservingStrategy(transport);
+
+    // when
+    final boolean isConnected =
+        customStrategy.isConnected(HOST_WITH_HTTPS, PORT, TIMEOUT_IN_MS, HTTP_RESPONSE,
+            errorHandler);
+
+    // then
+    assertThat(isConnected).isTrue();
+    verify(call).cancel();
+  }
+
+  @Test public void shouldHandleAnExceptionThrownByCustomTransport() throws IOException {
+    // given
+    final String errorMsg = "Could not establish connection with WalledGardenStrategy";
+    final IOException givenException = new IOException(errorMsg);
+    final HttpTransport transport = mock(HttpTransport.class);
+    final HttpTransport.Call call = mock(HttpTransport.Call.class);
+    when(transport.newCall(HOST_WITH_HTTPS, PORT, TIMEOUT_IN_MS)).thenReturn(call);
+    when(call.execute(any(ProbeEventListener.class))).thenThrow(givenException);
+    final WalledGardenInternetObservingStrategy customStrategy =
+        new WalledGardenInternetObservingStrategy(transport);
+
+    // when
+    final boolean isConnected =
+        customStrategy.isConnected(HOST_WITH_HTTPS, PORT, TIMEOUT_IN_MS, HTTP_RESPONSE,
+            errorHandler);
+
+    // then
+    assertThat(isConnected).isFalse();
+    verify(errorHandler).handleError(givenException, errorMsg);
+    verify(call).cancel();
+  }
+
+  @Test public void shouldCancelCallWhenCheckIsDisposed() throws IOException {
+    // given
+    final CountDownLatch executeStarted = new CountDownLatch(1);
+    final CountDownLatch callCanceled = new CountDownLatch(1);
+    final HttpTransport transport = mock(HttpTransport.class);
+    final HttpTransport.Call call = mock(HttpTransport.Call.class);
+    when(transport.newCall(HOST_WITH_HTTPS, PORT, TIMEOUT_IN_MS)).thenReturn(call);
+    when(call.execute(any(ProbeEventListener.class))).thenAnswer(new Answer<Integer>() {
+      @Override public Integer answer(InvocationOnMock invocation) throws Exception {
+        executeStarted.countDown();
+        if (!awaitQuietly(callCanceled)) {
+          return HTTP_RESPONSE;
+        }
+        throw new IOException("Canceled");
+      }
+    });
+    doAnswer(new Answer<Void>() {
+      @Override public Void answer(InvocationOnMock invocation) {
+        callCanceled.countDown();
+        return null;
+      }
+    }).when(call).cancel();
+    final WalledGardenInternetObservingStrategy customStrategy =
+        new WalledGardenInternetObservingStrategy(transport);
+
+    // when
+    final Disposable disposable =
+        customStrategy.checkInternetConnectivity(HOST_WITH_HTTPS, PORT, TIMEOUT_IN_MS,
+            HTTP_RESPONSE, errorHandler).subscribe();
+    assertThat(awaitQuietly(executeStarted)).isTrue();
+    disposable.dispose();
+
+    // then
+    assertThat(awaitQuietly(callCanceled)).isTrue();
+    verify(errorHandler, never()).handleError(any(Exception.class), anyString());
+  }
+
+  private boolean awaitQuietly(final CountDownLatch latch) {
+    // polling is used, because timed await relies on the clock controlled by Robolectric
+    try {
+      for (int i = 0; i < 100 && latch.getCount() > 0; i++) {
+        Thread.sleep(10);
+      }
+    } catch (InterruptedException ignored) {
+      Thread.currentThread().interrupt();
+    }
+    return latch.getCount() == 0;
+  }
+
   private ErrorHandler createErrorHandlerStub() {
     return new ErrorHandler() {
       @Override public void handleError(Exception exception, String message) {
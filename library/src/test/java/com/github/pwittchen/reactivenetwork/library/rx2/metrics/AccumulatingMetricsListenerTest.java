@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class AccumulatingMetricsListenerTest {
+
+  private final AccumulatingMetricsListener listener = new AccumulatingMetricsListener();
+
+  @Test public void shouldIncrementCounter() {
+    // when
+    listener.increment(MetricsListener.Counter.PROBE);
+    listener.increment(MetricsListener.Counter.PROBE);
+    listener.increment(MetricsListener.Counter.ERROR);
+
+    // then
+    assertThat(listener.count(MetricsListener.Counter.PROBE)).isEqualTo(2);
+    assertThat(listener.count(MetricsListener.Counter.ERROR)).isEqualTo(1);
+    assertThat(listener.count(MetricsListener.Counter.PROBE_TIMEOUT)).isEqualTo(0);
+  }
+
+  @Test public void shouldRecordDurationInHistogram() {
+    // given
+    final long durationInNanos = TimeUnit.MILLISECONDS.toNanos(15);
+
+    // when
+    listener.record(MetricsListener.Timer.PROBE, durationInNanos);
+
+    // then
+    final long[] histogram = listener.histogram(MetricsListener.Timer.PROBE);
+    final long[] bounds = listener.bucketUpperBoundsInMs();
+    assertThat(histogram[4]).isEqualTo(1);
+    assertThat(bounds[4]).isEqualTo(20);
+    assertThat(listener.count(MetricsListener.Timer.PROBE)).isEqualTo(1);
+    assertThat(listener.count(MetricsListener.Timer.CONNECTIVITY_CREATE)).isEqualTo(0);
+    assertThat(listener.totalDurationInNanos(MetricsListener.Timer.PROBE))
+        .isEqualTo(durationInNanos);
+  }
+
+  @Test public void shouldPutLongDurationIntoTheLastBucket() {
+    // when
+    final int index = listener.bucketIndex(TimeUnit.MINUTES.toMillis(1));
+
+    // then
+    assertThat(index).isEqualTo(listener.bucketUpperBoundsInMs().length - 1);
+  }
+
+  @Test public void shouldReset() {
+    // given
+    listener.increment(MetricsListener.Counter.PROBE);
+    listener.record(MetricsListener.Timer.PROBE, 1);
+
+    // when
+    listener.reset();
+
+    // then
+    assertThat(listener.count(MetricsListener.Counter.PROBE)).isEqualTo(0);
+    assertThat(listener.count(MetricsListener.Timer.PROBE)).isEqualTo(0);
+    assertThat(listener.totalDurationInNanos(MetricsListener.Timer.PROBE)).isEqualTo(0);
+  }
+}
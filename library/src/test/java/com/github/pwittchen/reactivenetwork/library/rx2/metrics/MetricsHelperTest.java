@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.metrics;
+
+import io.reactivex.Observable;
+import java.net.SocketTimeoutException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class MetricsHelperTest {
+
+  private final AccumulatingMetricsListener listener = new AccumulatingMetricsListener();
+
+  @After public void tearDown() {
+    MetricsHelper.setListener(new NoOpMetricsListener());
+  }
+
+  @Test public void shouldBeDisabledByDefault() {
+    // when
+    final long startTime = MetricsHelper.startTime();
+
+    // then
+    assertThat(MetricsHelper.isEnabled()).isFalse();
+    assertThat(startTime).isEqualTo(0L);
+  }
+
+  @Test public void shouldBeEnabledWhenListenerIsSet() {
+    // when
+    MetricsHelper.setListener(listener);
+
+    // then
+    assertThat(MetricsHelper.isEnabled()).isTrue();
+    assertThat(MetricsHelper.listener()).isEqualTo(listener);
+  }
+
+  @Test public void shouldBeDisabledWhenNoOpListenerIsSet() {
+    // given
+    MetricsHelper.setListener(listener);
+
+    // when
+    MetricsHelper.setListener(new NoOpMetricsListener());
+
+    // then
+    assertThat(MetricsHelper.isEnabled()).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowAnExceptionWhenListenerIsNull() {
+    MetricsHelper.setListener(null);
+  }
+
+  @Test public void shouldRecordDuration() {
+    // given
+    MetricsHelper.setListener(listener);
+
+    // when
+    MetricsHelper.recordSince(MetricsListener.Timer.PROBE, MetricsHelper.startTime());
+
+    // then
+    assertThat(listener.count(MetricsListener.Timer.PROBE)).isEqualTo(1);
+  }
+
+  @Test public void shouldCountProbeTimeout() {
+    // given
+    MetricsHelper.setListener(listener);
+
+    // when
+    MetricsHelper.incrementProbeFailure(new SocketTimeoutException());
+
+    // then
+    assertThat(listener.count(MetricsListener.Counter.PROBE_FAILURE)).isEqualTo(1);
+    assertThat(listener.count(MetricsListener.Counter.PROBE_TIMEOUT)).isEqualTo(1);
+  }
+
+  @Test public void shouldCountEmittedEventsAndDroppedDuplicates() {
+    // given
+    MetricsHelper.setListener(listener);
+
+    // when
+    Observable.just(1, 1, 2, 2, 2, 3)
+        .distinctUntilChanged(MetricsHelper.duplicateFilter())
+        .doOnNext(MetricsHelper.emissionCounter())
+        .test()
+        .assertValues(1, 2, 3);
+
+    // then
+    assertThat(listener.count(MetricsListener.Counter.EVENT_EMITTED)).isEqualTo(3);
+    assertThat(listener.count(MetricsListener.Counter.DUPLICATE_DROPPED)).isEqualTo(3);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing;
+
+import android.os.Handler;
+import android.os.Looper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class CallbackThreadHelperTest {
+
+  @Test public void shouldReturnTheSameHandler() {
+    // when
+    final Handler first = CallbackThreadHelper.getHandler();
+    final Handler second = CallbackThreadHelper.getHandler();
+
+    // then
+    assertThat(first).isSameInstanceAs(second);
+  }
+
+  @Test public void shouldUseBackgroundThread() {
+    // when
+    final Handler handler = CallbackThreadHelper.getHandler();
+
+    // then
+    assertThat(handler.getLooper()).isNotSameInstanceAs(Looper.getMainLooper());
+    assertThat(handler.getLooper().getThread().isAlive()).isTrue();
+  }
+}
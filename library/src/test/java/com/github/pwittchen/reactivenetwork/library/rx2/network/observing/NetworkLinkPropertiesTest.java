@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing;
+
+import android.net.LinkProperties;
+import android.net.Network;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 29)
+@SuppressWarnings("NullAway") public class NetworkLinkPropertiesTest {
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private Network network;
+
+  @Test public void shouldCreatePropertiesWithAllFieldsChanged() throws UnknownHostException {
+    // given
+    final LinkProperties linkProperties = createLinkProperties("wlan0", "8.8.8.8", 1500);
+
+    // when
+    final NetworkLinkProperties properties =
+        NetworkLinkProperties.create(network, linkProperties, null);
+
+    // then
+    assertThat(properties.network()).isSameInstanceAs(network);
+    assertThat(properties.interfaceName()).isEqualTo("wlan0");
+    assertThat(properties.dnsServers()).containsExactly(InetAddress.getByName("8.8.8.8"));
+    assertThat(properties.mtu()).isEqualTo(1500);
+    assertThat(properties.changedFields()).isEqualTo(NetworkLinkProperties.ALL_FIELDS);
+  }
+
+  @Test public void shouldDetectChangedFields() throws UnknownHostException {
+    // given
+    final NetworkLinkProperties previous = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "8.8.8.8", 1500), null);
+
+    // when
+    final NetworkLinkProperties current = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "1.1.1.1", 1280), previous);
+
+    // then
+    assertThat(current.changedFields()).isEqualTo(
+        NetworkLinkProperties.FIELD_DNS_SERVERS | NetworkLinkProperties.FIELD_MTU);
+    assertThat(current.hasChanged(NetworkLinkProperties.FIELD_INTERFACE_NAME)).isFalse();
+  }
+
+  @Test public void shouldNotDetectChangesOfEqualProperties() throws UnknownHostException {
+    // given
+    final NetworkLinkProperties previous = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "8.8.8.8", 1500), null);
+
+    // when
+    final NetworkLinkProperties current = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "8.8.8.8", 1500), previous);
+
+    // then
+    assertThat(current.changedFields()).isEqualTo(0);
+  }
+
+  @Test public void shouldBeEqualToPropertiesWithTheSameFields() throws UnknownHostException {
+    // given
+    final NetworkLinkProperties first = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "8.8.8.8", 1500), null);
+
+    // when
+    final NetworkLinkProperties second = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "8.8.8.8", 1500), null);
+
+    // then
+    assertThat(first).isEqualTo(second);
+    assertThat(first.hashCode()).isEqualTo(second.hashCode());
+  }
+
+  @Test public void shouldNotBeEqualToPropertiesWithDifferentFields()
+      throws UnknownHostException {
+    // given
+    final NetworkLinkProperties first = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "8.8.8.8", 1500), null);
+
+    // when
+    final NetworkLinkProperties second = NetworkLinkProperties.create(network,
+        createLinkProperties("wlan0", "1.1.1.1", 1500), null);
+
+    // then
+    assertThat(first).isNotEqualTo(second);
+  }
+
+  private LinkProperties createLinkProperties(final String interfaceName, final String dnsServer,
+      final int mtu) throws UnknownHostException {
+    final LinkProperties linkProperties = ReflectionHelpers.callConstructor(LinkProperties.class);
+    ReflectionHelpers.callInstanceMethod(linkProperties, "setInterfaceName",
+        ClassParameter.from(String.class, interfaceName));
+    ReflectionHelpers.callInstanceMethod(linkProperties, "addDnsServer",
+        ClassParameter.from(InetAddress.class, InetAddress.getByName(dnsServer)));
+    ReflectionHelpers.callInstanceMethod(linkProperties, "setMtu",
+        ClassParameter.from(int.class, mtu));
+    return linkProperties;
+  }
+}
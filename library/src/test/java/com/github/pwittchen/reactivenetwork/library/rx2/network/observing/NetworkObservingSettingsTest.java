@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing;
+
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class NetworkObservingSettingsTest {
+
+  @Test public void shouldCreateSettingsWithoutTransportTypesAndCapabilities() {
+    // when
+    final NetworkObservingSettings settings = NetworkObservingSettings.create();
+
+    // then
+    assertThat(settings.transportTypes()).isEmpty();
+    assertThat(settings.capabilities()).isEmpty();
+    assertThat(settings.removedCapabilities()).isEmpty();
+  }
+
+  @Test public void shouldBuildSettings() {
+    // when
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .addTransportType(NetworkCapabilities.TRANSPORT_ETHERNET)
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+        .removeCapability(NetworkCapabilities.NET_CAPABILITY_NOT_VPN)
+        .build();
+
+    // then
+    assertThat(settings.transportTypes()).asList()
+        .containsExactly(NetworkCapabilities.TRANSPORT_WIFI, NetworkCapabilities.TRANSPORT_ETHERNET)
+        .inOrder();
+    assertThat(settings.capabilities()).asList()
+        .containsExactly(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    assertThat(settings.removedCapabilities()).asList()
+        .containsExactly(NetworkCapabilities.NET_CAPABILITY_NOT_VPN);
+  }
+
+  @Test public void shouldNotExposeInternalArrays() {
+    // given
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .build();
+
+    // when
+    settings.transportTypes()[0] = NetworkCapabilities.TRANSPORT_CELLULAR;
+
+    // then
+    assertThat(settings.transportTypes()).asList()
+        .containsExactly(NetworkCapabilities.TRANSPORT_WIFI);
+  }
+
+  @Test @Config(sdk = 29) public void shouldCreateNetworkRequest() {
+    // given
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+        .removeCapability(NetworkCapabilities.NET_CAPABILITY_NOT_VPN)
+        .build();
+
+    // when
+    final NetworkRequest request = settings.createNetworkRequest();
+
+    // then
+    assertThat(request.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)).isTrue();
+    assertThat(request.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)).isFalse();
+    assertThat(request.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)).isTrue();
+    assertThat(request.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_VPN)).isFalse();
+  }
+}
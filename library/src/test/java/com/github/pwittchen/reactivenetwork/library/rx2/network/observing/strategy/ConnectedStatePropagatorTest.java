@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings("NullAway") public class ConnectedStatePropagatorTest {
+
+  private final Connectivity wifiConnected = new Connectivity.Builder()
+      .type(ConnectivityManager.TYPE_WIFI)
+      .state(NetworkInfo.State.CONNECTED)
+      .build();
+
+  private final Connectivity mobileDisconnected = new Connectivity.Builder()
+      .type(ConnectivityManager.TYPE_MOBILE)
+      .state(NetworkInfo.State.DISCONNECTED)
+      .detailedState(NetworkInfo.DetailedState.CONNECTED)
+      .build();
+
+  private final Connectivity wifiDisconnected = new Connectivity.Builder()
+      .type(ConnectivityManager.TYPE_WIFI)
+      .state(NetworkInfo.State.DISCONNECTED)
+      .detailedState(NetworkInfo.DetailedState.CONNECTED)
+      .build();
+
+  @Test public void shouldPropagateLastConnectivityWhenSwitchingNetworkType() {
+    // when
+    final TestObserver<Connectivity> observer = Observable.just(wifiConnected, mobileDisconnected)
+        .lift(new ConnectedStatePropagator())
+        .test();
+
+    // then
+    observer.assertValues(wifiConnected, mobileDisconnected, wifiConnected);
+    observer.assertComplete();
+  }
+
+  @Test public void shouldNotPropagateLastConnectivityWhenTypeIsNotChanged() {
+    // when
+    final TestObserver<Connectivity> observer = Observable.just(wifiConnected, wifiDisconnected)
+        .lift(new ConnectedStatePropagator())
+        .test();
+
+    // then
+    observer.assertValues(wifiConnected, wifiDisconnected);
+  }
+
+  @Test public void shouldTrackLastConnectivityPerSubscriber() {
+    // given
+    final PublishSubject<Connectivity> subject = PublishSubject.create();
+    final Observable<Connectivity> observable = subject.lift(new ConnectedStatePropagator());
+    final TestObserver<Connectivity> first = observable.test();
+    subject.onNext(wifiConnected);
+    final TestObserver<Connectivity> second = observable.test();
+
+    // when
+    subject.onNext(mobileDisconnected);
+
+    // then
+    first.assertValues(wifiConnected, mobileDisconnected, wifiConnected);
+    second.assertValues(mobileDisconnected);
+  }
+
+  @Test public void shouldDisposeUpstream() {
+    // given
+    final PublishSubject<Connectivity> subject = PublishSubject.create();
+    final TestObserver<Connectivity> observer =
+        subject.lift(new ConnectedStatePropagator()).test();
+
+    // when
+    observer.dispose();
+
+    // then
+    assertThat(subject.hasObservers()).isFalse();
+  }
+}
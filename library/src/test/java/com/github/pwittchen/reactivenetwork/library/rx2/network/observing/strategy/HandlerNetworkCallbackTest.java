@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.Network;
+import android.net.NetworkRequest;
+import android.os.Handler;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.CallbackThreadHelper;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD", "NullAway" }) public class HandlerNetworkCallbackTest {
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private ConnectivityManager manager;
+  @Mock private Network network;
+
+  @Test public void shouldRegisterCallbackDirectlyWithoutHandler() {
+    // given
+    final NetworkRequest request = new NetworkRequest.Builder().build();
+    final NetworkCallback callback = new NetworkCallback();
+
+    // when
+    final NetworkCallback registered =
+        HandlerNetworkCallback.register(manager, request, callback, null);
+
+    // then
+    assertThat(registered).isSameInstanceAs(callback);
+    verify(manager).registerNetworkCallback(request, callback);
+  }
+
+  @Test public void shouldRequestNetworkDirectlyWithoutHandler() {
+    // given
+    final NetworkRequest request = new NetworkRequest.Builder().build();
+    final NetworkCallback callback = new NetworkCallback();
+
+    // when
+    final NetworkCallback registered =
+        HandlerNetworkCallback.request(manager, request, callback, null);
+
+    // then
+    assertThat(registered).isSameInstanceAs(callback);
+    verify(manager).requestNetwork(request, callback);
+  }
+
+  @Test @Config(sdk = 29) public void shouldRequestNetworkWithHandler() {
+    // given
+    final Handler handler = CallbackThreadHelper.getHandler();
+    final NetworkRequest request = new NetworkRequest.Builder().build();
+    final NetworkCallback callback = new NetworkCallback();
+
+    // when
+    final NetworkCallback registered =
+        HandlerNetworkCallback.request(manager, request, callback, handler);
+
+    // then
+    assertThat(registered).isSameInstanceAs(callback);
+    verify(manager).requestNetwork(request, callback, handler);
+  }
+
+  @Test @Config(sdk = 29) public void shouldRequestNetworkWithHandlerAndTimeout() {
+    // given
+    final Handler handler = CallbackThreadHelper.getHandler();
+    final NetworkRequest request = new NetworkRequest.Builder().build();
+    final NetworkCallback callback = new NetworkCallback();
+
+    // when
+    final NetworkCallback registered =
+        HandlerNetworkCallback.request(manager, request, callback, handler, 1000);
+
+    // then
+    assertThat(registered).isSameInstanceAs(callback);
+    verify(manager).requestNetwork(request, callback, handler, 1000);
+  }
+
+  @Test @Config(sdk = 29) public void shouldRegisterDefaultCallbackDirectlyWithoutHandler() {
+    // given
+    final NetworkCallback callback = new NetworkCallback();
+
+    // when
+    final NetworkCallback registered =
+        HandlerNetworkCallback.registerDefault(manager, callback, null);
+
+    // then
+    assertThat(registered).isSameInstanceAs(callback);
+    verify(manager).registerDefaultNetworkCallback(callback);
+  }
+
+  @Test @Config(sdk = 29) public void shouldRegisterDefaultCallbackWithHandler() {
+    // given
+    final Handler handler = CallbackThreadHelper.getHandler();
+    final NetworkCallback callback = new NetworkCallback();
+
+    // when
+    final NetworkCallback registered =
+        HandlerNetworkCallback.registerDefault(manager, callback, handler);
+
+    // then
+    assertThat(registered).isSameInstanceAs(callback);
+    verify(manager).registerDefaultNetworkCallback(callback, handler);
+  }
+
+  @Test public void shouldInvokeCallbackOnHandlerThread() {
+    // given
+    final Handler handler = CallbackThreadHelper.getHandler();
+    final NetworkRequest request = new NetworkRequest.Builder().build();
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<Thread> callbackThread = new AtomicReference<>();
+    final NetworkCallback callback = new NetworkCallback() {
+      @Override public void onAvailable(Network network) {
+        callbackThread.set(Thread.currentThread());
+        latch.countDown();
+      }
+    };
+
+    // when
+    final NetworkCallback registered =
+        HandlerNetworkCallback.register(manager, request, callback, handler);
+    registered.onAvailable(network);
+    awaitQuietly(latch);
+
+    // then
+    verify(manager).registerNetworkCallback(request, registered);
+    assertThat(callbackThread.get()).isSameInstanceAs(handler.getLooper().getThread());
+  }
+
+  private void awaitQuietly(final CountDownLatch latch) {
+    // polling is used, because timed await relies on the clock controlled by Robolectric
+    try {
+      for (int i = 0; i < 100 && latch.getCount() > 0; i++) {
+        Thread.sleep(10);
+      }
+    } catch (InterruptedException ignored) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.LinkProperties;
+import android.net.Network;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkLinkProperties;
+import io.reactivex.observers.TestObserver;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+// we're suppressing PMD warnings because we want static imports in tests
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD", "NullAway" }) public class LinkPropertiesObservingStrategyTest {
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private ConnectivityManager manager;
+  @Mock private Network network;
+
+  private final LinkPropertiesObservingStrategy strategy = new LinkPropertiesObservingStrategy();
+
+  @Test @Config(sdk = 29) public void shouldEmitOnlyChangedProperties() {
+    // given
+    final AtomicReference<NetworkCallback> callback = new AtomicReference<>();
+    final TestObserver<NetworkLinkProperties> observer =
+        NetworkCallbackTestHelper.observeCallback(strategy, manager, callback);
+
+    // when
+    callback.get().onLinkPropertiesChanged(network, createLinkProperties(1500));
+    callback.get().onLinkPropertiesChanged(network, createLinkProperties(1500));
+    callback.get().onLinkPropertiesChanged(network, createLinkProperties(1280));
+    callback.get().onLost(network);
+    callback.get().onLinkPropertiesChanged(network, createLinkProperties(1280));
+
+    // then
+    observer.assertValueCount(3);
+    observer.assertValueAt(0,
+        properties -> properties.changedFields() == NetworkLinkProperties.ALL_FIELDS);
+    observer.assertValueAt(1,
+        properties -> properties.changedFields() == NetworkLinkProperties.FIELD_MTU);
+    observer.assertValueAt(2,
+        properties -> properties.changedFields() == NetworkLinkProperties.ALL_FIELDS);
+  }
+
+  private LinkProperties createLinkProperties(final int mtu) {
+    final LinkProperties linkProperties = ReflectionHelpers.callConstructor(LinkProperties.class);
+    ReflectionHelpers.callInstanceMethod(linkProperties, "setMtu",
+        ClassParameter.from(int.class, mtu));
+    return linkProperties;
+  }
+}
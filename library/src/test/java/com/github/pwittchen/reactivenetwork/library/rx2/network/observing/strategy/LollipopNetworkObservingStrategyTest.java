@@ -17,11 +17,16 @@ package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strat
 
 import android.app.Application;
 import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
 import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingStrategy;
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,10 +35,17 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowConnectivityManager;
+import org.robolectric.shadows.ShadowNetwork;
+import org.robolectric.shadows.ShadowNetworkCapabilities;
+import org.robolectric.shadows.ShadowNetworkInfo;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.robolectric.Shadows.shadowOf;
 
 @RunWith(RobolectricTestRunner.class)
 @SuppressWarnings("NullAway") public class LollipopNetworkObservingStrategyTest {
@@ -68,6 +80,34 @@ import static org.mockito.Mockito.verify;
     assertThat(observer.isDisposed()).isTrue();
   }
 
+  @Test public void shouldNotTouchSystemServicesBeforeSubscription() {
+    // given
+    final Context context = mock(Context.class);
+
+    // when
+    new LollipopNetworkObservingStrategy().observeNetworkConnectivity(context);
+
+    // then
+    verifyNoInteractions(context);
+  }
+
+  @Test public void shouldReadInitialConnectivityOnGivenScheduler() {
+    // given
+    final TestScheduler scheduler = new TestScheduler();
+    final NetworkObservingStrategy strategy = new LollipopNetworkObservingStrategy(scheduler);
+    final Context context = RuntimeEnvironment.getApplication();
+    final TestObserver<Connectivity> observer = new TestObserver<>();
+
+    // when
+    strategy.observeNetworkConnectivity(context).subscribe(observer);
+    observer.assertNoValues();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValueCount(1);
+    observer.dispose();
+  }
+
   @Test public void shouldCallOnError() {
     // given
     final String message = "error message";
@@ -79,4 +119,85 @@ import static org.mockito.Mockito.verify;
     // then
     verify(strategy, times(1)).onError(message, exception);
   }
+
+  @Test public void shouldUnregisterOnlyCallbackOfDisposedSubscription() {
+    // given
+    final NetworkObservingStrategy strategy = new LollipopNetworkObservingStrategy();
+    final Context context = RuntimeEnvironment.getApplication();
+    final ShadowConnectivityManager connectivityManager = shadowOf(
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE));
+    final TestObserver<Connectivity> first = new TestObserver<>();
+    strategy.observeNetworkConnectivity(context).subscribe(first);
+    final ConnectivityManager.NetworkCallback firstCallback =
+        connectivityManager.getNetworkCallbacks().iterator().next();
+    final TestObserver<Connectivity> second = new TestObserver<>();
+    strategy.observeNetworkConnectivity(context).subscribe(second);
+
+    // when
+    first.dispose();
+
+    // then
+    assertThat(connectivityManager.getNetworkCallbacks()).hasSize(1);
+    assertThat(connectivityManager.getNetworkCallbacks()).doesNotContain(firstCallback);
+    second.dispose();
+    assertThat(connectivityManager.getNetworkCallbacks()).isEmpty();
+  }
+
+  @Test public void shouldStartWithConnectedNetworkMatchingSettings() {
+    // given
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .build();
+    final NetworkObservingStrategy strategy = new LollipopNetworkObservingStrategy(settings);
+    final Context context = RuntimeEnvironment.getApplication();
+    final ShadowConnectivityManager connectivityManager = shadowOf(
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE));
+    final Network wifiNetwork = ShadowNetwork.newInstance(100);
+    connectivityManager.addNetwork(wifiNetwork,
+        ShadowNetworkInfo.newInstance(NetworkInfo.DetailedState.CONNECTED,
+            ConnectivityManager.TYPE_WIFI, 0, true, NetworkInfo.State.CONNECTED));
+    final NetworkCapabilities wifiCapabilities = ShadowNetworkCapabilities.newInstance();
+    shadowOf(wifiCapabilities).addTransportType(NetworkCapabilities.TRANSPORT_WIFI);
+    connectivityManager.setNetworkCapabilities(wifiNetwork, wifiCapabilities);
+
+    // when
+    final Connectivity connectivity =
+        strategy.observeNetworkConnectivity(context).blockingFirst();
+
+    // then
+    assertThat(connectivity.type()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+    assertThat(connectivity.state()).isEqualTo(NetworkInfo.State.CONNECTED);
+  }
+
+  @Test public void shouldNotEmitCellularConnectivityWhenWifiIsObserved() {
+    // given
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .build();
+    final NetworkObservingStrategy strategy = new LollipopNetworkObservingStrategy(settings);
+    final Context context = RuntimeEnvironment.getApplication();
+    final ShadowConnectivityManager connectivityManager = shadowOf(
+        (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE));
+    final Network wifiNetwork = ShadowNetwork.newInstance(100);
+    connectivityManager.addNetwork(wifiNetwork,
+        ShadowNetworkInfo.newInstance(NetworkInfo.DetailedState.CONNECTED,
+            ConnectivityManager.TYPE_WIFI, 0, true, NetworkInfo.State.CONNECTED));
+    final TestObserver<Connectivity> observer = new TestObserver<>();
+    strategy.observeNetworkConnectivity(context).subscribe(observer);
+
+    // when
+    final ConnectivityManager.NetworkCallback callback =
+        connectivityManager.getNetworkCallbacks().iterator().next();
+    callback.onAvailable(wifiNetwork);
+    callback.onLost(wifiNetwork);
+
+    // then
+    observer.assertValueCount(3);
+    for (Connectivity connectivity : observer.values()) {
+      assertThat(connectivity.type()).isNotEqualTo(ConnectivityManager.TYPE_MOBILE);
+    }
+    assertThat(observer.values().get(1).type()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+    assertThat(observer.values().get(2).state()).isEqualTo(NetworkInfo.State.DISCONNECTED);
+    observer.dispose();
+  }
 }
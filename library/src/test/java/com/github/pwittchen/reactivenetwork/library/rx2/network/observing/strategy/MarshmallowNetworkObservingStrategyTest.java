@@ -21,13 +21,16 @@ import android.content.Context;
 import android.content.Intent;
 import android.net.ConnectivityManager;
 import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 import android.os.Build;
 import android.os.PowerManager;
 import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
 import io.reactivex.subscribers.TestSubscriber;
 import org.junit.Before;
 import org.junit.Rule;
@@ -39,19 +42,26 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.reactivestreams.Publisher;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowNetwork;
+import org.robolectric.shadows.ShadowNetworkInfo;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
 
 // we're suppressing PMD warnings because we want static imports in tests
 @RunWith(RobolectricTestRunner.class)
 @SuppressWarnings({ "PMD", "NullAway" }) public class MarshmallowNetworkObservingStrategyTest {
 
+  private static final int WIFI_NET_ID = 100;
+
   @Rule public MockitoRule rule = MockitoJUnit.rule();
   @Spy private MarshmallowNetworkObservingStrategy strategy =
       new MarshmallowNetworkObservingStrategy();
@@ -217,6 +227,68 @@ import static org.mockito.Mockito.when;
     verify(strategy).createNetworkCallback(context);
   }
 
+  @Test public void shouldShareRegistrationBetweenSubscribers() {
+    // given
+    final Observable<Connectivity> observable = strategy.observeNetworkConnectivity(context);
+
+    // when
+    final Disposable first = observable.subscribe();
+    final Disposable second = strategy.observeNetworkConnectivity(context).subscribe();
+    first.dispose();
+
+    // then
+    verify(strategy, times(1)).createNetworkCallback(context);
+    verify(strategy, times(1)).registerIdleReceiver(context);
+    verify(strategy, never()).tryToUnregisterCallback(any(ConnectivityManager.class));
+
+    // when
+    second.dispose();
+
+    // then
+    verify(strategy, times(1)).tryToUnregisterCallback(any(ConnectivityManager.class));
+    verify(strategy, times(1)).tryToUnregisterReceiver(context);
+  }
+
+  @Test public void shouldRegisterAgainWhenSubscribedAfterAllSubscribersWereDisposed() {
+    // given
+    final Observable<Connectivity> observable = strategy.observeNetworkConnectivity(context);
+
+    // when
+    observable.subscribe().dispose();
+    observable.subscribe().dispose();
+
+    // then
+    verify(strategy, times(2)).createNetworkCallback(context);
+    verify(strategy, times(2)).tryToUnregisterCallback(any(ConnectivityManager.class));
+    verify(strategy, never()).onError(any(String.class), any(Exception.class));
+  }
+
+  @Test public void shouldNotRegisterCallbackBeforeSubscription() {
+    // when
+    strategy.observeNetworkConnectivity(context);
+
+    // then
+    verify(strategy, never()).createNetworkCallback(context);
+    verify(strategy, never()).registerIdleReceiver(context);
+  }
+
+  @Test public void shouldReadInitialConnectivityOnGivenScheduler() {
+    // given
+    final TestScheduler scheduler = new TestScheduler();
+    final MarshmallowNetworkObservingStrategy strategy =
+        new MarshmallowNetworkObservingStrategy(scheduler);
+    final TestObserver<Connectivity> observer = new TestObserver<>();
+
+    // when
+    strategy.observeNetworkConnectivity(context).subscribe(observer);
+    observer.assertNoValues();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValueCount(1);
+    observer.dispose();
+  }
+
   @TargetApi(Build.VERSION_CODES.LOLLIPOP) @Test
   public void shouldInvokeOnNextOnNetworkAvailable() {
     // given
@@ -240,10 +312,80 @@ import static org.mockito.Mockito.when;
     verify(strategy).onNext(any(Connectivity.class));
   }
 
+  @TargetApi(Build.VERSION_CODES.Q) @Test @Config(sdk = 29)
+  public void shouldInvokeOnNextOnBlockedStatusChanged() {
+    // given
+    ConnectivityManager.NetworkCallback networkCallback = strategy.createNetworkCallback(context);
+
+    // when
+    networkCallback.onBlockedStatusChanged(network, true);
+
+    // then
+    verify(strategy).onNext(any(Connectivity.class));
+  }
+
+  @TargetApi(Build.VERSION_CODES.Q) @Test @Config(sdk = 29)
+  public void shouldEmitBlockedStateOfCallbackNetwork() {
+    // given
+    final MarshmallowNetworkObservingStrategy strategy =
+        new MarshmallowNetworkObservingStrategy(createWifiSettings());
+    final Network wifiNetwork = addWifiNetwork();
+    final TestObserver<Connectivity> observer =
+        strategy.observeNetworkConnectivity(context).test();
+
+    // when
+    getRegisteredCallback().onBlockedStatusChanged(wifiNetwork, true);
+
+    // then
+    final Connectivity connectivity = observer.values().get(observer.values().size() - 1);
+    assertThat(connectivity.blocked()).isTrue();
+    assertThat(connectivity.type()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+    assertThat(connectivity.networkHandle()).isEqualTo(wifiNetwork.getNetworkHandle());
+    observer.dispose();
+  }
+
+  @TargetApi(Build.VERSION_CODES.Q) @Test @Config(sdk = 29)
+  public void shouldNotEmitBlockedStateOfNetworkWhichIsNotActive() {
+    // given
+    final Network wifiNetwork = addWifiNetwork();
+    final TestObserver<Connectivity> observer =
+        strategy.observeNetworkConnectivity(context).test();
+
+    // when
+    getRegisteredCallback().onBlockedStatusChanged(wifiNetwork, true);
+
+    // then
+    for (Connectivity connectivity : observer.values()) {
+      assertThat(connectivity.type()).isEqualTo(ConnectivityManager.TYPE_MOBILE);
+      assertThat(connectivity.blocked()).isFalse();
+    }
+    observer.dispose();
+  }
+
+  @TargetApi(Build.VERSION_CODES.Q) @Test @Config(sdk = 29)
+  public void shouldKeepBlockedStateOfActiveNetworkReportedByCallback() {
+    // given
+    final Network activeNetwork = getConnectivityManager().getActiveNetwork();
+    final Network wifiNetwork = addWifiNetwork();
+    final TestObserver<Connectivity> observer =
+        strategy.observeNetworkConnectivity(context).test();
+    final ConnectivityManager.NetworkCallback callback = getRegisteredCallback();
+
+    // when
+    callback.onBlockedStatusChanged(activeNetwork, true);
+    callback.onAvailable(wifiNetwork);
+
+    // then
+    final Connectivity connectivity = observer.values().get(observer.values().size() - 1);
+    assertThat(connectivity.blocked()).isTrue();
+    assertThat(connectivity.networkHandle()).isEqualTo(activeNetwork.getNetworkHandle());
+    observer.dispose();
+  }
+
   @TargetApi(Build.VERSION_CODES.LOLLIPOP) @Test
   public void shouldHandleErrorWhileTryingToUnregisterCallback() {
     // given
-    strategy.observeNetworkConnectivity(context);
+    final Disposable disposable = strategy.observeNetworkConnectivity(context).subscribe();
     final IllegalArgumentException exception = new IllegalArgumentException();
     doThrow(exception).when(connectivityManager)
         .unregisterNetworkCallback(any(ConnectivityManager.NetworkCallback.class));
@@ -254,6 +396,7 @@ import static org.mockito.Mockito.when;
     // then
     verify(strategy).onError(MarshmallowNetworkObservingStrategy.ERROR_MSG_NETWORK_CALLBACK,
         exception);
+    disposable.dispose();
   }
 
   @Test public void shouldHandleErrorWhileTryingToUnregisterReceiver() {
@@ -283,6 +426,28 @@ import static org.mockito.Mockito.when;
     assertThatConnectivityIsPropagatedDuringChange(lastType, currentType);
   }
 
+  @Test public void shouldUsePropagationOverriddenBySubclass() {
+    // given
+    final Connectivity propagated = Connectivity.state(NetworkInfo.State.CONNECTED).build();
+    final Connectivity current = Connectivity.state(NetworkInfo.State.DISCONNECTED).build();
+    final MarshmallowNetworkObservingStrategy customStrategy =
+        new MarshmallowNetworkObservingStrategy() {
+          @Override protected Observable<Connectivity> propagateConnectedState(
+              final Observable<Connectivity> connectivity) {
+            return connectivity.concatMap(value -> Observable.just(value, propagated));
+          }
+        };
+    final TestObserver<Connectivity> observer =
+        customStrategy.observeNetworkConnectivity(context).skip(1).test();
+
+    // when
+    customStrategy.onNext(current);
+
+    // then
+    observer.assertValues(current, propagated);
+    observer.dispose();
+  }
+
   private void assertThatConnectivityIsPropagatedDuringChange(
       final int lastType, final int currentType) {
     // given
@@ -400,4 +565,72 @@ import static org.mockito.Mockito.when;
     testSubscriber.assertValueCount(1);
     testSubscriber.assertValues(current);
   }
+
+  @Test public void shouldNotEmitCellularConnectivityWhenWifiIsObserved() {
+    // given
+    final MarshmallowNetworkObservingStrategy strategy =
+        new MarshmallowNetworkObservingStrategy(createWifiSettings());
+    final Network wifiNetwork = addWifiNetwork();
+    final TestObserver<Connectivity> observer = new TestObserver<>();
+    strategy.observeNetworkConnectivity(context).subscribe(observer);
+
+    // when
+    final ConnectivityManager.NetworkCallback callback = getRegisteredCallback();
+    callback.onAvailable(wifiNetwork);
+    callback.onLost(wifiNetwork);
+
+    // then
+    observer.assertValueCount(3);
+    for (Connectivity connectivity : observer.values()) {
+      assertThat(connectivity.type()).isNotEqualTo(ConnectivityManager.TYPE_MOBILE);
+    }
+    assertThat(observer.values().get(1).type()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+    assertThat(observer.values().get(1).state()).isEqualTo(NetworkInfo.State.CONNECTED);
+    assertThat(observer.values().get(2).state()).isEqualTo(NetworkInfo.State.DISCONNECTED);
+    assertThat(observer.values().get(2).networkHandle())
+        .isEqualTo(wifiNetwork.getNetworkHandle());
+    observer.dispose();
+  }
+
+  @Test public void shouldStartWithAvailableNetworkWhenSubscribedToObservedWifi() {
+    // given
+    final MarshmallowNetworkObservingStrategy strategy =
+        new MarshmallowNetworkObservingStrategy(createWifiSettings());
+    final Network wifiNetwork = addWifiNetwork();
+    final TestObserver<Connectivity> first = new TestObserver<>();
+    final TestObserver<Connectivity> second = new TestObserver<>();
+    strategy.observeNetworkConnectivity(context).subscribe(first);
+    getRegisteredCallback().onAvailable(wifiNetwork);
+
+    // when
+    strategy.observeNetworkConnectivity(context).subscribe(second);
+
+    // then
+    second.assertValueCount(1);
+    assertThat(second.values().get(0).type()).isEqualTo(ConnectivityManager.TYPE_WIFI);
+    first.dispose();
+    second.dispose();
+  }
+
+  private NetworkObservingSettings createWifiSettings() {
+    return NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .build();
+  }
+
+  private Network addWifiNetwork() {
+    final Network wifiNetwork = ShadowNetwork.newInstance(WIFI_NET_ID);
+    final NetworkInfo wifiInfo = ShadowNetworkInfo.newInstance(NetworkInfo.DetailedState.CONNECTED,
+        ConnectivityManager.TYPE_WIFI, 0, true, NetworkInfo.State.CONNECTED);
+    shadowOf(getConnectivityManager()).addNetwork(wifiNetwork, wifiInfo);
+    return wifiNetwork;
+  }
+
+  private ConnectivityManager.NetworkCallback getRegisteredCallback() {
+    return shadowOf(getConnectivityManager()).getNetworkCallbacks().iterator().next();
+  }
+
+  private ConnectivityManager getConnectivityManager() {
+    return (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+  }
 }
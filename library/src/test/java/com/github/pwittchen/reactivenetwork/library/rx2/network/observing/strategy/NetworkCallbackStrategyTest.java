@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+import io.reactivex.ObservableEmitter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// we're suppressing PMD warnings because we want static imports in tests
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD", "NullAway" }) public class NetworkCallbackStrategyTest {
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private Context context;
+  @Mock private ConnectivityManager manager;
+
+  @Test public void shouldNotRegisterCallbackBeforeSubscription() {
+    // when
+    createStrategy(null).observeNetworkCallback(context);
+
+    // then
+    verifyNoInteractions(context);
+  }
+
+  @Test public void shouldRegisterAndUnregisterCallback() {
+    // given
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    final ArgumentCaptor<NetworkCallback> callback = ArgumentCaptor.forClass(NetworkCallback.class);
+
+    // when
+    createStrategy(null).observeNetworkCallback(context).subscribe().dispose();
+
+    // then
+    verify(manager).registerNetworkCallback(any(NetworkRequest.class), callback.capture());
+    verify(manager).unregisterNetworkCallback(callback.getValue());
+  }
+
+  @Test public void shouldRegisterCallbackWithDefaultRequest() {
+    // given
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    final ArgumentCaptor<NetworkRequest> request = ArgumentCaptor.forClass(NetworkRequest.class);
+
+    // when
+    createStrategy(null).observeNetworkCallback(context).subscribe().dispose();
+
+    // then
+    verify(manager).registerNetworkCallback(request.capture(), any(NetworkCallback.class));
+    final NetworkRequest expectedRequest = new NetworkRequest.Builder()
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_RESTRICTED)
+        .build();
+    assertThat(request.getValue()).isEqualTo(expectedRequest);
+  }
+
+  @Test public void shouldRegisterCallbackWithRequestFromSettings() {
+    // given
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .build();
+    final ArgumentCaptor<NetworkRequest> request = ArgumentCaptor.forClass(NetworkRequest.class);
+
+    // when
+    createStrategy(settings).observeNetworkCallback(context).subscribe().dispose();
+
+    // then
+    verify(manager).registerNetworkCallback(request.capture(), any(NetworkCallback.class));
+    assertThat(request.getValue()).isEqualTo(settings.createNetworkRequest());
+  }
+
+  @Test public void shouldNotCrashWhenCallbackCannotBeUnregistered() {
+    // given
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    doThrow(new IllegalArgumentException()).when(manager)
+        .unregisterNetworkCallback(any(NetworkCallback.class));
+
+    // when
+    createStrategy(null).observeNetworkCallback(context).subscribe().dispose();
+
+    // then
+    verify(manager).unregisterNetworkCallback(any(NetworkCallback.class));
+  }
+
+  private NetworkCallbackStrategy<Network> createStrategy(
+      final NetworkObservingSettings settings) {
+    return new NetworkCallbackStrategy<Network>(settings, null) {
+      @Override protected NetworkCallback createNetworkCallback(
+          final ObservableEmitter<Network> emitter, final ConnectivityManager manager) {
+        return new NetworkCallback();
+      }
+    };
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.observers.TestObserver;
+import java.util.concurrent.atomic.AtomicReference;
+
+final class NetworkCallbackTestHelper {
+
+  private NetworkCallbackTestHelper() {
+  }
+
+  /**
+   * Subscribes to values emitted by the network callback of a strategy without registering it,
+   * so the test can invoke the callback directly
+   */
+  static <T> TestObserver<T> observeCallback(final NetworkCallbackStrategy<T> strategy,
+      final ConnectivityManager manager, final AtomicReference<NetworkCallback> callback) {
+    return Observable.create(new ObservableOnSubscribe<T>() {
+      @Override public void subscribe(ObservableEmitter<T> emitter) {
+        callback.set(strategy.createNetworkCallback(emitter, manager));
+      }
+    }).test();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.Network;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkHandover;
+import io.reactivex.observers.TestObserver;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.mockito.Mockito.when;
+
+// we're suppressing PMD warnings because we want static imports in tests
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD", "NullAway" }) public class NetworkHandoverObservingStrategyTest {
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private ConnectivityManager manager;
+  @Mock private Network wifiNetwork;
+  @Mock private Network cellularNetwork;
+
+  private final NetworkHandoverObservingStrategy strategy = new NetworkHandoverObservingStrategy();
+
+  @Test @Config(sdk = 21) public void shouldEmitHandoverWithNetworkAvailableMostRecently() {
+    // given
+    final AtomicReference<NetworkCallback> callback = new AtomicReference<>();
+    final TestObserver<NetworkHandover> observer =
+        NetworkCallbackTestHelper.observeCallback(strategy, manager, callback);
+
+    // when
+    callback.get().onAvailable(wifiNetwork);
+    callback.get().onAvailable(cellularNetwork);
+    callback.get().onLosing(wifiNetwork, 30000);
+
+    // then
+    observer.assertValue(new NetworkHandover(wifiNetwork, 30000, cellularNetwork));
+  }
+
+  @Test @Config(sdk = 21) public void shouldEmitHandoverWithoutReplacementNetwork() {
+    // given
+    final AtomicReference<NetworkCallback> callback = new AtomicReference<>();
+    final TestObserver<NetworkHandover> observer =
+        NetworkCallbackTestHelper.observeCallback(strategy, manager, callback);
+
+    // when
+    callback.get().onAvailable(cellularNetwork);
+    callback.get().onLost(cellularNetwork);
+    callback.get().onAvailable(wifiNetwork);
+    callback.get().onLosing(wifiNetwork, 1000);
+
+    // then
+    observer.assertValue(new NetworkHandover(wifiNetwork, 1000, null));
+  }
+
+  @Test @Config(sdk = 23) public void shouldEmitHandoverWithActiveNetwork() {
+    // given
+    when(manager.getActiveNetwork()).thenReturn(cellularNetwork);
+    final AtomicReference<NetworkCallback> callback = new AtomicReference<>();
+    final TestObserver<NetworkHandover> observer =
+        NetworkCallbackTestHelper.observeCallback(strategy, manager, callback);
+
+    // when
+    callback.get().onAvailable(wifiNetwork);
+    callback.get().onLosing(wifiNetwork, 1000);
+
+    // then
+    observer.assertValue(new NetworkHandover(wifiNetwork, 1000, cellularNetwork));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.ConnectivityManager.NetworkCallback;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// we're suppressing PMD warnings because we want static imports in tests
+@RunWith(RobolectricTestRunner.class)
+@SuppressWarnings({ "PMD", "NullAway" }) public class NetworkRequestingStrategyTest {
+
+  private static final int TIMEOUT_IN_MS = 1000;
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private Context context;
+  @Mock private ConnectivityManager manager;
+  @Mock private Network cellularNetwork;
+  @Mock private Network otherCellularNetwork;
+
+  private final NetworkRequestingStrategy strategy = new NetworkRequestingStrategy();
+
+  @Test public void shouldRequestAndReleaseNetwork() {
+    // given
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    final ArgumentCaptor<NetworkCallback> callback = ArgumentCaptor.forClass(NetworkCallback.class);
+
+    // when
+    strategy.requestNetwork(context).subscribe().dispose();
+
+    // then
+    verify(manager).requestNetwork(any(NetworkRequest.class), callback.capture());
+    verify(manager).unregisterNetworkCallback(callback.getValue());
+  }
+
+  @Test public void shouldRequestCellularNetworkByDefault() {
+    // given
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    final ArgumentCaptor<NetworkRequest> request = ArgumentCaptor.forClass(NetworkRequest.class);
+
+    // when
+    strategy.requestNetwork(context).subscribe().dispose();
+
+    // then
+    verify(manager).requestNetwork(request.capture(), any(NetworkCallback.class));
+    final NetworkRequest expectedRequest = new NetworkRequest.Builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_CELLULAR)
+        .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+        .build();
+    assertThat(request.getValue()).isEqualTo(expectedRequest);
+  }
+
+  @Test public void shouldEmitEachAvailableNetwork() {
+    // given
+    final AtomicReference<NetworkCallback> callback = new AtomicReference<>();
+    final TestObserver<Network> observer =
+        NetworkCallbackTestHelper.observeCallback(strategy, manager, callback);
+
+    // when
+    callback.get().onAvailable(cellularNetwork);
+    callback.get().onAvailable(otherCellularNetwork);
+    callback.get().onLost(cellularNetwork);
+
+    // then
+    observer.assertValues(cellularNetwork, otherCellularNetwork);
+    observer.assertNotComplete();
+  }
+
+  @Test public void shouldCompleteWhenEmittedNetworkIsLost() {
+    // given
+    final AtomicReference<NetworkCallback> callback = new AtomicReference<>();
+    final TestObserver<Network> observer =
+        NetworkCallbackTestHelper.observeCallback(strategy, manager, callback);
+
+    // when
+    callback.get().onAvailable(cellularNetwork);
+    callback.get().onLost(cellularNetwork);
+
+    // then
+    observer.assertValues(cellularNetwork);
+    observer.assertComplete();
+  }
+
+  @Test public void shouldCompleteWhenNetworkIsUnavailable() {
+    // given
+    final AtomicReference<NetworkCallback> callback = new AtomicReference<>();
+    final TestObserver<Network> observer =
+        NetworkCallbackTestHelper.observeCallback(strategy, manager, callback);
+
+    // when
+    callback.get().onUnavailable();
+
+    // then
+    observer.assertNoValues();
+    observer.assertComplete();
+  }
+
+  @Test @Config(sdk = 29) public void shouldPassTimeoutToSystemOnOreoOrHigher() {
+    // given
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    final NetworkRequestingStrategy strategy =
+        new NetworkRequestingStrategy(null, null, TIMEOUT_IN_MS);
+
+    // when
+    strategy.requestNetwork(context).subscribe().dispose();
+
+    // then
+    verify(manager).requestNetwork(any(NetworkRequest.class), any(NetworkCallback.class),
+        eq(TIMEOUT_IN_MS));
+  }
+
+  @Test @Config(sdk = 23) public void shouldCompleteWhenNetworkIsNotAvailableWithinTimeout() {
+    // given
+    final TestScheduler scheduler = new TestScheduler();
+    RxJavaPlugins.setComputationSchedulerHandler(current -> scheduler);
+    when(context.getSystemService(Context.CONNECTIVITY_SERVICE)).thenReturn(manager);
+    final NetworkRequestingStrategy strategy =
+        new NetworkRequestingStrategy(null, null, TIMEOUT_IN_MS);
+
+    // when
+    final TestObserver<Network> observer = strategy.requestNetwork(context).test();
+    scheduler.advanceTimeBy(TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
+    RxJavaPlugins.reset();
+
+    // then
+    observer.assertNoValues();
+    observer.assertComplete();
+    verify(manager).unregisterNetworkCallback(any(NetworkCallback.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptZeroTimeout() {
+    new NetworkRequestingStrategy(null, null, 0);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivenetwork.library.rx2.network.observing.strategy;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import com.github.pwittchen.reactivenetwork.library.rx2.Connectivity;
+import com.github.pwittchen.reactivenetwork.library.rx2.network.observing.NetworkObservingSettings;
+import io.reactivex.observers.TestObserver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// we're suppressing PMD warnings because we want static imports in tests
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 29)
+@SuppressWarnings({ "PMD", "NullAway" }) public class NougatNetworkObservingStrategyTest {
+
+  @Rule public MockitoRule rule = MockitoJUnit.rule();
+  @Mock private ConnectivityManager connectivityManager;
+
+  @Test public void shouldObserveConnectivity() {
+    // given
+    final NougatNetworkObservingStrategy strategy = new NougatNetworkObservingStrategy();
+    final Context context = RuntimeEnvironment.getApplication().getApplicationContext();
+    final TestObserver<Connectivity> observer = new TestObserver<>();
+
+    // when
+    strategy.observeNetworkConnectivity(context).subscribe(observer);
+
+    // then
+    observer.assertValueCount(1);
+    assertThat(observer.values().get(0).state()).isEqualTo(NetworkInfo.State.CONNECTED);
+    observer.dispose();
+  }
+
+  @Test public void shouldRegisterDefaultNetworkCallback() {
+    // given
+    final NougatNetworkObservingStrategy strategy = new NougatNetworkObservingStrategy();
+    final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback();
+
+    // when
+    strategy.registerNetworkCallback(connectivityManager, callback, null);
+
+    // then
+    verify(connectivityManager).registerDefaultNetworkCallback(callback);
+    verify(connectivityManager, never())
+        .registerNetworkCallback(any(NetworkRequest.class),
+            any(ConnectivityManager.NetworkCallback.class));
+  }
+
+  @Test public void shouldRegisterCallbackWithRequestFromSettings() {
+    // given
+    final NetworkObservingSettings settings = NetworkObservingSettings.builder()
+        .addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        .build();
+    final NougatNetworkObservingStrategy strategy = new NougatNetworkObservingStrategy(settings);
+    final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback();
+    final ArgumentCaptor<NetworkRequest> request = ArgumentCaptor.forClass(NetworkRequest.class);
+
+    // when
+    strategy.registerNetworkCallback(connectivityManager, callback, null);
+
+    // then
+    verify(connectivityManager).registerNetworkCallback(request.capture(), eq(callback));
+    verify(connectivityManager, never())
+        .registerDefaultNetworkCallback(any(ConnectivityManager.NetworkCallback.class));
+    assertThat(request.getValue().hasTransport(NetworkCapabilities.TRANSPORT_WIFI)).isTrue();
+  }
+}